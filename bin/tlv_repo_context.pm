@@ -118,6 +118,29 @@ my $expected_cmake = '/usr/bin/cmake';
   fibo               => {
                          tlv => ['examples/fibo/fibo.tlv'],
                          exit_code => [0]
+                        },
+  param_width        => {tlv => ['examples/param_width/param_width.tlv'],
+                         exit_code => [0]
+                        },
+  prune              => {tlv => ['examples/prune/prune.tlv'],
+                         pp_args => [" -prune"],
+                         exit_code => [1]
+                        },
+  new_staging        => {tlv => ['examples/new_staging/new_staging.tlv'],
+                         pp_args => [" -newstaging"],
+                         exit_code => [0]
+                        },
+  staging_threads    => {tlv => ['examples/beh_hier/beh_hier.tlv'],
+                         pp_args => [" -stagingthreads 4"],
+                         exit_code => [4]
+                        },
+  clock_merge        => {tlv => ['examples/clock_merge/clock_merge.tlv'],
+                         pp_args => [" -p tlv.regression.CycleClockProject"],
+                         exit_code => [0],
+                         classpath => 'build/regression/regression_proj.jar',  # Provides the -p project.
+                         # Clocks named per cycle, but with the same signature, share one GATER.
+                         checks => [['_gen.vs', '`GATER\\(', 1],
+                                    ['_gen.vs', 'always_ff @posedge\\(Clk_V_enH_c2\\)', 3]]
                         }
 );
 
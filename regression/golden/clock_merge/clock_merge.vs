@@ -0,0 +1,21 @@
+`line 2 "clock_merge.tlv"// \TLV_version 1a: tl-x.org
+`include "tlv_tlv.regression.CycleClockProject.vh"  //SV
+module top(input wire clk, input wire reset, input wire en, input wire [15:0] in, output wire [15:0] out);
+
+// With -p tlv.regression.CycleClockProject, the flops of $x (into cycles 2 and 3) and $y (into cycle 4), gated by *en,
+// have clocks with different names and the same signature.  They are merged, so a single GATER is generated, and all
+// flops use it.
+`include "clock_merge_gen.vs"
+   /*_|pipe_*/
+      /*_@1_*/
+         assign data_PIPE_01H[15:0] = in;
+      /*_?*en_*/
+         /*_@1_*/
+            assign x_PIPE_01H[15:0] = data_PIPE_01H;
+         /*_@3_*/
+            assign y_PIPE_03H[15:0] = x_PIPE_03H;
+      /*_@4_*/
+         assign z_PIPE_04H[15:0] = y_PIPE_04H;
+         assign out = z_PIPE_04H; endgenerate
+//SV
+endmodule
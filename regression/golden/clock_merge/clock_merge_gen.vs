@@ -0,0 +1,78 @@
+// <Legal notice here>
+
+
+`include "tlv.vh"
+
+
+
+
+
+//
+// Scope: |pipe
+//
+
+// For signal "data"
+node [15:0] data_PIPE_01H;
+
+// For signal "x"
+node [15:0] x_PIPE_01H;
+node [15:0] x_PIPE_02H;
+node [15:0] x_PIPE_03H;
+
+// For signal "y"
+node [15:0] y_PIPE_03H;
+node [15:0] y_PIPE_04H;
+
+// For signal "z"
+node [15:0] z_PIPE_04H;
+
+
+generate
+
+
+
+   //
+   // Scope: |pipe
+   //
+
+
+   // For signal "data"
+
+   // For signal "x"
+   always_ff @posedge(Clk_V_enH_c2) x_PIPE_02H[15:0] <= x_PIPE_01H[15:0];
+   always_ff @posedge(Clk_V_enH_c2) x_PIPE_03H[15:0] <= x_PIPE_02H[15:0];
+
+   // For signal "y"
+   always_ff @posedge(Clk_V_enH_c2) y_PIPE_04H[15:0] <= y_PIPE_03H[15:0];
+
+   // For signal "z"
+
+
+
+
+endgenerate
+
+
+
+//
+// Gated clocks.
+//
+
+generate
+
+
+`GATER(Clk_V_enH_c2, Clk_H, 1'b1, en)
+
+   //
+   // Scope: |pipe
+   //
+
+
+
+
+
+endgenerate
+
+
+
+generate   // This is awkward, but we need to go into 'generate' context in the line that `includes the declarations file.
@@ -0,0 +1,22 @@
+`line 2 "new_staging.tlv"// \TLV_version 1a: tl-x.org
+`include "tlv_hsx.vh"  //SV
+module top(
+    input wire clk,
+    input wire reset,
+    input wire valid,
+    input wire [15:0] in,
+    output wire [15:0] out);
+
+// $data is only used when $valid, so -newstaging gates its staging by $valid.
+`include "new_staging_gen.vs"
+   /*_|pipe_*/
+      /*_@1_*/
+         assign valid_PIPE_01H = valid;
+         assign data_PIPE_01H[15:0] = in;
+      /*_?$valid_*/
+         /*_@3_*/
+            assign sum_PIPE_03H[15:0] = data_PIPE_03H + 16'b1;
+      /*_@3_*/
+         assign out = sum_PIPE_03H; endgenerate
+//SV
+endmodule
@@ -0,0 +1,77 @@
+// <Legal notice here>
+
+
+`include "tlv.vh"
+
+
+
+
+
+//
+// Scope: |pipe
+//
+
+// For signal "data"
+node [15:0] data_PIPE_01H;
+node [15:0] data_PIPE_02H;
+node [15:0] data_PIPE_03H;
+
+// For signal "sum"
+node [15:0] sum_PIPE_03H;
+
+// For signal "valid"
+node valid_PIPE_01H;
+node valid_PIPE_02H;
+
+// Clock signals.
+logic Clk_valid_PIPE_02H ;
+logic Clk_valid_PIPE_03H ;
+
+generate
+
+
+
+   //
+   // Scope: |pipe
+   //
+
+
+   // For signal "data"
+   always_ff @posedge(Clk_valid_PIPE_02H) data_PIPE_02H[15:0] <= data_PIPE_01H[15:0];
+   always_ff @posedge(Clk_valid_PIPE_03H) data_PIPE_03H[15:0] <= data_PIPE_02H[15:0];
+
+   // For signal "sum"
+
+   // For signal "valid"
+   always_ff @posedge(Clk_H) valid_PIPE_02H <= valid_PIPE_01H;
+
+
+
+
+endgenerate
+
+
+
+//
+// Gated clocks.
+//
+
+generate
+
+
+
+   //
+   // Scope: |pipe
+   //
+
+
+   `GATER(Clk_valid_PIPE_02H, Clk_H, 1'b1, valid_PIPE_01H)
+   `GATER(Clk_valid_PIPE_03H, Clk_H, 1'b1, valid_PIPE_02H)
+
+
+
+endgenerate
+
+
+
+generate   // This is awkward, but we need to go into 'generate' context in the line that `includes the declarations file.
@@ -0,0 +1,20 @@
+`line 2 "param_width.tlv"// \TLV_version 1a: tl-x.org
+`include "tlv_hsx.vh"  //SV
+module top #(parameter WIDTH = 8) (
+    input wire clk,
+    input wire reset,
+    input wire [WIDTH-1:0] in,
+    output wire [WIDTH-1:0] out);
+
+// Bit ranges of parameters (which may be overridden) must be staged in full.
+`include "param_width_gen.vs"
+   /*_|pipe_*/
+      /*_@1_*/
+         assign a_PIPE_01H[WIDTH-1:0] = in;
+      /*_@3_*/
+         assign c_PIPE_03H[7:0] = a_PIPE_03H[7:0];
+         `BOGUS_USE(c_PIPE_03H);
+      /*_@4_*/
+         assign out = a_PIPE_04H[WIDTH-1:0]; endgenerate
+//SV
+endmodule
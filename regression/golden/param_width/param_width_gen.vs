@@ -0,0 +1,67 @@
+// <Legal notice here>
+
+
+`include "tlv.vh"
+
+
+
+
+
+//
+// Scope: |pipe
+//
+
+// For signal "a"
+node [WIDTH-1:0] a_PIPE_01H;
+node [WIDTH-1:0] a_PIPE_02H;
+node [WIDTH-1:0] a_PIPE_03H;
+node [WIDTH-1:0] a_PIPE_04H;
+
+// For signal "c"
+node [7:0] c_PIPE_03H;
+
+
+generate
+
+
+
+   //
+   // Scope: |pipe
+   //
+
+
+   // For signal "a"
+   always_ff @posedge(Clk_H) a_PIPE_02H[WIDTH-1:0] <= a_PIPE_01H[WIDTH-1:0];
+   always_ff @posedge(Clk_H) a_PIPE_03H[WIDTH-1:0] <= a_PIPE_02H[WIDTH-1:0];
+   always_ff @posedge(Clk_H) a_PIPE_04H[WIDTH-1:0] <= a_PIPE_03H[WIDTH-1:0];
+
+   // For signal "c"
+
+
+
+
+endgenerate
+
+
+
+//
+// Gated clocks.
+//
+
+generate
+
+
+
+   //
+   // Scope: |pipe
+   //
+
+
+
+
+
+endgenerate
+
+
+
+generate   // This is awkward, but we need to go into 'generate' context in the line that `includes the declarations file.
@@ -0,0 +1,24 @@
+`line 2 "prune.tlv"// \TLV_version 1a: tl-x.org
+`include "tlv_hsx.vh"  //SV
+module top(
+    input wire clk,
+    input wire reset,
+    input wire [7:0] in,
+    output wire [7:0] out,
+    output wire [7:0] out2);
+
+// With -prune, $dead and $dead2 are eliminated.  $inc is referenced only by \SV code, so it is kept.
+`include "prune_gen.vs"
+   /*_|pipe_*/
+      /*_@1_*/
+         assign a_PIPE_01H[7:0] = in;
+         assign inc_PIPE_01H[7:0] = a_PIPE_01H + 8'b1;
+         // Pruned: assign dead_PIPE_01H[7:0] = a_PIPE_01H - 8'b1;
+      /*_@2_*/
+         // Pruned: assign dead2_PIPE_02H[7:0] = dead_PIPE_02H ^ a_PIPE_02H;
+         assign b_PIPE_02H[7:0] = a_PIPE_02H;
+      /*_@3_*/
+         assign out = b_PIPE_03H; endgenerate
+//SV
+   assign out2 = inc_PIPE_01H;
+endmodule
@@ -0,0 +1,70 @@
+// <Legal notice here>
+
+
+`include "tlv.vh"
+
+
+
+
+
+//
+// Scope: |pipe
+//
+
+// For signal "a"
+node [7:0] a_PIPE_01H;
+node [7:0] a_PIPE_02H;
+
+// For signal "b"
+node [7:0] b_PIPE_02H;
+node [7:0] b_PIPE_03H;
+
+// For signal "inc"
+node [7:0] inc_PIPE_01H;
+
+
+generate
+
+
+
+   //
+   // Scope: |pipe
+   //
+
+
+   // For signal "a"
+   always_ff @posedge(Clk_H) a_PIPE_02H[7:0] <= a_PIPE_01H[7:0];
+
+   // For signal "b"
+   always_ff @posedge(Clk_H) b_PIPE_03H[7:0] <= b_PIPE_02H[7:0];
+
+   // For signal "inc"
+
+
+
+
+endgenerate
+
+
+
+//
+// Gated clocks.
+//
+
+generate
+
+
+
+   //
+   // Scope: |pipe
+   //
+
+
+
+
+
+endgenerate
+
+
+
+generate   // This is awkward, but we need to go into 'generate' context in the line that `includes the declarations file.
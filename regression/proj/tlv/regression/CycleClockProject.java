@@ -0,0 +1,49 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package tlv.regression;
+
+import tlv.Main;
+import tlv.behavioral.LogicalBehScope;
+import tlv.behavioral.PipeSignal;
+import tlv.config.ProjSpecific;
+
+/**
+ * A project (-p tlv.regression.CycleClockProject) for the clock_merge regression test.  Clock names are suffixed by the
+ * cycle of their destination stage, even for SV gaters, whose clocks are otherwise the same for all stages.  So, the
+ * clocks of an SV gater for different cycles have different names and the same signature, and should be merged into a
+ * single clock (see SourceFile.canonicalClock(..)).
+ */
+public class CycleClockProject extends ProjSpecific
+{
+	@Override
+	protected String makeClockSignalName(PipeSignal gater_sig, PipeSignal functional_gater_sig, LogicalBehScope scope, int dest_stage)
+	{
+		return super.makeClockSignalName(gater_sig, functional_gater_sig, scope, dest_stage) + "_c" + Main.phaseToCyc(dest_stage);
+	}
+}
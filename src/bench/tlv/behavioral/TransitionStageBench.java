@@ -0,0 +1,91 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.behavioral;
+
+import tlv.bench.SvgenFixture;
+import tlv.parse.ActiveParseContext;
+import tlv.parse.identifier.Expression;
+import tlv.parse.identifier.Identifier;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Benchmark of TransitionStage.addRange(..) (which is package-private, hence this package).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransitionStageBench
+{
+	private static final int NUM_BITS = 64;
+
+	private PipeSignal sig;
+	private Expression [] bits;
+
+
+	@Setup
+	public void setup()
+	{
+		SvgenFixture.init();
+		ActiveParseContext.get().set(null, "$sig", 0, -1);
+		sig = new PipeSignal(null, null, Identifier.parse(-1), null);
+		bits = new Expression[NUM_BITS];
+		for (int i = 0; i < NUM_BITS; i++)
+		{
+			bits[i] = new Expression(i);
+		}
+	}
+
+	/**
+	 * Add disjoint ranges, then ranges that overlap and merge with them.
+	 */
+	@Benchmark
+	public TransitionStage addRange()
+	{
+		TransitionStage stage = new TransitionStage(sig, 2);
+		StagingType type = StagingType.FLOP1;
+		for (int i = 0; i < NUM_BITS; i += 4)
+		{
+			type = stage.addRange(bits[i + 1], bits[i], false, type);
+		}
+		for (int i = 0; i + 5 < NUM_BITS; i += 8)
+		{
+			type = stage.addRange(bits[i + 5], bits[i + 2], (i & 8) != 0, type);
+		}
+		return stage;
+	}
+}
@@ -0,0 +1,90 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.bench;
+
+import tlv.DesignGenerator;
+import tlv.parse.ActiveParseContext;
+import tlv.parse.SourceFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * End-to-end benchmark of SourceFile.process() for synthetic designs of increasing size (from DesignGenerator, with
+ * default parameters other than the number of pipelines).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GeneratedDesignBench
+{
+	@Param({"1", "4", "16"})
+	public int pipelines;
+
+	private File tlv_file;
+
+
+	@Setup
+	public void setup() throws IOException
+	{
+		SvgenFixture.quiet();
+		DesignGenerator.Params params = new DesignGenerator.Params();
+		params.pipelines = pipelines;
+		tlv_file = new File(SvgenFixture.tempDir(), "generated" + pipelines + ".tlv");
+		new DesignGenerator(params).generate(tlv_file);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		SvgenFixture.unquiet();
+	}
+
+	/**
+	 * @return Exit status (which should be consumed).
+	 */
+	@Benchmark
+	public int process() throws IOException
+	{
+		SourceFile file = SvgenFixture.open(tlv_file);
+		file.process();
+		return ActiveParseContext.get().getExitStatus();
+	}
+}
@@ -0,0 +1,115 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.bench;
+
+import tlv.config.IdentifierType;
+import tlv.parse.ActiveParseContext;
+import tlv.parse.ParseContext;
+import tlv.parse.identifier.Identifier;
+import tlv.parse.identifier.Identifier.Syntax;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Benchmarks of parsing primitives: Identifier.parse(..), Identifier.mapSyntax(..), and ParseContext.parseMatches(..).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParseBench
+{
+	// Identifiers of each kind that Assignment.parseSigRef(..) parses.
+	private static final String [] IDENTIFIER_STRS = {"$valid_sig", "$$assigned_sig", "$StateSig", ">beh_hier", "|pipe", "$ANY"};
+	private static final int IDENTIFIER_MASK = IdentifierType.sigOrdinalMask() | (1 << IdentifierType.BEH_HIER.ordinal()) | (1 << IdentifierType.PIPELINE.ordinal());
+
+	// As in Assignment.
+	private static final Pattern sig_ref_start_pattern = Pattern.compile("(\\$|\\$\\$|\\$=|>|\\||\\*)[a-zA-Z]");
+	private static final Pattern token_pattern         = Pattern.compile("\\w*");
+	private static final String ASSIGNMENT_STR = "$$result[31:0] = $valid ? >alu[#+1]|calc$op_a[31:0] + $op_b : {24'b0, $byte[7:0]};";
+
+	private ParseContext context;
+
+
+	@Setup
+	public void setup()
+	{
+		SvgenFixture.init();
+		context = ActiveParseContext.get();
+	}
+
+	@Benchmark
+	public void identifierParse(Blackhole bh)
+	{
+		for (String str: IDENTIFIER_STRS)
+		{
+			context.set(null, str, 0, -1);
+			bh.consume(Identifier.parse(IDENTIFIER_MASK));
+		}
+	}
+
+	@Benchmark
+	public void identifierMapSyntax(Blackhole bh)
+	{
+		bh.consume(Identifier.mapSyntax("valid_sig_name", Syntax.LOWER_CASE, Syntax.CAMEL_CASE));
+		bh.consume(Identifier.mapSyntax("ValidSigName", Syntax.CAMEL_CASE, Syntax.LOWER_CASE));
+		bh.consume(Identifier.mapSyntax("valid_sig_name", Syntax.LOWER_CASE, Syntax.UPPER_CASE));
+		bh.consume(Identifier.mapSyntax("ValidSigName", Syntax.CAMEL_CASE, Syntax.UPPER_CASE));
+	}
+
+	/**
+	 * Scan an assignment expression as Assignment.parse2(..) does: test for a signal reference at each token, and
+	 * absorb tokens.
+	 */
+	@Benchmark
+	public void parseContextParseMatches(Blackhole bh)
+	{
+		context.set(null, ASSIGNMENT_STR, 0, -1);
+		while (!context.doneString())
+		{
+			Matcher matcher = context.parseMatches(sig_ref_start_pattern, false);
+			if (matcher == null)
+			{
+				matcher = context.parseMatches(token_pattern, true);
+			}
+			bh.consume(matcher);
+			context.incrementPosition(1);
+		}
+	}
+}
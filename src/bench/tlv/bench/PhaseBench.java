@@ -0,0 +1,100 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.bench;
+
+import tlv.parse.SourceFile;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Benchmarks of translation phases whose hot paths cannot be exercised outside of a parsed design.  Each invocation
+ * gets a freshly prepared SourceFile.
+ *    o createLogicalStructure: dominated by Assignment.parse2(..) (called for each assignment statement).
+ * (findNonLocalAssignments() is not benchmarked.  $ANY is FATAL in TL-X 1a, so no design exercises LogicalBehScope.pullSignal(..).)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PhaseBench
+{
+	/**
+	 * A file, prepared through parseFile().
+	 */
+	@State(Scope.Thread)
+	public static class ParsedFile
+	{
+		@Param({SvgenFixture.EXAMPLE_BEH_HIER, SvgenFixture.EXAMPLE_OPERAND4, SvgenFixture.EXAMPLE_USERS_GUIDE, SvgenFixture.EXAMPLE_PRESENTATION})
+		public String tlv;
+
+		public SourceFile file;
+
+		@Setup(Level.Trial)
+		public void quiet()
+		{
+			SvgenFixture.quiet();
+		}
+
+		@Setup(Level.Invocation)
+		public void prepare() throws IOException
+		{
+			file = SvgenFixture.open(tlv);
+			file.parseFile();
+		}
+
+		@TearDown(Level.Invocation)
+		public void close()
+		{
+			file.end();
+		}
+
+		@TearDown(Level.Trial)
+		public void unquiet()
+		{
+			SvgenFixture.unquiet();
+		}
+	}
+
+	@Benchmark
+	public SourceFile createLogicalStructure(ParsedFile state)
+	{
+		state.file.createLogicalStructure();
+		return state.file;
+	}
+}
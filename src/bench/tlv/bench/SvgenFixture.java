@@ -0,0 +1,154 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.bench;
+
+import tlv.config.CommandLineOptions;
+import tlv.config.ProjSpecific;
+import tlv.parse.ActiveParseContext;
+import tlv.parse.SourceFile;
+import tlv.parse.identifier.Identifier;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+
+/**
+ * Common set-up for benchmarks: global SVGen state, example files, and output files.
+ *
+ * Example files are found relative to the repository root given by the "svgen.root" system property (default: the
+ * working directory).
+ */
+public class SvgenFixture
+{
+	public static final String ROOT_PROPERTY = "svgen.root";
+
+	/**
+	 * The examples/ files that translate without fatal errors.  (These are the values of the benchmarks' @Param's.)
+	 */
+	public static final String EXAMPLE_BEH_HIER       = "examples/beh_hier/beh_hier.tlv";
+	public static final String EXAMPLE_FIBO           = "examples/fibo/fibo.tlv";
+	public static final String EXAMPLE_OPERAND3       = "examples/dttc_2012/operand3.tlv";
+	public static final String EXAMPLE_OPERAND4       = "examples/dttc_2012/operand4.tlv";
+	public static final String EXAMPLE_RING           = "examples/ring/ring_tb.tlv";
+	public static final String EXAMPLE_SLIDE          = "examples/slide_example/slide_example.tlv";
+	public static final String EXAMPLE_USERS_GUIDE    = "examples/doc_examples/users_guide1.tlv";
+	public static final String EXAMPLE_PRESENTATION   = "examples/yuras_presentation/yuras_presentation.tlv";
+
+	private static boolean init_done = false;
+	private static CommandLineOptions options = null;
+	private static File out_dir = null;
+	private static PrintStream orig_out = null;
+	private static PrintStream orig_err = null;
+
+
+	/**
+	 * Initialize global SVGen state, as Main does (once per JVM), and a new parse context for this thread.
+	 */
+	public static synchronized void init()
+	{
+		if (!init_done)
+		{
+			options = new CommandLineOptions(new String[] {"-i", "bench.tlv"}, false);
+			Identifier.init();
+			init_done = true;
+		}
+		ActiveParseContext.reset(false, options, new ProjSpecific());
+	}
+
+	/**
+	 * @param name Repository-relative file name.
+	 * @return The file.
+	 */
+	public static File repoFile(String name)
+	{
+		return new File(System.getProperty(ROOT_PROPERTY, "."), name);
+	}
+
+	/**
+	 * Create a SourceFile for the given repository file, with outputs in a temporary directory, and a new
+	 * ActiveParseContext for the calling thread.
+	 */
+	public static SourceFile open(String name) throws IOException
+	{
+		return open(repoFile(name));
+	}
+
+	/**
+	 * Create a SourceFile for the given file, as for open(String).
+	 */
+	public static synchronized SourceFile open(File in_file) throws IOException
+	{
+		init();
+		return new SourceFile(in_file, CommandLineOptions.deriveOutFile(in_file, tempDir().getPath() + "/"));
+	}
+
+	/**
+	 * @return A temporary directory for benchmark files.
+	 */
+	public static synchronized File tempDir() throws IOException
+	{
+		if (out_dir == null)
+		{
+			out_dir = Files.createTempDirectory("svgen_bench").toFile();
+			out_dir.deleteOnExit();
+		}
+		return out_dir;
+	}
+
+	/**
+	 * Discard SVGen's console output (which would otherwise dominate measurement).
+	 */
+	public static synchronized void quiet()
+	{
+		if (orig_out == null)
+		{
+			orig_out = System.out;
+			orig_err = System.err;
+			PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+			System.setOut(discard);
+			System.setErr(discard);
+		}
+	}
+
+	/**
+	 * Restore console output discarded by quiet().
+	 */
+	public static synchronized void unquiet()
+	{
+		if (orig_out != null)
+		{
+			System.setOut(orig_out);
+			System.setErr(orig_err);
+			orig_out = null;
+			orig_err = null;
+		}
+	}
+}
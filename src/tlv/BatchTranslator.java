@@ -0,0 +1,241 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv;
+
+import tlv.config.CommandLineOptions;
+import tlv.config.ProjSpecific;
+import tlv.parse.ActiveParseContext;
+import tlv.parse.SourceFile;
+import tlv.utilities.Severity;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Translates many .tlv files in a single run (the -batch command-line option), using a pool of worker threads.
+ * Each translation has its own SourceFile and its own ActiveParseContext, and a fatal error aborts only the
+ * translation in which it occurs.  All translations share the given options (other than -i/-o).
+ *
+ * The manifest file lists one translation per line as "<input .tlv> [<output .vs>]", where the output is
+ * interpreted as for the -o arg.  Blank lines and lines beginning with '#' are ignored.
+ */
+public class BatchTranslator
+{
+	/**
+	 * A single translation of the batch.
+	 */
+	private static class Job implements Callable<Integer>
+	{
+		public final File in_file;
+		public final File out_file;
+		private final CommandLineOptions options;
+
+		public Job(File in_file_, File out_file_, CommandLineOptions options_)
+		{
+			in_file = in_file_;
+			out_file = out_file_;
+			options = options_;
+		}
+
+		public Integer call()
+		{
+			return translate(in_file, out_file, options);
+		}
+	}
+
+	private Vector<Job> jobs = new Vector<Job>();
+	private CommandLineOptions options;
+
+
+	/**
+	 * Creates a batch from a manifest file.
+	 *
+	 * @param manifest The manifest file.
+	 * @param options_ The options of all translations.
+	 * @throws IOException If the manifest cannot be read.
+	 */
+	public BatchTranslator(File manifest, CommandLineOptions options_) throws IOException
+	{
+		options = options_;
+		BufferedReader reader = new BufferedReader(new FileReader(manifest));
+		try
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#"))
+				{
+					continue;
+				}
+				String[] fields = line.split("\\s+");
+				if (fields.length > 2)
+				{
+					throw new IOException("Malformed manifest line: \"" + line + "\"");
+				}
+				addJob(new File(fields[0]), (fields.length > 1) ? fields[1] : null);
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+
+	/**
+	 * Add a translation to the batch.
+	 * @param in_file Input .tlv file.
+	 * @param out_file_name Output file or path (as for -o), or null to write next to in_file.
+	 */
+	public void addJob(File in_file, String out_file_name)
+	{
+		jobs.add(new Job(in_file, CommandLineOptions.deriveOutFile(in_file, out_file_name), options));
+	}
+
+	/**
+	 * Translate a single file in the current thread, using a new ActiveParseContext for this thread.
+	 * Fatal errors end this translation, not the program.  If -cache is given, the translation is restored from or
+	 * recorded in the cache.
+	 *
+	 * @param in_file Input .tlv file.
+	 * @param out_file Output .vs file.
+	 * @param options Options of the translation (other than -i/-o).
+	 * @return The exit status of the translation (as for a standalone run).
+	 * @throws IllegalArgumentException If the project (-p) is unknown.
+	 */
+	public static int translate(File in_file, File out_file, CommandLineOptions options)
+	{
+		TranslationCache cache = TranslationCache.fromOptions(options);
+		String cache_key = null;
+		if (cache != null)
+		{
+			cache_key = cache.key(in_file, out_file, options);
+			int status = cache.restore(cache_key, out_file);
+			if (status >= 0)
+			{
+				return status;
+			}
+		}
+		
+		ProjSpecific proj_specific = ProjSpecific.forOptions(options);
+		if (proj_specific == null)
+		{
+			throw new IllegalArgumentException("Project \"" + options.project() + "\" unknown.");
+		}
+		ActiveParseContext context = ActiveParseContext.reset(false, options, proj_specific);
+		SourceFile file = null;
+		try
+		{
+			file = new SourceFile(in_file, out_file);
+			file.process();
+			ActiveParseContext.cleanup();
+		}
+		catch (ActiveParseContext.AbortException e)
+		{
+			// Fatal error was already reported.
+		}
+		catch (Exception e)
+		{
+			try
+			{
+				context.reportException(0, Severity.FATAL_BUG, "EXCEPTION", "Uncaught exception: " + e.getMessage() + "\nParse context above may or may not be helpful.", e);
+			}
+			catch (ActiveParseContext.AbortException e2)
+			{
+			}
+		}
+		finally
+		{
+			// Closes output files (again, if processing completed).
+			if (file != null)
+			{
+				file.end();
+			}
+		}
+		if (cache != null)
+		{
+			cache.store(cache_key, out_file, context.getExitStatus());
+		}
+		return context.getExitStatus();
+	}
+
+	/**
+	 * Run all translations of the batch and report the exit status of each.
+	 *
+	 * @param num_threads The number of worker threads.
+	 * @return The highest exit status of all translations.
+	 */
+	public int run(int num_threads)
+	{
+		int exit_status = 0;
+		ExecutorService pool = Executors.newFixedThreadPool((num_threads < 1) ? 1 : num_threads);
+		try
+		{
+			List<Future<Integer>> results = pool.invokeAll(jobs);
+			for (int i = 0; i < jobs.size(); i++)
+			{
+				int status;
+				try
+				{
+					status = results.get(i).get();
+				}
+				catch (ExecutionException e)
+				{
+					// Not an Exception (which is reported by translate(..)).  Likely an Error, like StackOverflowError.
+					System.err.println("Error: Translation of " + jobs.get(i).in_file + " failed: " + e.getCause());
+					status = Severity.FATAL_BUG.getExitCode();
+				}
+				System.out.println("Exit status " + status + ": " + jobs.get(i).in_file + " -> " + jobs.get(i).out_file);
+				if (status > exit_status)
+				{
+					exit_status = status;
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			System.err.println("Error: Batch interrupted.");
+			exit_status = Severity.FATAL_BUG.getExitCode();
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		return exit_status;
+	}
+}
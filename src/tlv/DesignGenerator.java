@@ -0,0 +1,514 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv;
+
+import tlv.config.CommandLineOptions;
+import tlv.parse.identifier.Identifier;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Random;
+import java.util.Vector;
+
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+
+
+/**
+ * Generates synthetic TL-Verilog designs of configurable size, for scaling tests and benchmarks.  The same parameters
+ * (including the seed) always produce the same design.
+ *
+ * A design has a number of pipelines, each containing a tree of behavioral hierarchy with ranges (of a given depth and
+ * fan-out).  Each scope of the tree contains a number of stages, each assigning a number of pipesignals computed from
+ * signals of earlier stages (up to a maximum stage span earlier), so the signals are staged through flops.  Stages are
+ * distributed among ?$when conditions (producing gated clocks).  Optionally, $ANY assignments chain pipelines together.
+ *
+ * Usage:
+ *    java -cp <svgen classes> tlv.DesignGenerator [<options>] -o <file.tlv>
+ *       Generate a design.
+ *    java -cp <svgen classes> tlv.DesignGenerator [<options>] -scaling <steps>
+ *       Report translation time and heap use for designs of 1, 2, 4, ... (steps values) times the given number of
+ *       pipelines.
+ */
+public class DesignGenerator
+{
+	/**
+	 * Design parameters.
+	 */
+	public static class Params
+	{
+		public long seed = 1;
+		public int pipelines = 4;      // Number of |pipe's.
+		public int depth = 2;          // Depth of behavioral hierarchy within each pipeline.
+		public int fanout = 2;         // Child scopes of each behavioral scope.
+		public int range = 4;          // Instances of each behavioral scope.
+		public int stages = 8;         // Stages of logic in each scope.
+		public int sigs = 4;           // Pipesignals assigned in each stage.
+		public int span = 3;           // Maximum number of stages between assignment and use of a pipesignal.
+		public int whens = 2;          // ?$when conditions in each scope.
+		public int any = 0;            // $ANY chains between consecutive pipelines.
+		public int width = 32;         // Maximum pipesignal width.
+
+		/**
+		 * @return A copy of these parameters.
+		 */
+		public Params copy()
+		{
+			Params ret = new Params();
+			ret.seed = seed; ret.pipelines = pipelines; ret.depth = depth; ret.fanout = fanout; ret.range = range;
+			ret.stages = stages; ret.sigs = sigs; ret.span = span; ret.whens = whens; ret.any = any; ret.width = width;
+			return ret;
+		}
+
+		public String toString()
+		{
+			return "-seed " + seed + " -pipelines " + pipelines + " -depth " + depth + " -fanout " + fanout + " -range " + range +
+			       " -stages " + stages + " -sigs " + sigs + " -span " + span + " -whens " + whens + " -any " + any + " -width " + width;
+		}
+	}
+
+	/**
+	 * A generated pipesignal.
+	 */
+	private static class Sig
+	{
+		public final String name;
+		public final int width;
+		public final int stage;
+		public boolean used = false;
+
+		public Sig(String name_, int width_, int stage_)
+		{
+			name = name_;
+			width = width_;
+			stage = stage_;
+		}
+	}
+
+	private static final String INDENT = "   ";
+	private static final String IN_SIG = "gen_in";
+
+	private Params params;
+	private Random random;
+	private PrintWriter out;
+	private int line_cnt;
+
+
+	public DesignGenerator(Params params_)
+	{
+		params = params_;
+	}
+
+	/**
+	 * Generate the design.
+	 *
+	 * @return The number of lines written.
+	 */
+	public int generate(Writer writer)
+	{
+		random = new Random(params.seed);
+		out = new PrintWriter(writer);
+		line_cnt = 0;
+		line("\\TLV_version 1a: tl-x.org");
+		line("\\SV");
+		line("// Synthetic design generated by tlv.DesignGenerator " + params);
+		line("logic [" + (params.width - 1) + ":0] " + IN_SIG + ";");
+		line("");
+		line("\\TLV");
+		for (int p = 0; p < params.pipelines; p++)
+		{
+			line(INDENT + "|pipe" + p);
+			scope(INDENT + INDENT, p, "", 0);
+		}
+		out.flush();
+		return line_cnt;
+	}
+
+	/**
+	 * Generate the design to a file.
+	 *
+	 * @return The number of lines written.
+	 */
+	public int generate(File file) throws IOException
+	{
+		FileWriter writer = new FileWriter(file);
+		try
+		{
+			return generate(writer);
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+
+	private void line(String str)
+	{
+		out.println(str);
+		line_cnt++;
+	}
+
+	/**
+	 * Generate the logic of a scope, and recurse into child scopes.
+	 *
+	 * @param indent Indentation of the scope's content.
+	 * @param pipe The pipeline number.
+	 * @param path A unique suffix for this scope's names.
+	 * @param level The level of behavioral hierarchy (0 for the pipeline scope).
+	 * @return The signals of this scope.
+	 */
+	private Vector<Sig> scope(String indent, int pipe, String path, int level)
+	{
+		Vector<Sig> sigs = new Vector<Sig>();
+		String stage_indent = indent;
+		String sig_indent = indent + INDENT;
+
+		// Stage 0: when conditions and inputs.
+		line(stage_indent + "@0");
+		for (int w = 0; w < params.whens; w++)
+		{
+			line(sig_indent + "$valid" + w + " = *" + IN_SIG + "[" + random.nextInt(params.width) + "];");
+		}
+		for (int s = 0; s < params.sigs; s++)
+		{
+			int width = 1 + random.nextInt(params.width);
+			Sig sig = new Sig(sigName(0, s), width, 0);
+			line(sig_indent + "$" + sig.name + range(width) + " = *" + IN_SIG + range(width) + ";");
+			sigs.add(sig);
+		}
+
+		// $ANY chain from the previous pipeline.  Each link is assigned a stage later than the one it pulls from, so it
+		// pulls with explicit alignment from the same stage.  Each pipeline of the chain (but the last) provides a signal
+		// whose name is unique to it, and each link consumes the signals of all prior pipelines, so every $ANY assignment
+		// pulls real signals (some through multiple links).
+		boolean any_chain = (level == 0) && anyChained(pipe);
+		if ((level == 0) && anyChained(pipe + 1))
+		{
+			line(sig_indent + "$" + chainSigName(pipe) + " = *" + IN_SIG + "[" + random.nextInt(params.width) + "];");
+		}
+		if (any_chain)
+		{
+			line(stage_indent + "@" + (params.stages + pipe - 1));
+			line(sig_indent + "$ANY = >top|pipe" + (pipe - 1) + "$ANY#+1;");
+		}
+
+		// Logic stages, generated in stage order (as operands are chosen from prior stages), but output grouped by when
+		// condition (where the last group is ungated).
+		int num_groups = params.whens + 1;
+		Vector<Vector<String>> group_lines = new Vector<Vector<String>>();
+		for (int group = 0; group < num_groups; group++)
+		{
+			group_lines.add(new Vector<String>());
+		}
+		for (int stage = 1; stage < params.stages; stage++)
+		{
+			int group = stage % num_groups;
+			String when_indent = (group < params.whens) ? stage_indent + INDENT : stage_indent;
+			Vector<String> lines = group_lines.get(group);
+			lines.add(when_indent + "@" + stage);
+			for (int s = 0; s < params.sigs; s++)
+			{
+				int width = 1 + random.nextInt(params.width);
+				Sig sig = new Sig(sigName(stage, s), width, stage);
+				lines.add(when_indent + INDENT + "$" + sig.name + range(width) + " = " + operand(sigs, stage) + " ^ " + operand(sigs, stage) + ";");
+				sigs.add(sig);
+			}
+		}
+		for (int group = 0; group < num_groups; group++)
+		{
+			Vector<String> lines = group_lines.get(group);
+			if (lines.isEmpty())
+			{
+				continue;
+			}
+			if (group < params.whens)
+			{
+				line(stage_indent + "?$valid" + group);
+			}
+			for (String str: lines)
+			{
+				line(str);
+			}
+		}
+
+		// Consume signals that are otherwise unused (from the pipeline chained via $ANY, if any).
+		line(stage_indent + "@" + params.stages);
+		StringBuilder bogus = new StringBuilder();
+		for (Sig sig: sigs)
+		{
+			if (!sig.used)
+			{
+				bogus.append(" $").append(sig.name);
+			}
+		}
+		if (bogus.length() > 0)
+		{
+			line(sig_indent + "`BOGUS_USE(" + bogus.substring(1) + ")");
+		}
+		if (any_chain)
+		{
+			StringBuilder chain_sigs = new StringBuilder();
+			for (int p = 0; p < pipe; p++)
+			{
+				chain_sigs.append(" $").append(chainSigName(p));
+			}
+			line(stage_indent + "@" + (params.stages + pipe));
+			line(sig_indent + "`BOGUS_USE(" + chain_sigs.substring(1) + ")");
+		}
+
+		// Child scopes.
+		if (level < params.depth)
+		{
+			for (int c = 0; c < params.fanout; c++)
+			{
+				String child = path + "_c" + c;
+				line(indent + ">hier" + (level + 1) + child + "[" + (params.range - 1) + ":0]");
+				scope(indent + INDENT, pipe, child, level + 1);
+			}
+		}
+		return sigs;
+	}
+
+	/**
+	 * @return True if the given pipeline assigns $ANY from the previous one.
+	 */
+	private boolean anyChained(int pipe)
+	{
+		return (pipe > 0) && (pipe <= params.any) && (pipe < params.pipelines);
+	}
+
+	/**
+	 * @return The name of the signal provided by the given pipeline to the $ANY chain.
+	 */
+	private static String chainSigName(int pipe)
+	{
+		return "chain" + pipe;
+	}
+
+	/**
+	 * @return The name of a pipesignal.  (Note that digits may not follow underscores in TLV identifiers.)
+	 */
+	private static String sigName(int stage, int index)
+	{
+		return "st" + stage + "_sig" + index;
+	}
+
+	/**
+	 * @return A bit range string for the given width.
+	 */
+	private static String range(int width)
+	{
+		return (width <= 1) ? "" : "[" + (width - 1) + ":0]";
+	}
+
+	/**
+	 * @return A reference to a random signal assigned up to params.span stages prior to the given stage, possibly
+	 *         a bit range of it.
+	 */
+	private String operand(Vector<Sig> sigs, int stage)
+	{
+		// Candidates are at the end of sigs (which is in stage order).
+		int first = sigs.size();
+		while ((first > 0) && (sigs.get(first - 1).stage >= stage - params.span))
+		{
+			first--;
+		}
+		int last = sigs.size();
+		while ((last > first) && (sigs.get(last - 1).stage >= stage))
+		{
+			last--;
+		}
+		if (last <= first)
+		{
+			return "*" + IN_SIG;
+		}
+		Sig sig = sigs.get(first + random.nextInt(last - first));
+		sig.used = true;
+		if ((sig.width > 1) && random.nextBoolean())
+		{
+			int lsb = random.nextInt(sig.width);
+			return "$" + sig.name + "[" + (lsb + random.nextInt(sig.width - lsb)) + ":" + lsb + "]";
+		}
+		return "$" + sig.name;
+	}
+
+
+	//
+	// Scaling report
+	//
+
+	/**
+	 * @return The sum of peak usage of the heap memory pools since their last reset.
+	 */
+	private static long peakHeap()
+	{
+		long peak = 0;
+		for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+		{
+			if (pool.getType() == MemoryType.HEAP)
+			{
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+	private static void resetPeakHeap()
+	{
+		System.gc();
+		for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+		{
+			if (pool.getType() == MemoryType.HEAP)
+			{
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	/**
+	 * Translate designs of increasing size, and report translation time and heap use of each.
+	 *
+	 * @param params Parameters of the smallest design.  Subsequent designs double the number of pipelines.
+	 * @param steps Number of designs.
+	 * @param dir Directory for generated and translated files.  (Translation errors are reported in the _errorLog.txt
+	 *            files.)
+	 */
+	public static void scalingReport(Params params, int steps, File dir) throws IOException
+	{
+		CommandLineOptions options = new CommandLineOptions(new String[] {"-i", "gen.tlv"}, false);
+		Identifier.init();
+
+		System.out.println(String.format("%10s %10s %8s %12s %14s", "Pipelines", "Lines", "Status", "Time (ms)", "Peak heap (MB)"));
+		Params step_params = params.copy();
+		for (int step = 0; step < steps; step++)
+		{
+			File tlv_file = new File(dir, "gen" + step + ".tlv");
+			int lines = new DesignGenerator(step_params).generate(tlv_file);
+
+			// Translate, discarding console output.
+			PrintStream orig_out = System.out;
+			PrintStream orig_err = System.err;
+			PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+			System.setOut(discard);
+			System.setErr(discard);
+			resetPeakHeap();
+			long start = System.nanoTime();
+			int status;
+			try
+			{
+				status = BatchTranslator.translate(tlv_file, CommandLineOptions.deriveOutFile(tlv_file, null), options);
+			}
+			finally
+			{
+				System.setOut(orig_out);
+				System.setErr(orig_err);
+			}
+			long time = System.nanoTime() - start;
+			System.out.println(String.format("%10d %10d %8d %12.1f %14.1f", step_params.pipelines, lines, status, time / 1000000.0, peakHeap() / 1048576.0));
+
+			step_params.pipelines *= 2;
+		}
+	}
+
+
+	public static void main(String[] args)
+	{
+		Params params = new Params();
+		OptionParser parser = new OptionParser();
+		OptionSpec<String>  help_spec      = parser.accepts("h",         "show help.").withOptionalArg();
+		OptionSpec<String>  out_spec       = parser.accepts("o",         "output .tlv file (default: stdout).").withRequiredArg().ofType( String.class );
+		OptionSpec<Integer> scaling_spec   = parser.accepts("scaling",   "instead of generating one design, report translation time and heap use for this many designs, doubling -pipelines each time.").withRequiredArg().ofType( Integer.class );
+		OptionSpec<String>  dir_spec       = parser.accepts("dir",       "directory for -scaling files.").withRequiredArg().ofType( String.class ).defaultsTo(".");
+		OptionSpec<Long>    seed_spec      = parser.accepts("seed",      "random seed.").withRequiredArg().ofType( Long.class ).defaultsTo(params.seed);
+		OptionSpec<Integer> pipelines_spec = parser.accepts("pipelines", "number of pipelines.").withRequiredArg().ofType( Integer.class ).defaultsTo(params.pipelines);
+		OptionSpec<Integer> depth_spec     = parser.accepts("depth",     "depth of behavioral hierarchy in each pipeline.").withRequiredArg().ofType( Integer.class ).defaultsTo(params.depth);
+		OptionSpec<Integer> fanout_spec    = parser.accepts("fanout",    "child scopes of each behavioral scope.").withRequiredArg().ofType( Integer.class ).defaultsTo(params.fanout);
+		OptionSpec<Integer> range_spec     = parser.accepts("range",     "instances of each behavioral scope.").withRequiredArg().ofType( Integer.class ).defaultsTo(params.range);
+		OptionSpec<Integer> stages_spec    = parser.accepts("stages",    "stages of logic in each scope.").withRequiredArg().ofType( Integer.class ).defaultsTo(params.stages);
+		OptionSpec<Integer> sigs_spec      = parser.accepts("sigs",      "pipesignals assigned in each stage.").withRequiredArg().ofType( Integer.class ).defaultsTo(params.sigs);
+		OptionSpec<Integer> span_spec      = parser.accepts("span",      "maximum stages between assignment and use of a pipesignal.").withRequiredArg().ofType( Integer.class ).defaultsTo(params.span);
+		OptionSpec<Integer> whens_spec     = parser.accepts("whens",     "?$when conditions in each scope.").withRequiredArg().ofType( Integer.class ).defaultsTo(params.whens);
+		OptionSpec<Integer> any_spec       = parser.accepts("any",       "$ANY chains between consecutive pipelines.  (Note that $ANY assignments are not supported by TL-Verilog 1a translation.)").withRequiredArg().ofType( Integer.class ).defaultsTo(params.any);
+		OptionSpec<Integer> width_spec     = parser.accepts("width",     "maximum pipesignal width.").withRequiredArg().ofType( Integer.class ).defaultsTo(params.width);
+
+		try
+		{
+			OptionSet options = parser.parse(args);
+			if (options.has(help_spec))
+			{
+				parser.printHelpOn(System.out);
+				System.exit(0);
+			}
+			params.seed      = options.valueOf(seed_spec);
+			params.pipelines = options.valueOf(pipelines_spec);
+			params.depth     = options.valueOf(depth_spec);
+			params.fanout    = options.valueOf(fanout_spec);
+			params.range     = options.valueOf(range_spec);
+			params.stages    = options.valueOf(stages_spec);
+			params.sigs      = options.valueOf(sigs_spec);
+			params.span      = options.valueOf(span_spec);
+			params.whens     = options.valueOf(whens_spec);
+			params.any       = options.valueOf(any_spec);
+			params.width     = options.valueOf(width_spec);
+			if ((params.pipelines < 1) || (params.range < 1) || (params.stages < 1) || (params.sigs < 1) || (params.span < 1) || (params.width < 1) ||
+			    (params.depth < 0) || (params.fanout < 0) || (params.whens < 0) || (params.any < 0))
+			{
+				throw new IllegalArgumentException("Design parameters must be positive (or, for -depth, -fanout, -whens, and -any, non-negative).");
+			}
+
+			if (options.has(scaling_spec))
+			{
+				scalingReport(params, options.valueOf(scaling_spec), new File(options.valueOf(dir_spec)));
+			}
+			else if (options.has(out_spec))
+			{
+				new DesignGenerator(params).generate(new File(options.valueOf(out_spec)));
+			}
+			else
+			{
+				new DesignGenerator(params).generate(new OutputStreamWriter(System.out));
+			}
+		}
+		catch (Exception e)
+		{
+			System.err.println("Error: " + e.getMessage());
+			System.exit(2);
+		}
+		System.exit(0);
+	}
+}
@@ -151,22 +151,64 @@ public class Main // TODO: This should be given a better name, but environment s
 	
 
 
-	public static ProjSpecific projSpecific;
-	
-	public static CommandLineOptions command_line_options;
-	
 	public static void main(String[] args)
     {
-		command_line_options = new CommandLineOptions(args);
+		// Options (and project-specific behavior) are per translation (see ActiveParseContext.getOptions()).  All translations of
+		// this run share these.
+		CommandLineOptions command_line_options = new CommandLineOptions(args);
 		
-		// Use "project" command line arg to pick from which tlv.config
-		// class to use.
-		projSpecific = new ProjSpecific();
-		ActiveParseContext.ReportIf(projSpecific == null, 0, Severity.FATAL_ERROR, "BAD_ARG", "Project \"" + command_line_options.project() + "\" unknown");
+		ProjSpecific proj_specific = ProjSpecific.forOptions(command_line_options);
+		ActiveParseContext.ReportIf(proj_specific == null, 0, Severity.FATAL_ERROR, "BAD_ARG", "Project \"" + command_line_options.project() + "\" unknown");
 		
 		
 		Identifier.init();
 		
+		// Batch mode translates the files of a manifest, and exits.
+		if (command_line_options.batchFile() != null)
+		{
+			BatchTranslator batch = null;
+			try
+			{
+				batch = new BatchTranslator(command_line_options.batchFile(), command_line_options);
+			}
+			catch (IOException e)
+			{
+				System.err.println("Error: Failed to read batch manifest: " + e.getMessage());
+				System.exit(2);
+			}
+			System.exit(batch.run(command_line_options.jobs()));
+		}
+		
+		// Daemon mode serves translation requests until shut down.
+		if (command_line_options.daemon())
+		{
+			try
+			{
+				new TranslationDaemon(command_line_options.daemonFile()).serve();
+			}
+			catch (IOException e)
+			{
+				System.err.println("Error: SVGen daemon failed: " + e.getMessage());
+				System.exit(2);
+			}
+			System.exit(0);
+		}
+		
+		// Restore the translation from the cache, if possible.
+		TranslationCache cache = TranslationCache.fromOptions(command_line_options);
+		String cache_key = null;
+		if (cache != null)
+		{
+			cache_key = cache.key(command_line_options.inFile(), command_line_options.outFile(), command_line_options);
+			int status = cache.restore(cache_key, command_line_options.outFile());
+			if (status >= 0)
+			{
+				System.exit(status);
+			}
+		}
+		
+		ActiveParseContext.reset(true, command_line_options, proj_specific);
+		
 		//Added a comment
 		//Create a new SourceFile instance from the file name(which may include path)
 		SourceFile file = new SourceFile(command_line_options.inFile(), command_line_options.outFile());
@@ -181,6 +223,10 @@ public class Main // TODO: This should be given a better name, but environment s
 		}
 		
 		ActiveParseContext.cleanup();
+		if (cache != null)
+		{
+			cache.store(cache_key, command_line_options.outFile(), ActiveParseContext.get().getExitStatus());
+		}
 		System.exit(ActiveParseContext.get().getExitStatus());
     }
 }
@@ -0,0 +1,193 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv;
+
+import tlv.config.CommandLineOptions;
+import tlv.config.ProjSpecific;
+import tlv.parse.ActiveParseContext;
+import tlv.parse.Diagnostic;
+import tlv.parse.GeneratedSvFile;
+import tlv.parse.SourceFile;
+import tlv.parse.identifier.Identifier;
+import tlv.utilities.Severity;
+
+import java.io.Reader;
+import java.util.Hashtable;
+import java.util.Vector;
+
+
+/**
+ * An in-memory translation, for use of SVGen as a library.  A translation reads .tlv text from a Reader, and its results
+ * (SV text, generated SV text, error log, diagnostics, and exit status) are retained by this object.  Nothing is written
+ * to the filesystem or the console (except as requested by options, like -stats and -verbose).  \source files are
+ * read from the filesystem as usual.
+ *
+ * Translations are independent and can run concurrently in any number of threads.  Each translation has its own
+ * ActiveParseContext, options, and ProjSpecific, and fatal errors end only the translation.
+ *
+ * Example:
+ *    CommandLineOptions options = new CommandLineOptions(new String[] {"-i", "design.tlv", "-bestsv"}, false);
+ *    Translation translation = Translation.translate(new StringReader(tlv_text), options);
+ *    String sv = translation.getSv();
+ */
+public class Translation
+{
+	private String sv = null;
+	private Hashtable<String, String> generated_sv = new Hashtable<String, String>();
+	private String error_log = null;
+	private Vector<Diagnostic> diagnostics;
+	private int exit_status;
+	
+	
+	private Translation()
+	{
+	}
+	
+	/**
+	 * Translate .tlv text in the current thread.
+	 * 
+	 * @param tlv_ The .tlv text.
+	 * @param options_ Options of the translation.  The -i and -o file names are used only as names, for reports and for
+	 *                 references to the generated file (from the -o name) within the SV.  Batch, daemon, and cache options
+	 *                 are ignored.
+	 * @return The translation results.  If the translation ended in a fatal error, outputs are partial (or null if not
+	 *         produced).
+	 * @throws IllegalArgumentException If the project (-p) is unknown.
+	 */
+	public static Translation translate(Reader tlv_, CommandLineOptions options_)
+	{
+		Identifier.init();
+		
+		Translation translation = new Translation();
+		
+		ProjSpecific proj_specific = ProjSpecific.forOptions(options_);
+		if (proj_specific == null)
+		{
+			throw new IllegalArgumentException("Project \"" + options_.project() + "\" unknown.");
+		}
+		
+		// Run in a new context, restoring this thread's context when done.
+		ActiveParseContext prior_context = ActiveParseContext.get();
+		ActiveParseContext context = ActiveParseContext.reset(false, options_, proj_specific);
+		context.setPrintReports(false);
+		try
+		{
+			SourceFile file = null;
+			try
+			{
+				file = new SourceFile(options_.inFile(), tlv_, options_.outFile());
+				file.process();
+				ActiveParseContext.cleanup();
+			}
+			catch (ActiveParseContext.AbortException e)
+			{
+				// Fatal error was already reported.
+			}
+			catch (Exception e)
+			{
+				try
+				{
+					context.reportException(0, Severity.FATAL_BUG, "EXCEPTION", "Uncaught exception: " + e.getMessage() + "\nParse context above may or may not be helpful.", e);
+				}
+				catch (ActiveParseContext.AbortException e2)
+				{
+				}
+			}
+			finally
+			{
+				if (file != null)
+				{
+					file.end();
+					translation.sv = file.getSvText();
+					translation.error_log = file.getErrorLogText();
+					for (GeneratedSvFile generated_file : file.getGeneratedSvFiles())
+					{
+						translation.generated_sv.put((generated_file.label == null) ? "" : generated_file.label, generated_file.getText());
+					}
+				}
+			}
+			translation.diagnostics = context.getDiagnostics();
+			translation.exit_status = context.getExitStatus();
+		}
+		finally
+		{
+			ActiveParseContext.adopt(prior_context);
+		}
+		return translation;
+	}
+	
+	/**
+	 * @return The translated SV (line-aligned with the .tlv text), or null if not produced.
+	 */
+	public String getSv()
+	{
+		return sv;
+	}
+	
+	/**
+	 * @param label The TLV context label of the generated file, or "" for the main generated file (of declarations and
+	 *              staging).
+	 * @return The text of the generated SV file, or null if none.
+	 */
+	public String getGeneratedSv(String label)
+	{
+		return generated_sv.get(label);
+	}
+	
+	/**
+	 * @return The generated SV text, by label (see getGeneratedSv(..)).
+	 */
+	public Hashtable<String, String> getGeneratedSvs()
+	{
+		return generated_sv;
+	}
+	
+	/**
+	 * @return The error log text (as written to _errorLog.txt by a file translation), or null if not produced.
+	 */
+	public String getErrorLog()
+	{
+		return error_log;
+	}
+	
+	/**
+	 * @return The errors, warnings, etc. reported by the translation, in order.
+	 */
+	public Vector<Diagnostic> getDiagnostics()
+	{
+		return diagnostics;
+	}
+	
+	/**
+	 * @return The exit status of the translation (as for a command-line run).
+	 */
+	public int getExitStatus()
+	{
+		return exit_status;
+	}
+}
@@ -0,0 +1,429 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv;
+
+import tlv.config.CommandLineOptions;
+import tlv.config.ProjSpecific;
+import tlv.parse.OutputFile;
+import tlv.parse.SourceFile;
+import tlv.utilities.Severity;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * An on-disk cache of translation results (the -cache command-line option), so unchanged .tlv files are not retranslated.
+ *
+ * Entries are keyed by a hash of:
+ *    o the .tlv file contents,
+ *    o the contents of files referenced by \source lines (relative to the .tlv file's directory),
+ *    o the SVGen build (the contents of the svgen .jar, or class files),
+ *    o the input and output file names (which appear in the output), and
+ *    o the command-line options that affect output.
+ * An entry holds the .vs, _gen.vs, and _errorLog.txt files and the exit status.  On a hit, these are restored and the
+ * error log is echoed to stderr (as it would have been reported).  Entries are evicted least-recently-used first to keep
+ * the cache within its size limit.
+ *
+ * Each entry is a directory named by its key, written under a temporary name (<key>.tmp<...>) and renamed into place,
+ * so concurrent runs sharing a cache see only complete entries.  Eviction leaves temporary entries to their writers,
+ * unless they are stale (left by a killed run).  Any failure to access the cache is treated as a miss.
+ */
+public class TranslationCache
+{
+	private static final String FORMAT_VERSION = "1";
+	private static final String VS_ENTRY = "vs";
+	private static final String GEN_ENTRY = "gen_vs";
+	private static final String ERROR_LOG_ENTRY = "errorLog.txt";
+	private static final String STATUS_ENTRY = "status";
+	private static final String TMP_ENTRY_INFIX = ".tmp";
+	private static final long STALE_TMP_ENTRY_MILLIS = 60 * 60 * 1000;  // Temporary entries this old are from killed runs.
+
+	private static final Pattern source_pattern = Pattern.compile("^\\s*\\\\source\\s+(\\S+)", Pattern.MULTILINE);
+
+	private File dir;
+	private long max_bytes;
+
+	// A fingerprint of the SVGen build, computed once.
+	private static String tool_fingerprint = null;
+
+
+	/**
+	 * @param dir_ The cache directory.  Created if necessary.
+	 * @param max_bytes_ Size limit for the cache contents.
+	 */
+	public TranslationCache(File dir_, long max_bytes_)
+	{
+		dir = dir_;
+		max_bytes = max_bytes_;
+		dir.mkdirs();
+	}
+
+	/**
+	 * @return The cache configured by the command-line options, or null if there is none.  (-stats and -stagingreport
+	 *         report on actual translation, so they disable the cache.  So does a project class, which is not part of the
+	 *         SVGen build, so the key cannot reflect it.)
+	 */
+	public static TranslationCache fromOptions(CommandLineOptions options)
+	{
+		return ((options.cacheDir() == null) || options.stats() || options.stagingReport() || ProjSpecific.isClassName(options.project())) ?
+		       null : new TranslationCache(options.cacheDir(), options.cacheMegabytes() << 20);
+	}
+
+
+	//
+	// Keys
+	//
+
+	/**
+	 * @return The cache key for translating in_file to out_file with the given options, or null if it cannot be determined
+	 *         (in which case, the cache is not used).
+	 */
+	public String key(File in_file, File out_file, CommandLineOptions options)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			addString(digest, FORMAT_VERSION);
+			addString(digest, toolFingerprint());
+			addString(digest, "-p " + options.project() +
+			                  (options.bestSv() ? " -bestsv" : "") +
+			                  (options.conversionMode() ? " -conversion" : "") +
+			                  (options.noLine() ? " -noline" : "") +
+			                  (options.xInj() ? " -xinj" : "") +
+			                  (options.xInjClock() ? " -xclk" : "") +
+			                  (options.newStaging() ? " -newstaging" : "") +
+			                  (options.prune() ? " -prune" : ""));
+			addString(digest, in_file.toString());
+			addString(digest, out_file.toString());
+			byte[] tlv = Files.readAllBytes(in_file.toPath());
+			addBytes(digest, tlv);
+
+			// Referenced \source files (in a canonical order).  Relative paths are relative to the .tlv file's directory
+			// (not this process's working directory, which, for the daemon, is not the client's).
+			File source_dir = in_file.getAbsoluteFile().getParentFile();
+			TreeSet<String> source_files = new TreeSet<String>();
+			Matcher matcher = source_pattern.matcher(new String(tlv, StandardCharsets.ISO_8859_1));
+			while (matcher.find())
+			{
+				source_files.add(matcher.group(1));
+			}
+			for (String source_file: source_files)
+			{
+				addString(digest, source_file);
+				File file = new File(source_file);
+				if (!file.isAbsolute())
+				{
+					file = new File(source_dir, source_file);
+				}
+				addBytes(digest, file.isFile() ? Files.readAllBytes(file.toPath()) : new byte[0]);
+			}
+			return toHex(digest.digest());
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * @return A hash of the SVGen build: the .jar containing this class, or the class files of the directory containing it.
+	 */
+	private static synchronized String toolFingerprint() throws IOException, NoSuchAlgorithmException
+	{
+		if (tool_fingerprint == null)
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			File code;
+			try
+			{
+				code = new File(TranslationCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+			}
+			catch (URISyntaxException e)
+			{
+				throw new IOException(e);
+			}
+			if (code.isFile())
+			{
+				addBytes(digest, Files.readAllBytes(code.toPath()));
+			}
+			else
+			{
+				addClassFiles(digest, code);
+			}
+			tool_fingerprint = toHex(digest.digest());
+		}
+		return tool_fingerprint;
+	}
+
+	private static void addClassFiles(MessageDigest digest, File file) throws IOException
+	{
+		if (file.isDirectory())
+		{
+			File[] children = file.listFiles();
+			Arrays.sort(children);
+			for (File child: children)
+			{
+				addClassFiles(digest, child);
+			}
+		}
+		else if (file.getName().endsWith(".class"))
+		{
+			addString(digest, file.getName());
+			addBytes(digest, Files.readAllBytes(file.toPath()));
+		}
+	}
+
+	private static void addString(MessageDigest digest, String str)
+	{
+		addBytes(digest, str.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// Adds bytes, prefixed by their length, so consecutive fields cannot alias.
+	private static void addBytes(MessageDigest digest, byte[] bytes)
+	{
+		int len = bytes.length;
+		digest.update(new byte[] {(byte)(len >> 24), (byte)(len >> 16), (byte)(len >> 8), (byte)len});
+		digest.update(bytes);
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder ret = new StringBuilder();
+		for (byte b: bytes)
+		{
+			ret.append(String.format("%02x", b));
+		}
+		return ret.toString();
+	}
+
+
+	//
+	// Entries
+	//
+
+	private static File errorLogFile(File out_file)
+	{
+		return new File(SourceFile.stripFileExtension(out_file.toString()) + "_errorLog.txt");
+	}
+
+	private static File genFile(File out_file)
+	{
+		return new File(SourceFile.derivedFileName(out_file.toString(), "gen"));
+	}
+
+	/**
+	 * Restore the outputs of a cached translation.
+	 *
+	 * @param key The cache key, from key(..).
+	 * @param out_file The .vs file to restore (from which the other output file names are derived).
+	 * @return The exit status of the cached translation, or -1 for a miss.
+	 */
+	public int restore(String key, File out_file)
+	{
+		if (key == null)
+		{
+			return -1;
+		}
+		File entry = new File(dir, key);
+		try
+		{
+			if (!entry.isDirectory())
+			{
+				return -1;
+			}
+			int status = Integer.parseInt(new String(Files.readAllBytes(new File(entry, STATUS_ENTRY).toPath()), StandardCharsets.UTF_8).trim());
+			// Outputs are rewritten only if changed (as by translation).
+			OutputFile.copyIfChanged(new File(entry, VS_ENTRY), out_file);
+			OutputFile.copyIfChanged(new File(entry, GEN_ENTRY), genFile(out_file));
+			OutputFile.copyIfChanged(new File(entry, ERROR_LOG_ENTRY), errorLogFile(out_file));
+
+			// Echo the error log, as it would have been reported.
+			System.err.print(new String(Files.readAllBytes(errorLogFile(out_file).toPath()), StandardCharsets.UTF_8));
+			System.err.flush();
+
+			// Record use (for LRU).
+			entry.setLastModified(System.currentTimeMillis());
+			return status;
+		}
+		catch (IOException e)
+		{
+			return -1;
+		}
+		catch (NumberFormatException e)
+		{
+			return -1;
+		}
+	}
+
+	/**
+	 * Record the outputs of a translation.  Translations that ended in a fatal error are not recorded.
+	 *
+	 * @param key The cache key, from key(..).
+	 * @param out_file The generated .vs file (from which the other output file names are derived).
+	 * @param status The exit status of the translation.
+	 */
+	public void store(String key, File out_file, int status)
+	{
+		if ((key == null) || (status >= Severity.FATAL_ERROR.getExitCode()))
+		{
+			return;
+		}
+		File entry = new File(dir, key);
+		File tmp_entry = new File(dir, key + TMP_ENTRY_INFIX + Thread.currentThread().getId() + "_" + System.nanoTime());
+		try
+		{
+			if (!tmp_entry.mkdir())
+			{
+				return;
+			}
+			Files.copy(out_file.toPath(), new File(tmp_entry, VS_ENTRY).toPath());
+			Files.copy(genFile(out_file).toPath(), new File(tmp_entry, GEN_ENTRY).toPath());
+			Files.copy(errorLogFile(out_file).toPath(), new File(tmp_entry, ERROR_LOG_ENTRY).toPath());
+			Files.write(new File(tmp_entry, STATUS_ENTRY).toPath(), (status + "\n").getBytes(StandardCharsets.UTF_8));
+			if (!tmp_entry.renameTo(entry))
+			{
+				// Likely, another run stored the same entry.
+				deleteEntry(tmp_entry);
+			}
+		}
+		catch (IOException e)
+		{
+			deleteEntry(tmp_entry);
+		}
+		evict();
+	}
+
+	/**
+	 * Delete least-recently-used entries until the cache is within its size limit.  (Synchronized across all instances,
+	 * as batch translations may each have their own.)
+	 */
+	private void evict()
+	{
+		synchronized (TranslationCache.class)
+		{
+			evictUnsynchronized();
+		}
+	}
+	
+	private void evictUnsynchronized()
+	{
+		File[] all_entries = dir.listFiles();
+		if (all_entries == null)
+		{
+			return;
+		}
+		// Exclude temporary entries, which may be in progress (from other processes), and delete stale ones.
+		long now = System.currentTimeMillis();
+		Vector<File> complete_entries = new Vector<File>();
+		for (File entry: all_entries)
+		{
+			if (!entry.getName().contains(TMP_ENTRY_INFIX))
+			{
+				complete_entries.add(entry);
+			}
+			else if (now - entry.lastModified() > STALE_TMP_ENTRY_MILLIS)
+			{
+				deleteEntry(entry);
+			}
+		}
+		File[] entries = complete_entries.toArray(new File[complete_entries.size()]);
+		long total = 0;
+		for (File entry: entries)
+		{
+			total += entrySize(entry);
+		}
+		if (total <= max_bytes)
+		{
+			return;
+		}
+		// Oldest first.
+		final long[] last_used = new long[entries.length];
+		Integer[] order = new Integer[entries.length];
+		for (int i = 0; i < entries.length; i++)
+		{
+			last_used[i] = entries[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			public int compare(Integer a, Integer b)
+			{
+				return Long.compare(last_used[a], last_used[b]);
+			}
+		});
+		for (int i = 0; (i < order.length) && (total > max_bytes); i++)
+		{
+			File entry = entries[order[i]];
+			total -= entrySize(entry);
+			deleteEntry(entry);
+		}
+	}
+
+	private static long entrySize(File entry)
+	{
+		long size = 0;
+		File[] files = entry.listFiles();
+		if (files != null)
+		{
+			for (File file: files)
+			{
+				size += file.length();
+			}
+		}
+		return size;
+	}
+
+	private static void deleteEntry(File entry)
+	{
+		File[] files = entry.listFiles();
+		if (files != null)
+		{
+			for (File file: files)
+			{
+				file.delete();
+			}
+		}
+		entry.delete();
+	}
+}
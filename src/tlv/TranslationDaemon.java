@@ -0,0 +1,253 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv;
+
+import tlv.config.CommandLineOptions;
+import tlv.parse.SourceFile;
+import tlv.utilities.Severity;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+
+/**
+ * A long-running translation server (the -daemon command-line option), which avoids JVM startup and warm-up for each
+ * translation.  bin/svgen uses a running daemon if it finds one, and otherwise runs SVGen directly.
+ *
+ * The server listens on a loopback TCP port.  The port and an access token are recorded in the daemon file (readable
+ * only by the user) where clients find them.  Each connection carries a single request line of tab-separated fields:
+ *    <token> <client-working-dir> translate <svgen-args...>
+ *    <token> <client-working-dir> ping
+ *    <token> <client-working-dir> shutdown
+ * where <svgen-args> are the command-line args of a standalone run (-i, -o, -p, --xinj, etc.).  Relative file names are
+ * resolved against the client's working directory (so diagnostics report absolute paths).  The response is a sequence
+ * of tab-separated lines:
+ *    out <line>     A line of SVGen's standard output.
+ *    err <line>     A line of SVGen's standard error (diagnostics).
+ *    file <path>    A generated file (.vs, _gen.vs, and _errorLog.txt).
+ *    status <n>     The exit status, as for a standalone run.  This is the last line.
+ *
+ * Requests are processed one at a time, since stdout and stderr are captured globally (System.setOut(..)/setErr(..)).
+ */
+public class TranslationDaemon
+{
+	private File daemon_file;
+	private ServerSocket server;
+	private String token;
+
+
+	/**
+	 * Creates the server socket and records its port and token in the daemon file.
+	 *
+	 * @param daemon_file_ The file in which to record the port and token.
+	 * @throws IOException
+	 */
+	public TranslationDaemon(File daemon_file_) throws IOException
+	{
+		daemon_file = daemon_file_;
+		server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		token = new BigInteger(130, new SecureRandom()).toString(32);
+
+		// Record port and token, readable only by this user.
+		daemon_file.delete();
+		daemon_file.createNewFile();
+		daemon_file.setReadable(false, false);
+		daemon_file.setWritable(false, false);
+		daemon_file.setReadable(true, true);
+		daemon_file.setWritable(true, true);
+		FileWriter writer = new FileWriter(daemon_file);
+		try
+		{
+			writer.write(server.getLocalPort() + " " + token + "\n");
+		}
+		finally
+		{
+			writer.close();
+		}
+		daemon_file.deleteOnExit();
+	}
+
+	/**
+	 * Serve requests until a shutdown request is received.
+	 *
+	 * @throws IOException If the server socket fails.
+	 */
+	public void serve() throws IOException
+	{
+		System.out.println("SVGen daemon listening on port " + server.getLocalPort() + " (recorded in " + daemon_file + ").");
+		boolean done = false;
+		while (!done)
+		{
+			Socket socket = server.accept();
+			try
+			{
+				done = handleRequest(socket);
+			}
+			catch (IOException | RuntimeException e)
+			{
+				System.err.println("Error: Failed to process daemon request: " + e);
+			}
+			finally
+			{
+				socket.close();
+			}
+		}
+		server.close();
+		daemon_file.delete();
+	}
+
+	/**
+	 * Process a single request.
+	 *
+	 * @return True for a shutdown request.
+	 * @throws IOException
+	 */
+	private boolean handleRequest(Socket socket) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+		boolean shutdown = false;
+
+		String request = reader.readLine();
+		String[] fields = (request == null) ? new String[0] : request.split("\t", -1);
+		if ((fields.length < 3) || !fields[0].equals(token))
+		{
+			writer.println("err\tError: Malformed or unauthorized SVGen daemon request.");
+			writer.println("status\t2");
+		}
+		else if (fields[2].equals("shutdown"))
+		{
+			shutdown = true;
+			writer.println("status\t0");
+		}
+		else if (fields[2].equals("ping"))
+		{
+			writer.println("status\t0");
+		}
+		else if (fields[2].equals("translate"))
+		{
+			translate(new File(fields[1]), Arrays.copyOfRange(fields, 3, fields.length), writer);
+		}
+		else
+		{
+			writer.println("err\tError: Unknown SVGen daemon request \"" + fields[2] + "\".");
+			writer.println("status\t2");
+		}
+		writer.flush();
+		return shutdown;
+	}
+
+	/**
+	 * Perform a translation request, and write the response.
+	 *
+	 * @param cwd The client's working directory.
+	 * @param args The SVGen command-line args.
+	 * @param writer Response writer.
+	 */
+	private void translate(File cwd, String[] args, PrintWriter writer)
+	{
+		ByteArrayOutputStream captured_out = new ByteArrayOutputStream();
+		ByteArrayOutputStream captured_err = new ByteArrayOutputStream();
+		PrintStream orig_out = System.out;
+		PrintStream orig_err = System.err;
+		System.setOut(new PrintStream(captured_out, true));
+		System.setErr(new PrintStream(captured_err, true));
+
+		int status;
+		File out_file = null;
+		try
+		{
+			CommandLineOptions options = new CommandLineOptions(args, false);
+			if ((options.batchFile() != null) || options.daemon())
+			{
+				throw new IllegalArgumentException("-batch and -daemon cannot be requested of the daemon.");
+			}
+			File in_file = resolve(cwd, options.inFile());
+			out_file = resolve(cwd, options.outFile());
+			status = BatchTranslator.translate(in_file, out_file, options);
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.err.println("Error: Bad SVGen args: " + e.getMessage());
+			status = 2;
+		}
+		catch (RuntimeException | Error e)
+		{
+			// A failure of this request must not take down the daemon.
+			System.err.println("Error: SVGen failed: " + e);
+			status = Severity.FATAL_BUG.getExitCode();
+		}
+		finally
+		{
+			System.setOut(orig_out);
+			System.setErr(orig_err);
+		}
+
+		respondLines(writer, "out", captured_out.toString());
+		respondLines(writer, "err", captured_err.toString());
+		if (out_file != null)
+		{
+			String out_file_name = out_file.toString();
+			writer.println("file\t" + out_file_name);
+			writer.println("file\t" + SourceFile.derivedFileName(out_file_name, "gen"));
+			writer.println("file\t" + SourceFile.stripFileExtension(out_file_name) + "_errorLog.txt");
+		}
+		writer.println("status\t" + status);
+	}
+
+	private static File resolve(File cwd, File file)
+	{
+		return file.isAbsolute() ? file : new File(cwd, file.getPath());
+	}
+
+	private static void respondLines(PrintWriter writer, String kind, String text)
+	{
+		if (text.isEmpty())
+		{
+			return;
+		}
+		for (String line: text.split("\r?\n"))
+		{
+			writer.println(kind + "\t" + line);
+		}
+	}
+}
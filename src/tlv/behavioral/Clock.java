@@ -29,6 +29,7 @@ package tlv.behavioral;
 
 import tlv.Main;
 import tlv.config.IdentifierType;
+import tlv.parse.ActiveParseContext;
 
 public class Clock {
 	private PipeSignal enable_sig;  // null if none.
@@ -70,7 +71,7 @@ public class Clock {
 	{
 		return (sig.getIdentifier().getType() == IdentifierType.SV_SIG)
 				  ? sig.getIdentifier().getName()
-				  : Main.projSpecific.svSignalName(sig, stage - 2);  // TODO: Parameterize - 2.
+				  : ActiveParseContext.GetProjSpecific().svSignalName(sig, stage - 2);  // TODO: Parameterize - 2.
 	}
 
 	/**
@@ -106,7 +107,7 @@ public class Clock {
 	{
 		if (enable_sig == null) {return "1'b1";}
 		String ret = getSvEnableSigName() + enable_sig.getBehScope().getSvIndexStr();
-		if (Main.command_line_options.xInjClock())
+		if (ActiveParseContext.GetOptions().xInjClock())
 		{
 			// Generate X on the enable if required by the project to generate X's for invalid data.
 			// (It is recommended that the project's makeClockStr(...) do the X injection, always, instead.)
@@ -123,18 +124,29 @@ public class Clock {
 		return (functional_enable_sig == null) ? "1'b1" : getSvFunctionalEnableSigName() + functional_enable_sig.getBehScope().getSvIndexStr();
 	}
 	
+	/**
+	 * @return a String identifying the SV clock this clock generates, apart from its name: its enable and functional enable
+	 *         references, phase, and scope ranges and indexing.  Clocks with equal signatures are equivalent.
+	 */
+	public String getSignature()
+	{
+		LogicalBehScope scope = getBehScope();
+		return getSvEnableReference() + " " + getSvFunctionalEnableReference() + " " + (evenStage() ? "H" : "L") + " " +
+		       scope.getSvRangesStr() + " " + scope.getSvIndexStr();
+	}
+	
 	/**
 	 * @return the SV string that declares this clock.
 	 */
 	public String declareClockStr()
 	{
-	        return (Main.projSpecific.getClkSigSvType() + " " + sv_name + " " + getBehScope().getSvRangesStr() + ";");  // TODO: No " " if no range.
+	        return (ActiveParseContext.GetProjSpecific().getClkSigSvType() + " " + sv_name + " " + getBehScope().getSvRangesStr() + ";");  // TODO: No " " if no range.
 	}
 	
 	public String makeClockStr()
 	{
-		//return Main.projSpecific.makeClockStr(, enable_str, functional_enable_str, Main.isEven(stage));
-		return Main.projSpecific.makeClockStr(this);
+		//return ActiveParseContext.GetProjSpecific().makeClockStr(, enable_str, functional_enable_str, Main.isEven(stage));
+		return ActiveParseContext.GetProjSpecific().makeClockStr(this);
 	}
 	
 	/**
@@ -145,6 +157,6 @@ public class Clock {
 		enable_sig = _enable_sig;
 		functional_enable_sig = _functional_enable_sig;
 		stage = _stage;
-		sv_name = Main.projSpecific.svClockSignalName(enable_sig, functional_enable_sig, scope, stage);
+		sv_name = ActiveParseContext.GetProjSpecific().svClockSignalName(enable_sig, functional_enable_sig, scope, stage);
 	}
 }
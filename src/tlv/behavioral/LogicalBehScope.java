@@ -77,7 +77,7 @@ public class LogicalBehScope extends LogicalBranch
 	 * A vector of LogicalStages where the index in the vector determines the containing Stage's value.
 	 * The offset for these values is determined by the value of the stage at index 0 in the vector
 	 */
-	private Vector<LogicalStage> ungatedStages;
+	private StageTable ungatedStages;
 	/**
 	 * All gating whens which are defined directly below the Pipeline scope.
 	 */
@@ -132,7 +132,7 @@ public class LogicalBehScope extends LogicalBranch
 	{
 		super(identifier_);
 		
-		ungatedStages = new Vector<LogicalStage> (0,0);
+		ungatedStages = new StageTable();
 		whens  = new Hashtable<String, LogicalWhen> ();
 		
 		signals = new Hashtable <Identifier, PipeSignal>();
@@ -181,7 +181,7 @@ public class LogicalBehScope extends LogicalBranch
 	public LogicalBehScope(Identifier ident_, LogicalBranch logical_branch_, NodeType t) {
 		super(ident_, logical_branch_, t);
 		
-		ungatedStages = new Vector<LogicalStage> (0,0);
+		ungatedStages = new StageTable();
 		whens  = new Hashtable<String, LogicalWhen> ();
 		
 		signals = new Hashtable <Identifier, PipeSignal>();
@@ -337,52 +337,24 @@ public class LogicalBehScope extends LogicalBranch
 	}
 	
 	/**
-	 * Adds a pre-existing LogicalStage object into the ungatedStages vector. This method
+	 * Adds a pre-existing LogicalStage object into the ungatedStages table. This method
 	 * is used to add a "dummy" LogicalStage which may not be associated with any ParseStage
-	 * This method places the LogicalStage appropriately in the vector according to its value.
+	 * This method places the LogicalStage appropriately in the table according to its value.
 	 * 
 	 * @param logical_stage_ LogicalStage to be added
 	 * @return LogicalStage that was just added
 	 */
 	public LogicalStage addStage(LogicalStage logical_stage_)
 	{
-		int stageOffset;
-		
-		if(ungatedStages.size() == 0)
-		{
-			ungatedStages.insertElementAt(logical_stage_, 0);
-		}
-		else
-		{
-			stageOffset = ungatedStages.firstElement().getValue();
-			
-			if(logical_stage_.getValue() < stageOffset)
-			{
-				ungatedStages.insertElementAt(logical_stage_, 0);
-				
-				for(int i = 1; i < stageOffset-logical_stage_.getValue(); i++)
-					ungatedStages.insertElementAt(new LogicalStage(logical_stage_.getValue() + i, this), i);
-			}
-			else if(logical_stage_.getValue() >= ungatedStages.size() + stageOffset)
-			{
-				for(int i = ungatedStages.size()+stageOffset; i < logical_stage_.getValue(); i++)
-				{
-					ungatedStages.add(new LogicalStage(i, this));
-				}
-	
-				ungatedStages.add(logical_stage_);
-			}
-		}
-		
-		// TODO: This just gets logical_stage_ back again?  Should be an assertion, at best.
-		return ungatedStages.get(logical_stage_.getValue() - ungatedStages.firstElement().getValue());
+		// TODO: This just gets logical_stage_ back again if the stage is new.  Should be an assertion, at best.
+		return ungatedStages.add(logical_stage_, this);
 	}
 	
 	
 	/**
 	 * Derives a LogicalStage from the ParseStage parameter object. This is either done by locating in the
-	 * logicalStages vector and adding parseStage's identifier to the found LogicalStage object, or if a
-	 * matching LogicalStage object is not found, than it is constructed and added to logicalStages vector.
+	 * ungatedStages table and adding parseStage's identifier to the found LogicalStage object, or if a
+	 * matching LogicalStage object is not found, than it is constructed and added to ungatedStages table.
 	 *
 	 * @param parseStage ParseStage from which the LogicalStage needs to be derived from
 	 * @return LogicalStage that is added to the LogicalPipeline
@@ -391,67 +363,38 @@ public class LogicalBehScope extends LogicalBranch
 	{
 		Expression temp_identifier = parseStage.produceExpression();
 		LogicalStage temp_logical_stage = null;
-		int stageOffset;
 		
 		if(!temp_identifier.isEvaluated())
 		{
 			return null;
 		}
 		
-		if(ungatedStages.size() == 0)
+		temp_logical_stage = ungatedStages.get(temp_identifier.getValue());
+		if(temp_logical_stage == null)
 		{
 			temp_logical_stage = new LogicalStage(temp_identifier);
 			temp_identifier.setLogicalNode(temp_logical_stage);
-			
-			ungatedStages.insertElementAt(temp_logical_stage, 0);
+			ungatedStages.add(temp_logical_stage, this);
 		}
 		else
 		{
-			stageOffset = ungatedStages.firstElement().getValue();
-			
-			if(temp_identifier.getValue() < stageOffset)
-			{
-				temp_logical_stage = new LogicalStage(temp_identifier);
-				temp_identifier.setLogicalNode(temp_logical_stage);
-				ungatedStages.insertElementAt(temp_logical_stage, 0);
-				
-				for(int i = 1; i < stageOffset-temp_identifier.getValue(); i++)
-					ungatedStages.insertElementAt(new LogicalStage(temp_identifier.getValue() + i, this), i);
-			}
-			else if(temp_identifier.getValue() >= ungatedStages.size() + stageOffset)
-			{
-				for(int i = ungatedStages.size()+stageOffset; i < temp_identifier.getValue(); i++)
-				{
-					ungatedStages.add(new LogicalStage(i, this));
-				}
-				
-				temp_logical_stage = new LogicalStage(temp_identifier);
-				temp_identifier.setLogicalNode(temp_logical_stage);
-				ungatedStages.add(temp_logical_stage);
-			}
-			else
-			{
-				temp_logical_stage = ungatedStages.get(temp_identifier.getValue() - stageOffset);
-				temp_identifier.setLogicalNode(temp_logical_stage);
-				temp_logical_stage.addIdentifier(temp_identifier);
-			}
+			temp_identifier.setLogicalNode(temp_logical_stage);
+			temp_logical_stage.addIdentifier(temp_identifier);
 		}
 		
-		return ungatedStages.get(temp_identifier.getValue() - ungatedStages.firstElement().getValue());
+		return temp_logical_stage;
 	}
 	
 	/**
 	 * Returns a LogicalStage object of a specific stage value.
-	 * May need to add error checking in case this method gets called to retrieve a stage that does not exist within
-	 * the Vector
 	 * 
 	 * @param stage_number_ the stage number of the LogicalStage that gets retrieved
 	 * 
-	 * @return LogicalStage with the value of stage_number_
+	 * @return LogicalStage with the value of stage_number_, or null if there is none
 	 */
 	public LogicalStage getStage(int stage_number_)
 	{
-		return ungatedStages.elementAt(stage_number_ - ungatedStages.firstElement().getValue());
+		return ungatedStages.get(stage_number_);
 	}
 	
 	/**
@@ -1360,7 +1303,10 @@ public class LogicalBehScope extends LogicalBranch
 			WildcardedSigRef any_assigned = (WildcardedSigRef)(any_sig.getSingleAssignedRange());
 			Assignment any_assignment = any_assigned.getAssignment();
 			
-			any_assignment.fixWildcardedSv(any_assigned);
+			if (!any_assignment.isPruned())
+			{
+				any_assignment.fixWildcardedSv(any_assigned);
+			}
 		}
 		
 	    // Recurse into children.
@@ -1373,10 +1319,36 @@ public class LogicalBehScope extends LogicalBranch
 	
 
 	/**
-	 * Create the staging of signals at this scope.
+	 * Create the staging of signals at this scope and, recursively, its children.
 	 * @return Severity non-null if an error was encountered, and the calling scope should report it's context.
 	 */
 	public void /*Severity*/ createStagingRecursive()
+	{
+		createStaging();
+		
+	    // Recurse into children.
+		for(Enumeration<LogicalBehScope> children_el = children.elements(); children_el.hasMoreElements();)
+		{
+			LogicalBehScope child_scope = children_el.nextElement();
+			/*-if (!child_scope.done_staging)
+			{
+				if (*/child_scope.createStagingRecursive();/*- != null)
+				{
+					context.report(0, Severity.FATAL_ERROR, "CYCLIC-FLOW", "Found a cyclic flow through wildcarded assignments, reported in context above.");
+				}
+			}*/
+		}
+		
+		//-done_staging = true;
+		
+		//-return null;
+	}
+	
+	/**
+	 * Create the staging of signals at this scope (not its children).  Staging a signal affects only that signal, except
+	 * for uses of gating signals (see ParallelStaging.addStagingUse(..)).
+	 */
+	void createStaging()
 	{
 		//-ActiveParseContext context = ActiveParseContext.get();
 		
@@ -1472,23 +1444,6 @@ public class LogicalBehScope extends LogicalBranch
 			}
 	
 		}
-		
-	    // Recurse into children.
-		for(Enumeration<LogicalBehScope> children_el = children.elements(); children_el.hasMoreElements();)
-		{
-			LogicalBehScope child_scope = children_el.nextElement();
-			/*-if (!child_scope.done_staging)
-			{
-				if (*/child_scope.createStagingRecursive();/*- != null)
-				{
-					context.report(0, Severity.FATAL_ERROR, "CYCLIC-FLOW", "Found a cyclic flow through wildcarded assignments, reported in context above.");
-				}
-			}*/
-		}
-		
-		//-done_staging = true;
-		
-		//-return null;
 	}
 	
 
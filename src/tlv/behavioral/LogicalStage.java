@@ -43,10 +43,12 @@ public class LogicalStage extends LogicalBranch
 	private boolean flagEvaluated;
 	private int value;
 	
-	private Hashtable <String, Vector<UsedBitRange>> usedRanges;
-	private Hashtable <String, Vector<BitRange>> assignedRanges;
+	// Ranges of each signal in this stage, keyed by the signal's Identifier ID.  These are created when first needed, since
+	// many stages are placeholders.
+	private Hashtable <Integer, Vector<UsedBitRange>> usedRanges = null;
+	private Hashtable <Integer, Vector<BitRange>> assignedRanges = null;
 	
-	private Hashtable <String, Vector<TransitionRange>> transitionRanges;
+	private Hashtable <Integer, Vector<TransitionRange>> transitionRanges = null;
 	
 	public LogicalStage(Expression identifier_)
 	{
@@ -61,11 +63,6 @@ public class LogicalStage extends LogicalBranch
 			ActiveParseContext.Report(0, Severity.ERROR, "STAGE-PARSE", "Unable to evaluate stage.");
 			value = -1;
 		}
-			
-		usedRanges = new Hashtable<String, Vector<UsedBitRange>>();
-		assignedRanges = new Hashtable<String, Vector<BitRange>>();
-		
-		transitionRanges = new Hashtable<String, Vector<TransitionRange>>();
 	}
 	
 	//Creates a blank stage which may be needed as a filler
@@ -75,10 +72,6 @@ public class LogicalStage extends LogicalBranch
 		
 		value = stage_number_;
 		flagEvaluated = true;
-		
-		usedRanges = new Hashtable<String, Vector<UsedBitRange>>();
-		assignedRanges = new Hashtable<String, Vector<BitRange>>();
-		
 	}
 	
 	/*
@@ -114,14 +107,17 @@ public class LogicalStage extends LogicalBranch
 	}
 	
 	
-	public String addTransitionRange(PipeSignal pipesignal_, Expression end_index_, Expression start_index_, boolean anchor_, String type_)
+	public StagingType addTransitionRange(PipeSignal pipesignal_, Expression end_index_, Expression start_index_, boolean anchor_, StagingType type_)
 	{
-		Vector <TransitionRange> temp_transitionRanges = transitionRanges.get(pipesignal_.getLabel());
+		if(transitionRanges == null)
+			transitionRanges = new Hashtable<Integer, Vector<TransitionRange>>();
+		Integer temp_id = pipesignal_.getIdentifier().getId();
+		Vector <TransitionRange> temp_transitionRanges = transitionRanges.get(temp_id);
 		
 		if(temp_transitionRanges == null)
 		{
 			temp_transitionRanges = new Vector<TransitionRange>(0,0);
-			transitionRanges.put(pipesignal_.getLabel(), temp_transitionRanges);
+			transitionRanges.put(temp_id, temp_transitionRanges);
 		}
 		
 		boolean anchorFlag;
@@ -142,10 +138,7 @@ public class LogicalStage extends LogicalBranch
 				temp_transitionRanges.insertElementAt(new TransitionRange(pipesignal_, end_index_, start_index_, anchor_, type_), i);
 				lowestStartBit = start_index_;
 				
-				if(type_ == "FLOP1")
-					return "FLOP2";
-				else
-					return "FLOP1";
+				return type_.next();
 				
 			}
 			else if((Expression.isLesser(start_index_, temp_transitionRanges.get(i).getEndBitIndex()) >= -1 || Expression.isGreater(temp_transitionRanges.get(i).getEndBitIndex(), start_index_) >= -1) 
@@ -161,39 +154,35 @@ public class LogicalStage extends LogicalBranch
 				else
 					highestEndBit = temp_transitionRanges.get(i).getEndBitIndex();
 					
-				if(anchorFlag && temp_transitionRanges.get(i).getType() == "LATCH")
-					type_ = "LATCH";
+				if(anchorFlag && temp_transitionRanges.get(i).getType() == StagingType.LATCH)
+					type_ = StagingType.LATCH;
 					
 				temp_transitionRanges.remove(i);
 					
 				addTransitionRange(pipesignal_, highestEndBit, lowestStartBit, anchorFlag, type_);
 				
-				if(type_ == "FLOP1")
-					return "FLOP2";
-				else
-					return "FLOP1";
+				return type_.next();
 			}
 		}
 			
 		temp_transitionRanges.add(new TransitionRange(pipesignal_, end_index_, start_index_, anchor_, type_));	
 		
-		if(type_ == "FLOP1")
-			return "FLOP2";
-		else
-			return "FLOP1";
+		return type_.next();
 		
 	}
 	
 	public void addUsedRange(UsedBitRange range)
 	{
-		String temp_label = range.getLabel();
-		Vector <UsedBitRange> temp_usedRanges =  usedRanges.get(temp_label);
+		if(usedRanges == null)
+			usedRanges = new Hashtable<Integer, Vector<UsedBitRange>>();
+		Integer temp_id = range.getPipeSignal().getIdentifier().getId();
+		Vector <UsedBitRange> temp_usedRanges =  usedRanges.get(temp_id);
 		
 		if(temp_usedRanges == null)
 		{
 			temp_usedRanges = new Vector<UsedBitRange>(0,0);
 			temp_usedRanges.add(range);
-			usedRanges.put(temp_label, temp_usedRanges);
+			usedRanges.put(temp_id, temp_usedRanges);
 		}
 		else
 		{
@@ -203,14 +192,16 @@ public class LogicalStage extends LogicalBranch
 	
 	public void addAssignedRange(BitRange assigned_range)
 	{
-		String temp_label = assigned_range.getLabel();
-		Vector <BitRange> temp_assignedRanges =  assignedRanges.get(temp_label);
+		if(assignedRanges == null)
+			assignedRanges = new Hashtable<Integer, Vector<BitRange>>();
+		Integer temp_id = assigned_range.getPipeSignal().getIdentifier().getId();
+		Vector <BitRange> temp_assignedRanges =  assignedRanges.get(temp_id);
 		
 		if(temp_assignedRanges == null)
 		{
 			temp_assignedRanges = new Vector<BitRange>(0,0);
 			temp_assignedRanges.add(assigned_range);
-			assignedRanges.put(temp_label, temp_assignedRanges);
+			assignedRanges.put(temp_id, temp_assignedRanges);
 		}
 		else
 		{
@@ -218,18 +209,18 @@ public class LogicalStage extends LogicalBranch
 		}
 	}
 	
-	public Vector<BitRange> getAssignedBitRanges_ofSignal(String signal_name)
+	public Vector<BitRange> getAssignedBitRanges_ofSignal(Identifier signal_)
 	{
 		if(assignedRanges != null)
-			return assignedRanges.get(signal_name);
+			return assignedRanges.get(signal_.getId());
 		else
 			return null;
 	}
 	
-	public Vector<UsedBitRange> getUsedBitRanges_ofSignal(String signal_name)
+	public Vector<UsedBitRange> getUsedBitRanges_ofSignal(Identifier signal_)
 	{
 		if(usedRanges != null)
-			return usedRanges.get(signal_name);
+			return usedRanges.get(signal_.getId());
 		else
 			return null;
 	}
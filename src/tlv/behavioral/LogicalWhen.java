@@ -42,10 +42,10 @@ public class LogicalWhen extends LogicalBranch
 	
 	// TODO: Hoover: I'm not using these four structures Yura created.
 	private Hashtable<String, LogicalWhen> nestedWhens;
-	private Hashtable<String, Hashtable<String, LogicalWhen>> nestedWhens_ofSignal;
-	//stages which gated by this when
-	private Vector<LogicalStage> nestedStages;
-	private Hashtable<String, Vector <LogicalStage>> nestedStages_ofSignal;
+	private Hashtable<Integer, Hashtable<String, LogicalWhen>> nestedWhens_ofSignal;
+	//stages which gated by this when (the _ofSignal structures are keyed by the signal's Identifier ID)
+	private StageTable nestedStages;
+	private Hashtable<Integer, StageTable> nestedStages_ofSignal;
 	
 	
 	/**
@@ -100,10 +100,10 @@ public class LogicalWhen extends LogicalBranch
 	    gatingPipeSignal.setWhen(this);
 		
 		nestedWhens = new Hashtable<String, LogicalWhen>();
-		nestedWhens_ofSignal = new Hashtable<String, Hashtable<String, LogicalWhen>>();
+		nestedWhens_ofSignal = new Hashtable<Integer, Hashtable<String, LogicalWhen>>();
 		
-		nestedStages = new Vector<LogicalStage>(0,0);
-		nestedStages_ofSignal = new Hashtable<String, Vector<LogicalStage>>();
+		nestedStages = new StageTable();
+		nestedStages_ofSignal = new Hashtable<Integer, StageTable>();
 		
 	}
 	
@@ -129,150 +129,64 @@ public class LogicalWhen extends LogicalBranch
 	
 	public LogicalStage getStage(int stage_number_)
 	{
-		return nestedStages.elementAt(stage_number_ - nestedStages.firstElement().getValue());
+		return nestedStages.get(stage_number_);
 	}
 	
 	public LogicalStage addStage(LogicalStage logical_stage_)
 	{
-		int stageOffset;
-		
-		if(nestedStages.size() == 0)
-		{
-			nestedStages.insertElementAt(logical_stage_, 0);
-		}
-		else
-		{
-			stageOffset = nestedStages.firstElement().getValue();
-			
-			if(logical_stage_.getValue() < stageOffset)
-			{
-				nestedStages.insertElementAt(logical_stage_, 0);
-				
-				for(int i = 1; i < stageOffset-logical_stage_.getValue(); i++)
-					nestedStages.insertElementAt(new LogicalStage(logical_stage_.getValue() + i, this), i);
-			}
-			else if(logical_stage_.getValue() >= nestedStages.size() + stageOffset)
-			{
-				for(int i = nestedStages.size()+stageOffset; i < logical_stage_.getValue(); i++)
-				{
-					nestedStages.add(new LogicalStage(i, this));
-				}
-	
-				nestedStages.add(logical_stage_);
-			}
-		}
-		
-		return nestedStages.get(logical_stage_.getValue() - nestedStages.firstElement().getValue());
+		return nestedStages.add(logical_stage_, this);
 	}
 	
-	public LogicalStage addStage_ofSignal(String label, LogicalStage logical_stage_)
+	public LogicalStage addStage_ofSignal(Identifier signal_, LogicalStage logical_stage_)
 	{
-		int stageOffset;
-		Vector<LogicalStage> nested_stages_ofSignal = nestedStages_ofSignal.remove(label);
+		StageTable nested_stages_ofSignal = nestedStages_ofSignal.get(signal_.getId());
 		
 		if(nested_stages_ofSignal == null)
 		{
-			nested_stages_ofSignal = new Vector<LogicalStage>(0,0);
-		}
-		
-		if(nested_stages_ofSignal.size() == 0)
-		{
-			nested_stages_ofSignal.insertElementAt(logical_stage_, 0);
-		}
-		else
-		{
-			stageOffset = nested_stages_ofSignal.firstElement().getValue();
-			
-			if(logical_stage_.getValue() < stageOffset)
-			{
-				nested_stages_ofSignal.insertElementAt(logical_stage_, 0);
-				
-				for(int i = 1; i < stageOffset-logical_stage_.getValue(); i++)
-					nested_stages_ofSignal.insertElementAt(new LogicalStage(logical_stage_.getValue() + i, this), i);
-			}
-			else if(logical_stage_.getValue() >= nested_stages_ofSignal.size() + stageOffset)
-			{
-				for(int i = nested_stages_ofSignal.size()+stageOffset; i < logical_stage_.getValue(); i++)
-				{
-					nested_stages_ofSignal.add(new LogicalStage(i, this));
-				}
-	
-				nested_stages_ofSignal.add(logical_stage_);
-			}
+			nested_stages_ofSignal = new StageTable();
+			nestedStages_ofSignal.put(signal_.getId(), nested_stages_ofSignal);
 		}
 		
-		nestedStages_ofSignal.put(label, nested_stages_ofSignal);
-		
-		return nestedStages_ofSignal.get(label).get(logical_stage_.getValue() - nestedStages_ofSignal.get(label).firstElement().getValue());
+		return nested_stages_ofSignal.add(logical_stage_, this);
 	}
 	
 	public LogicalStage addStage(ParseStage parseStage)
 	{
 		Expression temp_identifier = parseStage.produceExpression();
 		LogicalStage temp_logical_stage = null;
-		int stageOffset;
 		
 		if(!temp_identifier.isEvaluated())
 		{
 			return null;
 		}
 		
-		if(nestedStages.size() == 0)
+		temp_logical_stage = nestedStages.get(temp_identifier.getValue());
+		if(temp_logical_stage == null)
 		{
-			stageOffset = temp_identifier.getValue();
-			
 			temp_logical_stage = new LogicalStage(temp_identifier);
 			temp_identifier.setLogicalNode(temp_logical_stage);
-			
-			nestedStages.insertElementAt(temp_logical_stage, 0);
+			nestedStages.add(temp_logical_stage, this);
 		}
 		else
 		{
-			stageOffset = nestedStages.firstElement().getValue();
-			
-			if(temp_identifier.getValue() < stageOffset)
-			{
-				temp_logical_stage = new LogicalStage(temp_identifier);
-				temp_identifier.setLogicalNode(temp_logical_stage);
-				nestedStages.insertElementAt(temp_logical_stage, 0);
-				
-				for(int i = 1; i < stageOffset-temp_identifier.getValue(); i++)
-					nestedStages.insertElementAt(new LogicalStage(temp_identifier.getValue() + i, this), i);
-			}
-			else if(temp_identifier.getValue() >= nestedStages.size() + stageOffset)
-			{
-				for(int i = nestedStages.size()+stageOffset; i < temp_identifier.getValue(); i++)
-				{
-					nestedStages.add(new LogicalStage(i, this));
-				}
-				
-				temp_logical_stage = new LogicalStage(temp_identifier);
-				temp_identifier.setLogicalNode(temp_logical_stage);
-				nestedStages.add(temp_logical_stage);
-			}
-			else
-			{
-				temp_logical_stage = nestedStages.get(temp_identifier.getValue() - stageOffset);
-				temp_identifier.setLogicalNode(temp_logical_stage);
-				temp_logical_stage.addIdentifier(temp_identifier);
-			}
+			temp_identifier.setLogicalNode(temp_logical_stage);
+			temp_logical_stage.addIdentifier(temp_identifier);
 		}
 		
-		return nestedStages.get(temp_identifier.getValue() - nestedStages.firstElement().getValue());
-		
+		return temp_logical_stage;
 	}
 	
-	public void addWhen(String signal_name, String when_label)
+	public void addWhen(Identifier signal_, String when_label)
 	{
-		Hashtable <String, LogicalWhen> temp_whens = nestedWhens_ofSignal.get(signal_name);
+		Hashtable <String, LogicalWhen> temp_whens = nestedWhens_ofSignal.get(signal_.getId());
 		LogicalWhen temp_when;
 		
 		
-		//if no whens exist for the specific signal_name, create a new list
+		//if no whens exist for the specific signal, create a new list
 		if(temp_whens == null)
 		{
 			temp_whens = new Hashtable <String, LogicalWhen>(0);
-			nestedWhens_ofSignal.put(signal_name, temp_whens);
+			nestedWhens_ofSignal.put(signal_.getId(), temp_whens);
 		}
 		
 		temp_when = temp_whens.get(when_label);
@@ -316,7 +230,7 @@ public class LogicalWhen extends LogicalBranch
 		PipeSignal temp_signal = null;
 		LogicalWhen temp_when1 = this;
 		LogicalWhen temp_when2;
-		LogicalStage temp_stage = addStage_ofSignal(range.getLabel(), range.getLogicalStage());
+		LogicalStage temp_stage = addStage_ofSignal(range.getPipeSignal().getIdentifier(), range.getLogicalStage());
 		temp_stage.addAssignedRange(range);
 		
 		
@@ -325,7 +239,7 @@ public class LogicalWhen extends LogicalBranch
 		while(temp_when1.getBranchWhen() != null)
 		{
 			temp_when2 = temp_when1.getBranchWhen();
-			temp_when2.addWhen(range.getLabel(), temp_when1.getLabel());
+			temp_when2.addWhen(range.getPipeSignal().getIdentifier(), temp_when1.getLabel());
 			temp_when1 = temp_when2;
 		}
 		
@@ -341,13 +255,13 @@ public class LogicalWhen extends LogicalBranch
 		int temp_stage_value = range.getStageValue();
 			
 		LogicalStage temp_stage = addStage(new LogicalStage(temp_stage_value, this));
-		temp_stage = addStage_ofSignal(range.getLabel(), temp_stage);
+		temp_stage = addStage_ofSignal(range.getPipeSignal().getIdentifier(), temp_stage);
 		temp_stage.addUsedRange(range);
 		
 		while(temp_when1.getBranchWhen() != null)
 		{
 			temp_when2 = temp_when1.getBranchWhen();
-			temp_when2.addWhen(range.getLabel(), temp_when1.getLabel());
+			temp_when2.addWhen(range.getPipeSignal().getIdentifier(), temp_when1.getLabel());
 			temp_when1 = temp_when2;
 		}
 		
@@ -371,17 +285,17 @@ public class LogicalWhen extends LogicalBranch
 		this.beh_scope = beh_scope;
 	}
 
-	public Vector <LogicalStage> getNestedStages_ofSignal(String label)
+	StageTable getNestedStages_ofSignal(Identifier signal_)
 	{
-		return nestedStages_ofSignal.get(label);
+		return nestedStages_ofSignal.get(signal_.getId());
 	}
 	
-	public Hashtable <String, LogicalWhen> getNestedWhens_ofSignal(String label)
+	public Hashtable <String, LogicalWhen> getNestedWhens_ofSignal(Identifier signal_)
 	{
-		return nestedWhens_ofSignal.get(label);
+		return nestedWhens_ofSignal.get(signal_.getId());
 	}
 	
-	public void printLogicalHierchy(String label_, int indentation)
+	public void printLogicalHierchy(Identifier signal_, int indentation)
 	{
 		String assigned_ranges = "";
 		String used_ranges = "";
@@ -390,8 +304,8 @@ public class LogicalWhen extends LogicalBranch
 		Vector<UsedBitRange> temp_used_ranges;
 		
 		String indent_string = "";
-		Vector <LogicalStage> temp_stages = nestedStages_ofSignal.get(label_);
-		Hashtable <String, LogicalWhen> temp_whens = nestedWhens_ofSignal.get(label_);
+		StageTable temp_stages = nestedStages_ofSignal.get(signal_.getId());
+		Hashtable <String, LogicalWhen> temp_whens = nestedWhens_ofSignal.get(signal_.getId());
 		LogicalWhen temp_when;
 		
 		for(int i = 0; i < indentation; i++)
@@ -403,8 +317,8 @@ public class LogicalWhen extends LogicalBranch
 		if(temp_stages != null)
 			for(int j = 0; j < temp_stages.size(); j++)
 			{
-				temp_assigned_ranges = temp_stages.get(j).getAssignedBitRanges_ofSignal(label_);
-				temp_used_ranges = temp_stages.get(j).getUsedBitRanges_ofSignal(label_);
+				temp_assigned_ranges = temp_stages.getAt(j).getAssignedBitRanges_ofSignal(signal_);
+				temp_used_ranges = temp_stages.getAt(j).getUsedBitRanges_ofSignal(signal_);
 					
 				if(temp_assigned_ranges != null)
 					for(int k = 0; k < temp_assigned_ranges.size(); k++)
@@ -418,7 +332,7 @@ public class LogicalWhen extends LogicalBranch
 						used_ranges += "U" + temp_used_ranges.get(k).toString() + ", ";
 					}
 						
-				System.out.println(indent_string + "  @" + temp_stages.get(j).getValue() + ": " + assigned_ranges + used_ranges);
+				System.out.println(indent_string + "  @" + temp_stages.getAt(j).getValue() + ": " + assigned_ranges + used_ranges);
 					
 				assigned_ranges = "";
 				used_ranges = "";
@@ -428,7 +342,7 @@ public class LogicalWhen extends LogicalBranch
 			for(Enumeration<LogicalWhen> e = temp_whens.elements(); e.hasMoreElements();)
 			{
 				temp_when = e.nextElement();
-				temp_when.printLogicalHierchy(label_, indentation + 4);
+				temp_when.printLogicalHierchy(signal_, indentation + 4);
 			}
 	}
 	
@@ -471,7 +385,7 @@ public class LogicalWhen extends LogicalBranch
 		
 		for(int i = 0; i < nestedStages.size(); i++)
 		{
-			System.out.println(indent_string + "  @" + nestedStages.get(i).getValue());
+			System.out.println(indent_string + "  @" + nestedStages.getAt(i).getValue());
 		}
 		
 		if(nestedWhens != null)
@@ -0,0 +1,274 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.behavioral;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import tlv.behavioral.range.UsedBitRange;
+import tlv.parse.ActiveParseContext;
+import tlv.parse.ParseContext;
+import tlv.parse.ParseContext.DeferredReport;
+import tlv.utilities.TranslationStats;
+
+
+/**
+ * Creates the staging of all behavioral scopes in parallel, with results identical to
+ * LogicalBehScope.createStagingRecursive().
+ * 
+ * Staging a signal affects only that signal, except that the staging of a gated signal adds uses of its gating signal, and
+ * these uses affect the staging of the gating signal.  Each scope is staged by its own task, and the serial result is
+ * reproduced as follows:
+ *    - Uses of gating signals in the task's own scope are added directly (as the serial staging orders gating signals last).
+ *    - Uses of gating signals in other scopes are deferred, and added after all staging, in the serial (preorder) order of
+ *      the scopes.  In the serial staging, these uses are added after the gating signal was staged, so they do not affect
+ *      its staging.  If any gating signal's scope would be staged after the scope of a signal it gates, staging is serial.
+ *    - Reports are captured by each task, and emitted in the serial order.  A fatal error ends the task making it (and is
+ *      fatal when emitted).
+ * Staging is also serial if any signal is unassigned (as the manufactured assignment is added to the statement of its use)
+ * or has multiple gating conditions (which is reported directly to System.err).
+ */
+public class ParallelStaging
+{
+	// Pools, by number of threads, shared by all translations.
+	private static Hashtable<Integer, ForkJoinPool> pools = new Hashtable<Integer, ForkJoinPool>();
+	
+	// The ScopeTask run by this thread, or null.
+	private static ThreadLocal<ScopeTask> current_task = new ThreadLocal<ScopeTask>();
+	
+	
+	/**
+	 * Stages a single scope on behalf of a translation.
+	 */
+	private static class ScopeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final LogicalBehScope scope;
+		private final ActiveParseContext context;                        // The translation's context.
+		private final Vector<DeferredReport> reports = new Vector<DeferredReport>();
+		private final Vector<PipeSignal> use_sigs = new Vector<PipeSignal>();  // Deferred uses (of gating signals in other
+		private final Vector<UsedBitRange> uses = new Vector<UsedBitRange>();  // scopes), by signal.
+		private RuntimeException failure = null;                         // Unexpected exception from staging, or null.
+		private final TranslationStats stats;
+		private long cpu_ns = 0;         // CPU time and allocation of this task's staging, excluding nested tasks
+		private long alloc_bytes = 0;    // (-1 if not measured).
+		private long nested_cpu_ns = 0;       // Of tasks nested within this one.
+		private long nested_alloc_bytes = 0;  // "
+		
+		ScopeTask(LogicalBehScope scope_, ActiveParseContext context_, TranslationStats stats_)
+		{
+			scope = scope_;
+			context = context_;
+			stats = stats_;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			// Tasks can run nested within a thread's task (while it waits), so prior state is restored.
+			ActiveParseContext prior_context = ActiveParseContext.adopt(context);
+			Vector<DeferredReport> prior_reports = ParseContext.deferReports(reports);
+			ScopeTask prior_task = current_task.get();
+			current_task.set(this);
+			long start_cpu_ns = stats.cpuNs();
+			long start_alloc_bytes = stats.allocBytes();
+			try
+			{
+				scope.createStaging();
+			}
+			catch (ParseContext.DeferredFatalException e)
+			{
+				// Captured in reports.
+			}
+			catch (RuntimeException e)
+			{
+				failure = e;
+			}
+			finally
+			{
+				// Measure this task (for -stats), and exclude it from the task it is nested within, if any.
+				long task_cpu_ns = stats.cpuNs();
+				long task_alloc_bytes = stats.allocBytes();
+				task_cpu_ns = ((task_cpu_ns < 0) || (start_cpu_ns < 0)) ? -1 : task_cpu_ns - start_cpu_ns;
+				task_alloc_bytes = ((task_alloc_bytes < 0) || (start_alloc_bytes < 0)) ? -1 : task_alloc_bytes - start_alloc_bytes;
+				cpu_ns = (task_cpu_ns < 0) ? -1 : task_cpu_ns - nested_cpu_ns;
+				alloc_bytes = (task_alloc_bytes < 0) ? -1 : task_alloc_bytes - nested_alloc_bytes;
+				if (prior_task != null)
+				{
+					prior_task.nested_cpu_ns += task_cpu_ns;
+					prior_task.nested_alloc_bytes += task_alloc_bytes;
+				}
+				current_task.set(prior_task);
+				ParseContext.deferReports(prior_reports);
+				ActiveParseContext.adopt(prior_context);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Add a use of a gating signal implied by staging, deferring it if the gating signal is in another scope than the one being
+	 * staged by this thread.
+	 */
+	static void addStagingUse(PipeSignal sig_, UsedBitRange range_)
+	{
+		ScopeTask task = current_task.get();
+		if (task == null || sig_.getBehScope() == task.scope)
+		{
+			sig_.addUsedRange(range_);
+		} else
+		{
+			task.use_sigs.add(sig_);
+			task.uses.add(range_);
+		}
+	}
+	
+	
+	/**
+	 * Create the staging of the given scope and, recursively, its children, using the given number of threads.
+	 * 
+	 * @param stats_ Receives the CPU time and allocation of the worker threads (for the phase in progress).
+	 */
+	public static void createStaging(LogicalBehScope top_, int threads_, TranslationStats stats_)
+	{
+		// Scopes, in the order of serial staging.
+		Vector<LogicalBehScope> scopes = new Vector<LogicalBehScope>();
+		addScopes(top_, scopes);
+		
+		if (threads_ <= 1 || scopes.size() <= 1 || !isIndependent(scopes))
+		{
+			top_.createStagingRecursive();
+			return;
+		}
+		
+		ActiveParseContext context = ActiveParseContext.get();
+		final Vector<ScopeTask> tasks = new Vector<ScopeTask>(scopes.size());
+		for (LogicalBehScope scope : scopes)
+		{
+			tasks.add(new ScopeTask(scope, context, stats_));
+		}
+		
+		getPool(threads_).invoke(new RecursiveAction()
+		{
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected void compute()
+			{
+				invokeAll(tasks);
+			}
+		});
+		
+		// Account for the workers.
+		for (ScopeTask task : tasks)
+		{
+			stats_.addWorkerUsage(task.cpu_ns, task.alloc_bytes);
+		}
+		
+		// Emit reports in order, up to any failure.
+		for (ScopeTask task : tasks)
+		{
+			ParseContext.emitDeferredReports(task.reports);
+			if (task.failure != null)
+			{
+				throw task.failure;
+			}
+		}
+		
+		// Add deferred uses.
+		for (ScopeTask task : tasks)
+		{
+			for (int i = 0; i < task.uses.size(); i++)
+			{
+				task.use_sigs.get(i).addUsedRange(task.uses.get(i));
+			}
+		}
+	}
+	
+	private static synchronized ForkJoinPool getPool(int threads_)
+	{
+		ForkJoinPool pool = pools.get(threads_);
+		if (pool == null)
+		{
+			pool = new ForkJoinPool(threads_);
+			pools.put(threads_, pool);
+		}
+		return pool;
+	}
+	
+	// Add the given scope and its descendants in the order of LogicalBehScope.createStagingRecursive().
+	private static void addScopes(LogicalBehScope scope_, Vector<LogicalBehScope> scopes_)
+	{
+		scopes_.add(scope_);
+		for (Enumeration<LogicalBehScope> children_el = scope_.children.elements(); children_el.hasMoreElements();)
+		{
+			addScopes(children_el.nextElement(), scopes_);
+		}
+	}
+	
+	// Determine whether the staging of the given scopes (in serial order) can be done in parallel (see class comment).
+	private static boolean isIndependent(Vector<LogicalBehScope> scopes_)
+	{
+		Hashtable<LogicalBehScope, Integer> scope_index = new Hashtable<LogicalBehScope, Integer>();
+		for (int i = 0; i < scopes_.size(); i++)
+		{
+			scope_index.put(scopes_.get(i), i);
+		}
+		
+		for (int i = 0; i < scopes_.size(); i++)
+		{
+			Hashtable<?, PipeSignal> signals = scopes_.get(i).getSignals();
+			if (signals == null)
+				continue;
+			for (PipeSignal sig : signals.values())
+			{
+				// Only signals that would be staged.
+				if (sig.isEmpty() ||
+				    ((sig.getWhen() == null) && !sig.getIdentifier().isStagedSigType()))
+					continue;
+				
+				if (sig.getSingleAssignedRange() == null ||
+				    sig.getGatingWhens().size() > 1)
+					return false;
+				
+				LogicalWhen when = sig.getGatingWhen();
+				if (when != null)
+				{
+					Integer gating_index = scope_index.get(when.getGatingPipeSignal().getBehScope());
+					if (gating_index == null || gating_index > i)
+						return false;
+				}
+			}
+		}
+		return true;
+	}
+}
@@ -31,6 +31,7 @@ import tlv.Main;
 import tlv.behavioral.range.*;
 import tlv.config.IdentifierType;
 import tlv.config.ProjSpecific;
+import tlv.config.SvNameCache;
 import tlv.parse.*;
 import tlv.parse.identifier.*;
 import tlv.parse.identifier.Identifier.Syntax;
@@ -64,7 +65,11 @@ public class PipeSignal
 	
 	//links to stages/gating conditions under which the signal is assigned or consumed
 	protected Hashtable <String, LogicalWhen> gating_whens;
-	protected Vector <LogicalStage> ungatedStages;
+	protected StageTable ungatedStages;
+	
+	public SvNameCache sv_names = null;                   // For use by ProjSpecific only.
+	public SvNameCache sv_clock_names = null;             // For use by ProjSpecific only.
+	public SvNameCache sv_functional_clock_names = null;  // For use by ProjSpecific only.
 	
 	//Contains all of the signal's bitranges
 	private Vector <BitRange> assignedBitRanges;
@@ -94,10 +99,16 @@ public class PipeSignal
 	public boolean from_wildcard;  // TODO: I'd like to get rid of this, but I don't have a way to determine it.
 	public boolean fromWildcard() {return from_wildcard;}
 	
+	// Dead (eliminated by -prune; see SignalLiveness).  Pruned signals have no staging or declarations.
+	private boolean pruned = false;
+	public boolean isPruned() {return pruned;}
+	public void prune() {pruned = true;}
+	
 	//Old methodology, contains transition stages from which stagin flops and latches
 	//are later generated. 
 	private Vector <TransitionStage> tStages;
 	private int tStageOffset;
+	public int getNumTransitionStages() {return tStages.size();}
 	
 
 	/**
@@ -118,7 +129,7 @@ public class PipeSignal
 		sv_type = null;
 		
 		gating_whens = new Hashtable <String, LogicalWhen>(0);
-		ungatedStages = new Vector<LogicalStage>(0,0);
+		ungatedStages = new StageTable();
 		
 		assignedBitRanges = new Vector <BitRange>(0,0);
 		usedBitRanges = new Vector <UsedBitRange>(0,0);
@@ -144,7 +155,7 @@ public class PipeSignal
 		label = bit_range_.getLabel();
 		
 		gating_whens = new Hashtable <String, LogicalWhen>(0);
-		ungatedStages = new Vector<LogicalStage>(0,0);
+		ungatedStages = new StageTable();
 		
 		assignedBitRanges = new Vector <AssignedBitRange>(0,0);
 		usedBitRanges = new Vector <UsedBitRange>(0,0);
@@ -169,7 +180,7 @@ public class PipeSignal
 		label = bit_range_.getLabel();
 		
 		gating_whens = new Hashtable <String, LogicalWhen>();
-		ungatedStages = new Vector<LogicalStage>(0,0);
+		ungatedStages = new StageTable();
 		
 		assignedBitRanges = new Vector <AssignedBitRange>(0,0);
 		usedBitRanges = new Vector <UsedBitRange>(0,0);
@@ -196,7 +207,7 @@ public class PipeSignal
 		when = when_;
 		
 		gating_whens = new Hashtable <String, LogicalWhen>();
-		ungatedStages = new Vector<LogicalStage>(0,0);
+		ungatedStages = new StageTable();
 		
 		assignedBitRanges = new Vector <AssignedBitRange>(0,0);
 		usedBitRanges = new Vector <UsedBitRange>(0,0);
@@ -353,40 +364,12 @@ public class PipeSignal
 	//New methodology. Adds a scope ungated LogicalStage to the PipeSignal
 	public LogicalStage addStage(LogicalStage logical_stage_)
 	{
-		int stageOffset;
-		
-		if(ungatedStages.size() == 0)
-		{
-			ungatedStages.insertElementAt(logical_stage_, 0);
-		}
-		else
-		{
-			stageOffset = ungatedStages.firstElement().getValue();
-			
-			if(logical_stage_.getValue() < stageOffset)
-			{
-				ungatedStages.insertElementAt(logical_stage_, 0);
-				
-				for(int i = 1; i < stageOffset-logical_stage_.getValue(); i++)
-					ungatedStages.insertElementAt(new LogicalStage(logical_stage_.getValue() + i, pipeline), i);
-			}
-			else if(logical_stage_.getValue() >= ungatedStages.size() + stageOffset)
-			{
-				for(int i = ungatedStages.size()+stageOffset; i < logical_stage_.getValue(); i++)
-				{
-					ungatedStages.add(new LogicalStage(i, pipeline));
-				}
-	
-				ungatedStages.add(logical_stage_);
-			}
-		}
-		
-		return ungatedStages.get(logical_stage_.getValue() - ungatedStages.firstElement().getValue());
+		return ungatedStages.add(logical_stage_, pipeline);
 	}
 	
 	public LogicalStage getStage(int stageNum)
 	{
-		return ungatedStages.elementAt(stageNum-ungatedStages.firstElement().getValue());
+		return ungatedStages.get(stageNum);
 	}
 	
 	
@@ -500,6 +483,46 @@ public class PipeSignal
 		}
 	}
 	
+	/**
+	 * @param identifiers Identifiers referenced by SV code.
+	 * @return True if any of them is the SV name of this signal at a stage from its first assignment to its last use.
+	 */
+	public boolean isSvReferenced(Set<String> identifiers)
+	{
+		if (assignedBitRanges.isEmpty() && usedBitRanges.isEmpty())
+		{
+			return false;
+		}
+		int lowest  = assignedBitRanges.isEmpty() ? usedStageLowest : usedBitRanges.isEmpty() ? assignedStageLowest : Math.min(assignedStageLowest, usedStageLowest);
+		int highest = assignedBitRanges.isEmpty() ? usedStageHighest : usedBitRanges.isEmpty() ? assignedStageHighest : Math.max(assignedStageHighest, usedStageHighest);
+		for (int stage = lowest; stage <= highest; stage++)
+		{
+			if (identifiers.contains(svSignalName(stage)))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Drop uses other than those given (and those from staging, which have no assignment), as for uses by dead
+	 * statements.  Bit bounds of uses are retained.
+	 * @param live_uses The uses to retain.
+	 */
+	public void retainUsedRanges(Set<UsedBitRange> live_uses)
+	{
+		Vector<UsedBitRange> ranges = usedBitRanges;
+		usedBitRanges = new Vector<UsedBitRange>(0,0);
+		for (UsedBitRange range : ranges)
+		{
+			if ((range.getIdentifier() == null) || live_uses.contains(range))
+			{
+				addUsedRange(range);
+			}
+		}
+	}
+	
 	// Updates assignedIndexHighest/Lowest to reflect the given range as an assignment.
 	public void reflectAssignedRange(BitRange range)
 	{
@@ -656,37 +679,95 @@ public class PipeSignal
 		}
 	}
 	
-	//TODO
-	//Work in progress: Attempt at generating Staging elements from the nested LogicalStages
-	//and LogicalWhens, rather then from creating new TransitionStages
+	/**
+	 * Staging engine selected by -newstaging, as an alternative to calling generateFlops(..) for each use.  The staging
+	 * (ranges and types) is the same, but the clock of each stage is gated by a when condition derived from the uses as well
+	 * as the assignment.  If the assignment is not under a when condition, a stage is gated by the when condition of all
+	 * uses that consume the stage (those in this stage or later) if they have the same one.  This is sound because such
+	 * uses consume values only for transactions for which the condition held in each prior stage.  Only uses in this scope
+	 * with no alignment qualify, and the when condition signal must be a pipesignal of this scope that is assigned in time
+	 * to gate the stage.  Clocks are shared with other signals staged under the same condition in the same stage.
+	 */
 	public void generateFlopsNew()
 	{
-		String thisType = "FLOP1";
-		LogicalStage temp_stage = null;
-		LogicalWhen temp_when = null;
+		BitRange aR = assignedBitRanges.firstElement();
+		tStageOffset = aR.getStageValue() + 1;
 		
-		//First generate uses out of earliest stages of every immediate gating when
-		if(gating_whens != null)
+		// Determine the gating of each stage (tStages, created here) from the last to the first.  usedBitRanges is in stage order.
+		LogicalWhen assigned_when = getGatingWhen();
+		boolean use_gating = (assigned_when == null) &&                               // Not already gated by assignment &&
+		                     (getWhen() == null) &&                                   // not itself a when condition &&
+		                     (identifier.getType() == IdentifierType.PIPE_SIG);       // a pipesignal
+		int last_stage = usedBitRanges.lastElement().getStageValue();
+		LogicalWhen[] whens = new LogicalWhen[Math.max(last_stage - tStageOffset + 1, 0)];
+		LogicalWhen common_when = null;   // The when condition of all uses consuming the current stage, if common.
+		boolean common = true;
+		int use_index = usedBitRanges.size() - 1;
+		for (int i = last_stage; i >= tStageOffset; i--)
 		{
-			for(Enumeration<LogicalWhen> e = gating_whens.elements(); e.hasMoreElements();)
+			// Reflect uses of this stage.
+			for (; (use_index >= 0) && (usedBitRanges.get(use_index).getStageValue() >= i); use_index--)
 			{
-						//gets a signal from signals list in the pipeline
-				temp_when = e.nextElement();
-				
-				
-				
+				LogicalWhen use_when = getUseGatingWhen(usedBitRanges.get(use_index));
+				if (use_index == usedBitRanges.size() - 1)
+				{
+					common_when = use_when;
+				}
+				else if (use_when != common_when)
+				{
+					common = false;
+				}
 			}
+			whens[i - tStageOffset] =
+				!use_gating ? assigned_when :
+				(common && (common_when != null) && isGatingAvailable(common_when, i)) ? common_when : null;
+		}
+		for (int i = 0; i < whens.length; i++)
+		{
+			tStages.add(new TransitionStage(this, tStageOffset + i, whens[i]));
 		}
 		
-		
-		for(int i = ungatedStages.size() - 1; i >= 0; i--)
+		// Stage as usual.
+		for (UsedBitRange uR : usedBitRanges)
 		{
-			temp_stage = ungatedStages.get(i);
-			
-			
+			generateFlops(aR, uR);
 		}
 	}
 	
+	// The when condition of the given use that can gate the staging of this signal (see generateFlopsNew()), or null.
+	private LogicalWhen getUseGatingWhen(UsedBitRange use)
+	{
+		if (use.isGater() ||
+		    (use.getIdentifier() == null) ||
+		    ((use.getAlignment() != null) && (!use.getAlignment().isEvaluated() || (use.getAlignment().getValue() != 0))) ||
+		    (use.getAssignment().getLogicalBehScope() != getBehScope()))
+		{
+			return null;
+		}
+		// The outermost when condition, as for assignments.
+		LogicalWhen when = use.getLogicalWhen();
+		while ((when != null) && (when.getBranchWhen() != null))
+		{
+			when = when.getBranchWhen();
+		}
+		if ((when == null) ||
+		    (when.getGatingPipeSignal().getBehScope() != getBehScope()) ||
+		    (when.getGatingPipeSignal().getIdentifier().getType() != IdentifierType.PIPE_SIG))
+		{
+			return null;
+		}
+		return when;
+	}
+	
+	// Whether the signal of the given when condition is assigned in time to gate the staging into dest_stage (for which it
+	// is consumed in dest_stage - 2).
+	private static boolean isGatingAvailable(LogicalWhen when, int dest_stage)
+	{
+		Vector<BitRange> gater_assignments = when.getGatingPipeSignal().assignedBitRanges;
+		return (gater_assignments.size() == 1) &&
+		       (gater_assignments.firstElement().getStageValue() <= dest_stage - 2);
+	}
+	
 	//Prints a new line in the system verilog declarations file
 	public void printSVdeclaration(String line)
 	{
@@ -703,7 +784,7 @@ public class PipeSignal
 	//Older methodology. Generates transition stages between two BitRanges
 	public void generateFlops(BitRange aR, UsedBitRange uR)
 	{	
-		String thisType = "FLOP1";  // TODO: Fix this.
+		StagingType thisType = StagingType.FLOP1;
 		
 		//TODO adjust tStageOffset to make compatible with multiple assigned ranges
 		tStageOffset = aR.getStageValue() + 1;
@@ -747,7 +828,7 @@ public class PipeSignal
 				thisType = tStages.get(i - tStageOffset).addRange(end_bit_ind, start_bit_ind, false, thisType);
 				i++;	
 				
-				if(thisType == "FLOP1")
+				if(thisType == StagingType.FLOP1)
 					continue;
 				
 				//adds new transition stage when necessary
@@ -759,7 +840,7 @@ public class PipeSignal
 			//else if(i == uR.getStageValue())
 			else if(i == lastStage)
 			{
-				tStages.get(i - tStageOffset).addRange(end_bit_ind, start_bit_ind, true, "LATCH");
+				tStages.get(i - tStageOffset).addRange(end_bit_ind, start_bit_ind, true, StagingType.LATCH);
 				i++;
 			}
 		}		
@@ -852,6 +933,16 @@ public class PipeSignal
 		BitRange assigned_range = assignedBitRanges.firstElement();
 		if (assigned_range.getEndBitIndex() == null || assigned_range.getStartBitIndex() == null) ActiveParseContext.Report(0, Severity.BUG, "BUG", "null min/max bit index for signal " + toString());
 		
+		if (pruned)
+		{
+			// Dead.  No staging.
+			if (usedBitRanges.size() <= 0)
+			{
+				reportUnused();
+			}
+			return;
+		}
+		
 		if(usedBitRanges.size() > 0)
 		{
 			// Check use before assignment.
@@ -865,17 +956,29 @@ public class PipeSignal
 			{
 				first_used_bit_range.getParseContext().report(0, Severity.DEFERRED_ERROR, "EARLY-USE", "State signal " + toScopedString() + " is used in the same stage it is assigned.  This is not currently supported.");
 			}
-			for(int i = 0; i < usedBitRanges.size(); i++)
+			if (ActiveParseContext.GetOptions().newStaging())
+			{
+				generateFlopsNew();
+			}
+			else
 			{
-				generateFlops(assigned_range, usedBitRanges.get(i));
+				for(int i = 0; i < usedBitRanges.size(); i++)
+				{
+					generateFlops(assigned_range, usedBitRanges.get(i));
+				}
 			}
 		}
 		else
 		{
-			getParseContext().report(0, Severity.WARNING, "UNUSED-SIG", "Signal " + toScopedString() + " is assigned but never used.\nTo silence this message use \"`BOGUS_USE(" + toString() + ")");
+			reportUnused();
 		}
 	}
 	
+	private void reportUnused()
+	{
+		getParseContext().report(0, Severity.WARNING, "UNUSED-SIG", "Signal " + toScopedString() + " is assigned but never used.\nTo silence this message use \"`BOGUS_USE(" + toString() + ")");
+	}
+	
 	public void declareSvSignal(BitRange startingBitRange, int stage)
 	{
 		// TODO: Currently the declaration is entirely packed.  This is probably not optimal for simulation.
@@ -898,12 +1001,51 @@ public class PipeSignal
 		                    // Bit range
 		                    bit_range_str +
 		                    // Signal name
-		                    Main.projSpecific.svSignalName(this, stage) +
+		                    ActiveParseContext.GetProjSpecific().svSignalName(this, stage) +
 		                    // Move scope_ranges_str here to make scopes unpacked.
 		                    ";"
 		                  );		
 	}
 	
+	/**
+	 * Count the staged (flop and latch) bits of this signal.  Each stage carries only the bits that are used in that stage or
+	 * later, so this is compared with the bits of the same staging elements at the full assigned width.  (Bits are per
+	 * instance of the scope.)
+	 * 
+	 * @return {staged bits, full-width bits, staged bits with gated clocks}, or null if a bit range cannot be evaluated.
+	 */
+	public long[] countStagedBits()
+	{
+		long[] ret = new long[3];
+		if (!getIdentifier().getType().isStagedSig() || tStages.isEmpty())
+		{
+			return ret;
+		}
+		int full_width = getSingleAssignedRange().getWidth();
+		if (full_width < 0)
+		{
+			return null;
+		}
+		for (TransitionStage stage : tStages)
+		{
+			int width = stage.getStagedWidth();
+			if (width < 0)
+			{
+				return null;
+			}
+			if (width > 0)
+			{
+				ret[0] += width;
+				ret[1] += full_width;
+				if (stage.getWhen() != null)
+				{
+					ret[2] += width;
+				}
+			}
+		}
+		return ret;
+	}
+	
 	// Prints used node declarations and staging elements defined in the tStages vector.
 	public void declareStaging()
 	{
@@ -968,7 +1110,7 @@ public class PipeSignal
 	public String mySvClockSignalName(int dest_stage)
 	{
 		// TODO: Check that this is an enable signal.
-		return Main.projSpecific.svClockSignalName(this, dest_stage);
+		return ActiveParseContext.GetProjSpecific().svClockSignalName(this, dest_stage);
 	}
 	*/
 	
@@ -989,12 +1131,20 @@ public class PipeSignal
 	public String svProducingClockSignalName(int dest_stage)
 	{
 		// TODO: Currently assume consistent gating for all assignments of this signal.
-		// TODO: Currently gating is based on assignment condition, not uses, so there is further optimization opportunity.
 		// Determine gated clock.
-		LogicalWhen when = getGatingWhen();
-		return (when == null)                                     ? Main.projSpecific.svUngatedClockName(Main.isEven(dest_stage)) :
-		       (identifier.getType() == IdentifierType.STATE_SIG) ? Main.projSpecific.svClockSignalName(null, when.getGatingPipeSignal(), when.getGatingPipeSignal().getBehScope(), dest_stage) :
-		    	                                                    Main.projSpecific.svClockSignalName(when.getGatingPipeSignal(), null, when.getGatingPipeSignal().getBehScope(), dest_stage);
+		return svProducingClockSignalName(getGatingWhen(), dest_stage);
+	}
+	
+	/**
+	 * @param when The when condition gating the staging, or null.
+	 * @param dest_stage
+	 * @return SV clock signal name used to stage this PipeSignal to dest_stage under the given when condition.
+	 */
+	public String svProducingClockSignalName(LogicalWhen when, int dest_stage)
+	{
+		return (when == null)                                     ? ActiveParseContext.GetProjSpecific().svUngatedClockName(Main.isEven(dest_stage)) :
+		       (identifier.getType() == IdentifierType.STATE_SIG) ? ActiveParseContext.GetProjSpecific().svClockSignalName(null, when.getGatingPipeSignal(), when.getGatingPipeSignal().getBehScope(), dest_stage) :
+		    	                                                    ActiveParseContext.GetProjSpecific().svClockSignalName(when.getGatingPipeSignal(), null, when.getGatingPipeSignal().getBehScope(), dest_stage);
 	}
 	
 	/**
@@ -1003,7 +1153,17 @@ public class PipeSignal
 	 */
 	public String svProducingClockReference(int dest_stage)
 	{
-		return svProducingClockSignalName(dest_stage) + ((getGatingWhen() == null) ? "" : getGatingWhen().getGatingPipeSignal().getBehScope().getSvIndexStr());
+		return svProducingClockReference(getGatingWhen(), dest_stage);
+	}
+	
+	/**
+	 * @param when The when condition gating the staging, or null.
+	 * @param dest_stage
+	 * @return SV reference to clock signal used to stage this PipeSignal to dest_stage under the given when condition.
+	 */
+	public String svProducingClockReference(LogicalWhen when, int dest_stage)
+	{
+		return svProducingClockSignalName(when, dest_stage) + ((when == null) ? "" : when.getGatingPipeSignal().getBehScope().getSvIndexStr());
 	}
 	
 	/**
@@ -1012,7 +1172,7 @@ public class PipeSignal
 	 */
 	public String svSignalName(int stage)
 	{
-		return Main.projSpecific.svSignalName(this, stage);
+		return ActiveParseContext.GetProjSpecific().svSignalName(this, stage);
 	}
 	
 	/**
@@ -1080,8 +1240,8 @@ public class PipeSignal
 		
 		for(int i = 0; i < ungatedStages.size(); i++)
 		{	
-			temp_assigned_ranges = ungatedStages.get(i).getAssignedBitRanges_ofSignal(getLabel());
-			temp_used_ranges = ungatedStages.get(i).getUsedBitRanges_ofSignal(getLabel());
+			temp_assigned_ranges = ungatedStages.getAt(i).getAssignedBitRanges_ofSignal(identifier);
+			temp_used_ranges = ungatedStages.getAt(i).getUsedBitRanges_ofSignal(identifier);
 			
 			if(temp_assigned_ranges != null)
 			for(int j = 0; j < temp_assigned_ranges.size(); j++)
@@ -1095,7 +1255,7 @@ public class PipeSignal
 				used_ranges += "U" + temp_used_ranges.get(j).toString() + ", ";
 			}
 						
-			System.out.println("@" + ungatedStages.get(i).getValue() + ": " + assigned_ranges + used_ranges);
+			System.out.println("@" + ungatedStages.getAt(i).getValue() + ": " + assigned_ranges + used_ranges);
 			
 			assigned_ranges = "";
 			used_ranges = "";
@@ -1107,7 +1267,7 @@ public class PipeSignal
 			{
 						//gets a signal from signals list in the pipeline
 				temp_when = e.nextElement();
-				temp_when.printLogicalHierchy(getLabel(), 0);	
+				temp_when.printLogicalHierchy(identifier, 0);	
 			}
 		}
 		
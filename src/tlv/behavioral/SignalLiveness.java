@@ -0,0 +1,239 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.behavioral;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Vector;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import tlv.behavioral.range.BitRange;
+import tlv.behavioral.range.UsedBitRange;
+import tlv.behavioral.range.WildcardedSigRef;
+import tlv.parse.Assignment;
+import tlv.parse.NodeType;
+import tlv.parse.ParseBranch;
+import tlv.parse.ParseWhen;
+import tlv.parse.identifier.Identifier;
+
+
+/**
+ * Dead-signal elimination (-prune).  A signal is live if it reaches a sink through the assignment graph.  Sinks are
+ * statements with effects other than assigning pipe signals (see Assignment.isSink()): assignments of SV signals and
+ * state signals, `BOGUS_USE(..) and other macros, \always_comb, \SV_plus, etc.  Through a wildcarded ($ANY) assignment,
+ * liveness flows signal-by-signal from each pulled signal to the signals it is pulled from.  A live statement's when
+ * conditions are live, as are all the signals it assigns (which must be declared).  Signals referenced by their SV names
+ * in \SV regions are also live (and retain all of their uses, since SVGen cannot tell which stages are needed).
+ * 
+ * Must follow findNonLocalAssignments() and precede fixWildcardedSv() and staging.
+ */
+public class SignalLiveness
+{
+	private HashSet<PipeSignal> live_signals = new HashSet<PipeSignal>();
+	private HashSet<Assignment> live_assignments = new HashSet<Assignment>();
+	private HashSet<UsedBitRange> live_uses = new HashSet<UsedBitRange>();
+	private Vector<PipeSignal> worklist = new Vector<PipeSignal>();
+	private Vector<PipeSignal> signals = new Vector<PipeSignal>();  // All staged signals of the hierarchy (other than $ANY).
+	private HashSet<PipeSignal> sv_referenced = new HashSet<PipeSignal>();  // Signals referenced by \SV regions.
+	
+	// Matches an SV identifier.
+	private static final Pattern SV_IDENTIFIER_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+	
+	
+	/**
+	 * Determine the live signals of the given scope hierarchy.
+	 * 
+	 * @param sv_ The text of the \SV regions of the file.
+	 */
+	public SignalLiveness(LogicalBehScope top_scope, String sv_)
+	{
+		addSignals(top_scope);
+		
+		// Signals referenced by SV code are live.
+		HashSet<String> identifiers = new HashSet<String>();
+		for (Matcher m = SV_IDENTIFIER_PATTERN.matcher(sv_); m.find(); )
+		{
+			identifiers.add(m.group());
+		}
+		for (PipeSignal sig: signals)
+		{
+			if (sig.isSvReferenced(identifiers))
+			{
+				sv_referenced.add(sig);
+				markSignal(sig);
+			}
+		}
+		
+		// Seed with the sinks.
+		for (PipeSignal sig: signals)
+		{
+			for (Iterator<UsedBitRange> itr = sig.getUsedRangesIterator(); itr.hasNext(); )
+			{
+				markSink(itr.next());
+			}
+			for (Iterator<BitRange> itr = sig.getAssignedRangesIterator(); itr.hasNext(); )
+			{
+				markSink(itr.next());
+			}
+		}
+		
+		// Propagate from live signals to their producers.
+		while (!worklist.isEmpty())
+		{
+			PipeSignal sig = worklist.remove(worklist.size() - 1);
+			for (Iterator<BitRange> itr = sig.getAssignedRangesIterator(); itr.hasNext(); )
+			{
+				BitRange range = itr.next();
+				Assignment assignment = range.getAssignment();
+				if (assignment.isPulled(range))
+				{
+					markPulled(assignment, range);
+				}
+				markAssignment(assignment);
+			}
+		}
+	}
+	
+	// Add the signals of the given scope hierarchy to signals.
+	private void addSignals(LogicalBehScope scope)
+	{
+		for (PipeSignal sig: scope.getSignals().values())
+		{
+			if (sig.getIdentifier().isStagedSigType() && (sig.getIdentifier() != Identifier.any_sig_keyword))
+			{
+				signals.add(sig);
+			}
+		}
+		for (LogicalBehScope child: scope.children.values())
+		{
+			addSignals(child);
+		}
+	}
+	
+	private void markSink(BitRange range)
+	{
+		if (range.getIdentifier() != null)
+		{
+			Assignment assignment = range.getAssignment();
+			if (assignment.isSink())
+			{
+				markAssignment(assignment);
+			}
+		}
+	}
+	
+	private void markSignal(PipeSignal sig)
+	{
+		if (sig.getIdentifier().isStagedSigType() && (sig.getIdentifier() != Identifier.any_sig_keyword) && live_signals.add(sig))
+		{
+			worklist.add(sig);
+		}
+	}
+	
+	private void markUse(UsedBitRange use)
+	{
+		live_uses.add(use);
+		markSignal(use.getPipeSignal());
+	}
+	
+	// Mark the uses through which a pulled signal (assigned range) of a wildcarded assignment is pulled.
+	private void markPulled(Assignment assignment, BitRange range)
+	{
+		Identifier ident = range.getPipeSignal().getIdentifier();
+		for (Assignment.ContainedBitRange wildcarded_use: assignment.getWildcardedUsedRanges())
+		{
+			BitRange use = ((WildcardedSigRef)wildcarded_use.getBitRange()).getSigRangeMap().get(ident);
+			if (use != null)
+			{
+				markUse((UsedBitRange)use);
+			}
+		}
+	}
+	
+	// Mark a live statement's uses (other than pulled uses), assigned signals (other than pulled signals), and when conditions.
+	private void markAssignment(Assignment assignment)
+	{
+		if (!live_assignments.add(assignment))
+		{
+			return;
+		}
+		for (Assignment.ContainedBitRange used: assignment.getUsedRanges())
+		{
+			if (!assignment.isPulled(used.getBitRange()))
+			{
+				markUse(used.getUsedBitRange());
+			}
+		}
+		for (Assignment.ContainedBitRange assigned: assignment.getAssignedRanges())
+		{
+			BitRange range = assigned.getBitRange();
+			if (!(range instanceof WildcardedSigRef) && !assignment.isPulled(range))
+			{
+				markSignal(range.getPipeSignal());
+			}
+		}
+		for (ParseBranch when = assignment.getParseBranch_ofType(NodeType.WHEN); when != null; when = when.getParseBranch_ofType(NodeType.WHEN))
+		{
+			markSignal(((ParseWhen)when).getLogicalWhen().getGatingPipeSignal());
+		}
+	}
+	
+	/**
+	 * Prune the dead signals and statements, and drop uses by dead statements from live signals.
+	 * @return The number of signals pruned.
+	 */
+	public int prune()
+	{
+		int cnt = 0;
+		for (PipeSignal sig: signals)
+		{
+			if (live_signals.contains(sig))
+			{
+				if (!sv_referenced.contains(sig))
+				{
+					sig.retainUsedRanges(live_uses);
+				}
+			}
+			else
+			{
+				sig.prune();
+				cnt++;
+				for (Iterator<BitRange> itr = sig.getAssignedRangesIterator(); itr.hasNext(); )
+				{
+					Assignment assignment = itr.next().getAssignment();
+					if (!live_assignments.contains(assignment) && !assignment.isPruned())
+					{
+						assignment.prune();
+					}
+				}
+			}
+		}
+		return cnt;
+	}
+}
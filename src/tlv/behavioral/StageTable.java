@@ -0,0 +1,136 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.behavioral;
+
+/**
+ * A table of LogicalStages indexed by stage value.  The table covers a contiguous range of stage values (which may be
+ * negative), and grows at either end, filling gaps with placeholder LogicalStages.  Lookup by value is a single array
+ * index, and growth is amortized constant time per stage.
+ */
+class StageTable
+{
+	private LogicalStage [] stages = new LogicalStage[8];
+	private int head = 0;         // Index in stages of the first stage.
+	private int size = 0;         // Number of stages.
+	private int first_value = 0;  // Stage value of the first stage.
+	
+	
+	public int size()
+	{
+		return size;
+	}
+	
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	/**
+	 * @param index_ Position in the table, from 0 to size() - 1.
+	 * @return The LogicalStage at the given position.
+	 */
+	public LogicalStage getAt(int index_)
+	{
+		if (index_ < 0 || index_ >= size) throw new IndexOutOfBoundsException("Stage index " + index_ + " of " + size);
+		return stages[head + index_];
+	}
+	
+	/**
+	 * @param value_ Stage value.
+	 * @return The LogicalStage with the given stage value, or null if the table does not cover it.
+	 */
+	public LogicalStage get(int value_)
+	{
+		int index = value_ - first_value;
+		return (index < 0 || index >= size) ? null : stages[head + index];
+	}
+	
+	/**
+	 * Adds a LogicalStage, if its stage value is not already covered.  Stage values between the table's range and the new
+	 * stage are filled with new placeholder LogicalStages.
+	 * 
+	 * @param logical_stage_ LogicalStage to add.
+	 * @param gap_parent_ Parent of placeholder LogicalStages.
+	 * @return The LogicalStage in the table with the stage value of logical_stage_ (which is logical_stage_ unless the
+	 *         value was already covered).
+	 */
+	public LogicalStage add(LogicalStage logical_stage_, LogicalBranch gap_parent_)
+	{
+		int value = logical_stage_.getValue();
+		if (size == 0)
+		{
+			head = stages.length / 2;
+			first_value = value;
+			stages[head] = logical_stage_;
+			size = 1;
+		}
+		else if (value < first_value)
+		{
+			int grow = first_value - value;
+			if (head < grow)
+			{
+				realloc(grow, 0);
+			}
+			head -= grow;
+			size += grow;
+			first_value = value;
+			stages[head] = logical_stage_;
+			for (int i = 1; i < grow; i++)
+			{
+				stages[head + i] = new LogicalStage(value + i, gap_parent_);
+			}
+		}
+		else if (value >= first_value + size)
+		{
+			int grow = value - (first_value + size) + 1;
+			if (head + size + grow > stages.length)
+			{
+				realloc(0, grow);
+			}
+			for (int v = first_value + size; v < value; v++)
+			{
+				stages[head + size++] = new LogicalStage(v, gap_parent_);
+			}
+			stages[head + size++] = logical_stage_;
+		}
+		return get(value);
+	}
+	
+	// Reallocates the array with room for at least the given number of additional stages before and after.  Spare
+	// capacity goes to the end that is growing.
+	private void realloc(int before_, int after_)
+	{
+		int capacity = Math.max(stages.length * 2, size + before_ + after_);
+		int spare = capacity - size - before_ - after_;
+		int new_head = before_ + ((before_ > 0) ? spare : 0);
+		LogicalStage [] new_stages = new LogicalStage[capacity];
+		System.arraycopy(stages, head, new_stages, new_head, size);
+		stages = new_stages;
+		head = new_head;
+	}
+}
@@ -27,14 +27,16 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package tlv.behavioral;
 
-import tlv.Main;
 import tlv.parse.*;
 import tlv.parse.identifier.*;
 import tlv.behavioral.range.*;
 import tlv.config.IdentifierType;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.TreeMap;
 import java.util.Vector;
@@ -45,6 +47,10 @@ import javax.lang.model.util.Elements;
  * A range within it can either be defined as LATCH, FLOP1, or FLOP2.
  * FLOP1s are ignored when the staging elements get printed in the declarations file.
  *
+ * Ranges are kept as disjoint, non-adjacent intervals keyed by evaluated start bit, so each merge is O(log n).  A range
+ * with a bound that cannot be evaluated (or a single-bit signal's null bounds) overlaps any other, and is kept as the
+ * stage's only range.  (PipeSignal.generateFlops(..) uses the assigned bound for all ranges of the signal in this case.)
+ *
  * With the new methodology this class would be completely eliminated and its functionality would be
  * be moved into LogicalStage class.
  * 
@@ -52,77 +58,120 @@ import javax.lang.model.util.Elements;
 class TransitionStage
 {
 	protected PipeSignal pipesignal;
-	protected Vector <TransitionRange>  ranges = new Vector<TransitionRange> (0,0);
+	// Ranges with evaluated bounds, keyed by start bit value.
+	protected TreeMap <Integer, TransitionRange> ranges = new TreeMap<Integer, TransitionRange>();
+	// The single range of this stage if any range has bounds that cannot be evaluated, in which case ranges is empty.
+	protected TransitionRange unbounded_range = null;
+	// The when condition gating the clock of this stage, or null if ungated.
+	private LogicalWhen when;
+	// Whether the use of the gating signal implied by this stage has been added.
+	private boolean gating_use_added = false;
 	
 	protected int stageNumber;
 	
+	/**
+	 * A stage gated by the when condition of the signal's assignment.
+	 */
 	public TransitionStage(PipeSignal pipesignal_, int stage_number_)
+	{
+		this(pipesignal_, stage_number_, pipesignal_.getGatingWhen());
+	}
+	
+	/**
+	 * A stage gated by the given when condition (or ungated if null).
+	 */
+	public TransitionStage(PipeSignal pipesignal_, int stage_number_, LogicalWhen when_)
 	{
 		pipesignal = pipesignal_;
 		stageNumber = stage_number_;
+		when = when_;
 	}
 	
-	//This method adds a new range into the transition stage ranges list.
-	//addRange will return the type of the last added range. The type can either be FLOP1(intermediate), FLOP2, or LATCH
-	//This method might add a use of a gater signal.
-	public String addRange(Expression endIndex, Expression startIndex, boolean anchor, String type)
+	public LogicalWhen getWhen()
 	{
-		Expression lowestStartBit = null;
-		Expression highestEndBit = null;
-		
-		boolean anchorFlag;
-
-		int i = 0;
-		for(; i < ranges.size(); i++)
+		return when;
+	}
+	
+	private static boolean isBounded(Expression end_index_, Expression start_index_)
+	{
+		return end_index_ != null && start_index_ != null && end_index_.isEvaluated() && start_index_.isEvaluated();
+	}
+	
+	// The ranges of this stage, in bit order.
+	protected Collection<TransitionRange> getRanges()
+	{
+		if (unbounded_range != null)
+			return Collections.singletonList(unbounded_range);
+		return ranges.values();
+	}
+	
+	// Removes and returns the first range (in bit order) that overlaps or abuts the given one, or null if there is none.
+	// A range whose bounds are not both evaluated overlaps any other.
+	private TransitionRange removeFirstOverlapping(Expression end_index_, Expression start_index_)
+	{
+		TransitionRange ret = unbounded_range;
+		if (ret != null)
 		{
-			if(anchor == true || ranges.get(i).isAnchored() == true)
-				anchorFlag = true;
-			else
-				anchorFlag = false;
-
-
-			if(Expression.isLesser(endIndex, ranges.get(i).getStartBitIndex()) > 1 && Expression.isGreater(ranges.get(i).getStartBitIndex(), endIndex) > 1)
-			{
-				ranges.insertElementAt(new TransitionRange(pipesignal, endIndex, startIndex, anchor, type), i);
-				lowestStartBit = startIndex;
-				
-				break;
-			}
-			else if((Expression.isLesser(startIndex, ranges.get(i).getEndBitIndex()) >= -1 || Expression.isGreater(ranges.get(i).getEndBitIndex(), startIndex) >= -1) 
-				&& ( Expression.isGreater(endIndex, ranges.get(i).getStartBitIndex()) >= -1 || Expression.isLesser( ranges.get(i).getStartBitIndex(), endIndex) >= -1))
+			unbounded_range = null;
+			return ret;
+		}
+		Map.Entry<Integer, TransitionRange> entry;
+		if (!isBounded(end_index_, start_index_))
+		{
+			entry = ranges.firstEntry();
+		}
+		else
+		{
+			int start = start_index_.getValue();
+			entry = ranges.lowerEntry(start);
+			if ((entry == null) || (entry.getValue().getEndBitIndex().getValue() < start - 1))
 			{
-				if(Expression.isLesser(startIndex, ranges.get(i).getStartBitIndex()) > 0)
-					lowestStartBit = startIndex;
-				else
-					lowestStartBit = ranges.get(i).getStartBitIndex();
-					
-				if(Expression.isGreater(endIndex, ranges.get(i).getEndBitIndex()) >  0)
-					highestEndBit = endIndex;
-				else
-					highestEndBit = ranges.get(i).getEndBitIndex();
-					
-				if(anchorFlag && ranges.get(i).getType() == "LATCH")
-					type = "LATCH";
-					
-				ranges.remove(i);
-					
-				addRange(highestEndBit, lowestStartBit, anchorFlag, type);
-				
-				break;
+				entry = ranges.ceilingEntry(start);
+				if ((entry != null) && (entry.getKey() > end_index_.getValue() + 1))
+					entry = null;
 			}
 		}
-		if (i >= ranges.size())
+		if (entry == null)
+			return null;
+		ranges.remove(entry.getKey());
+		return entry.getValue();
+	}
+	
+	//This method adds a new range into the transition stage ranges, merging it with the ranges it overlaps or abuts.
+	//addRange will return the type for the next stage, which is FLOP2 following FLOP1(intermediate), and FLOP1 otherwise.
+	//A merged range takes the given type, or LATCH if it absorbs a LATCH and either is anchored.
+	//This method might add a use of a gater signal.
+	public StagingType addRange(Expression endIndex, Expression startIndex, boolean anchor, StagingType type)
+	{
+		// Merge with the first range overlapping or abutting this one, in bit order, until there is none.
+		StagingType ret_type = null;  // The type following the first merge, which determines the return value.
+		TransitionRange range;
+		while ((range = removeFirstOverlapping(endIndex, startIndex)) != null)
 		{
-			// Not added yet (did not break out of loop).  Add new range.
-			ranges.add(new TransitionRange(pipesignal, endIndex, startIndex, anchor, type));	
+			anchor = anchor || range.isAnchored();
+			if (anchor && range.getType() == StagingType.LATCH)
+				type = StagingType.LATCH;
+			if (ret_type == null)
+				ret_type = type;
+			
+			if (Expression.isLesser(startIndex, range.getStartBitIndex()) <= 0)
+				startIndex = range.getStartBitIndex();
+			if (Expression.isGreater(endIndex, range.getEndBitIndex()) <= 0)
+				endIndex = range.getEndBitIndex();
 		}
+		if (ret_type == null)
+			ret_type = type;
 		
-		// If this signal is under a when condition, this staging might imply a use of the condition signal.  Create such uses.
-		LogicalWhen when = pipesignal.getGatingWhen();
+		TransitionRange merged = new TransitionRange(pipesignal, endIndex, startIndex, anchor, type);
+		if (isBounded(endIndex, startIndex))
+			ranges.put(startIndex.getValue(), merged);
+		else
+			unbounded_range = merged;
+		
+		// If this stage is gated by a when condition, this staging might imply a use of the condition signal.  Create such a use.
 		if ((when != null) &&       // Gated &&
-			(type == "FLOP2" ||     // there's a flop or latch in this stage
-			 type == "LATCH")
-			   )
+			type.isStaged() &&      // there's a flop or latch in this stage &&
+			!gating_use_added)      // the use is not yet added
 		{
 			PipeSignal gating_sig = when.getGatingPipeSignal();
 
@@ -131,27 +180,40 @@ class TransitionStage
 			//       Though consider as well that there is an issue of what's legal TLV code.  We should accept these uses prior to assignments
 			//       and clock generation should avoid gating in that case.
 			// We assume the consumed stage for a flop is the cycle prior for both flops and latches.
-			UsedBitRange range = new UsedBitRange(stageNumber - 2, gating_sig);
-			gating_sig.addUsedRange(range);
+			UsedBitRange gating_range = new UsedBitRange(stageNumber - 2, gating_sig);
+			ParallelStaging.addStagingUse(gating_sig, gating_range);
+			gating_use_added = true;
 		}
 		
-		
-		
-		if(type == "FLOP1")   // TODO: UGLY!!!  This == comparison shouldn't even work!!!  Should need .equals().
-			return "FLOP2";
-		else
-			return "FLOP1";
+		return ret_type.next();
 	}
 	
 	
+	// The number of bits staged (by a flop or latch) into this stage, or -1 if the width of a staged range cannot be evaluated.
+	int getStagedWidth()
+	{
+		int width = 0;
+		for (TransitionRange range : getRanges())
+		{
+			if (range.getType().isStaged())
+			{
+				int range_width = range.getWidth();
+				if (range_width < 0)
+					return -1;
+				width += range_width;
+			}
+		}
+		return width;
+	}
+	
 	public void printSignalDeclaration()
 	{
 		// TODO: I don't think this is legal SV if the bit range is incomplete and there is scope range, is it?
-		for(int i=0;i<ranges.size();i++)
+		for (TransitionRange range : getRanges())
 		{
-			if(ranges.get(i).getType() == "FLOP2" || ranges.get(i).getType() == "LATCH")
+			if(range.getType().isStaged())
 			{
-				pipesignal.declareSvSignal(ranges.get(i), stageNumber);
+				pipesignal.declareSvSignal(range, stageNumber);
 			}
 		}
 	}
@@ -161,68 +223,90 @@ class TransitionStage
 	public void printSignalDeclarationSimplified()
 	{
 		// TODO: I don't think this is legal SV if the bit range is incomplete and there is scope range, is it?
-		for(int i=0;i<ranges.size();i++)
+		for (TransitionRange range : getRanges())
 		{
-			if(ranges.get(i).getType() == "FLOP2" || ranges.get(i).getType() == "LATCH")
+			if(range.getType().isStaged())
 			{
-				pipesignal.declareSvSignal(ranges.get(i), stageNumber);
+				pipesignal.declareSvSignal(range, stageNumber);
 			}
 		}
 	}
 
+	/**
+	 * Make the gated clock of this stage if it hasn't already been made, or find the equivalent clock it was merged into
+	 * (see SourceFile.canonicalClock(..)).
+	 * @return The clock staging this TransitionStage.
+	 */
+	private Clock makeClock()
+	{
+		String clock_name = pipesignal.svProducingClockSignalName(when, stageNumber);
+		PipeSignal gating_sig = when.getGatingPipeSignal();
+		LogicalBehScope gater_scope = gating_sig.getBehScope();
+		SourceFile file = pipesignal.getPipeline().getSourceFile();
+
+		TreeMap <String, Clock> clocks = gater_scope.clocks;
+		Clock clock = clocks.get(clock_name);
+		if (clock == null)
+		{
+			clock = file.getMergedClock(clock_name);
+		}
+		if (clock == null)
+		{
+			// This clock doesn't exist yet.  Create it.
+			if (pipesignal.getIdentifier().getType() == IdentifierType.STATE_SIG)
+			{
+				clock = new Clock(null, gating_sig, gater_scope, stageNumber);
+			} else
+			{
+				clock = new Clock(gating_sig, null, gater_scope, stageNumber);
+			}
+			Clock canonical = file.canonicalClock(clock);
+			if (canonical == clock)
+			{
+				clocks.put(clock_name, clock);
+			}
+			clock = canonical;
+		}
+		return clock;
+	}
+
 	//This method is used to print the staging flop or latch for this TransitionStage
 	public void printFlopOrLatch()
 	{
 		String used;
+		
+		// The clock is the same for all ranges.  Gated clocks are made (or found) for the first staged range.
+		String clock_ref = (when == null) ? pipesignal.svProducingClockReference(null, stageNumber) : null;
 
-		for(int i=0;i<ranges.size();i++)
+		for (TransitionRange range : getRanges())
 		{
-			//if(ranges.get(i).isAnchored() == true)
+			//if(range.isAnchored() == true)
 			//	used = "  //used";
 			//else
 				used = "";
 			
-			LogicalWhen when = pipesignal.getGatingWhen();
-			String clock_name = pipesignal.svProducingClockSignalName(stageNumber);
-			String clock_ref = pipesignal.svProducingClockReference(stageNumber);
-			if ((when != null) &&                        // Gated &&
-			    (ranges.get(i).getType() == "FLOP2" ||   // there's a flop or latch in this stage
-			     ranges.get(i).getType() == "LATCH")
+			if ((clock_ref == null) &&                  // Gated clock not yet made &&
+			    range.getType().isStaged()                 // there's a flop or latch in this stage
 			   )
 			{
-				PipeSignal gating_sig = when.getGatingPipeSignal();
-				LogicalBehScope gater_scope = gating_sig.getBehScope();
-
-				// Make the clock if it hasn't already been made.
-				TreeMap <String, Clock> clocks = gater_scope.clocks;
-				if (!clocks.containsKey(clock_name))
-				{
-					// This clock doesn't exist yet.  Create it.
-					if (pipesignal.getIdentifier().getType() == IdentifierType.STATE_SIG)
-					{
-						clocks.put(clock_name, new Clock(null, gating_sig, gater_scope, stageNumber));
-					} else
-					{
-						clocks.put(clock_name, new Clock(gating_sig, null, gater_scope, stageNumber));
-					}
-				}
+				clock_ref = makeClock().getSvReference();
 			}
 			
 			// TODO: Move to ProjSpecific.
-			String range_str = ranges.get(i).toStringUsage();
-			if(ranges.get(i).getType() == "FLOP2")
+			String range_str = range.toStringUsage();
+			if(range.getType() == StagingType.FLOP2)
 			{
 				pipesignal.printSVstaging(
-				    Main.projSpecific.makeFlop(
+				    ActiveParseContext.GetProjSpecific().makeFlop(
 					   pipesignal.svSignalReference(stageNumber)     + range_str,
 		               pipesignal.svSignalReference(stageNumber - 2) + range_str,
 		               clock_ref) +
 		            used);
 			}
-			else if(ranges.get(i).getType() == "LATCH")
+			else if(range.getType() == StagingType.LATCH)
 			{
 				pipesignal.printSVstaging(
-				    Main.projSpecific.makeLatch(
+				    ActiveParseContext.GetProjSpecific().makeLatch(
 				        pipesignal.svSignalReference(stageNumber)     + range_str,
 				        pipesignal.svSignalReference(stageNumber - 1) + range_str,
 				        clock_ref) +
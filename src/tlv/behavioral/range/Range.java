@@ -283,6 +283,20 @@ public class Range extends LogicalNode
 		return label;
 	}
     
+    /**
+     * Returns the number of bits in the range.  A range without a start index is a single bit.
+     * 
+     * @return the width, or -1 if the bounds cannot be evaluated
+     */
+    public int getWidth()
+	{
+		if(startBitIndex == null || endBitIndex == null)
+			return 1;
+		if(!startBitIndex.isEvaluated() || !endBitIndex.isEvaluated())
+			return -1;
+		return endBitIndex.getValue() - startBitIndex.getValue() + 1;
+	}
+    
     /**
      * Returns the Expression that defines the start index of the range
      * 
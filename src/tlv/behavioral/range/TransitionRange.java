@@ -37,10 +37,10 @@ public class TransitionRange extends BitRange
 	protected boolean anchored;
 	
 	//describes the transition type going into this bit range. (FLOP1, FLOP2 or LATCH)
-	protected String tType;
+	protected StagingType tType;
 	
     //Creates a BitRange with starting index of bStartIndex, and ending index of bEndIndex.
-    public TransitionRange(PipeSignal signal_,  Expression end_bit_index_, Expression start_bit_index_, boolean anchor, String t)
+    public TransitionRange(PipeSignal signal_,  Expression end_bit_index_, Expression start_bit_index_, boolean anchor, StagingType t)
     {
     	super(null, signal_, end_bit_index_, start_bit_index_);
     	anchored = anchor;
@@ -48,18 +48,18 @@ public class TransitionRange extends BitRange
     }
     
     //Creates a BitRange for a single bit at index bIndex
-    public TransitionRange(PipeSignal signal_, Expression bit_index_, boolean anchor, String t)
+    public TransitionRange(PipeSignal signal_, Expression bit_index_, boolean anchor, StagingType t)
     {
     	this(signal_, bit_index_, bit_index_, anchor, t);
     }
     
     //Creates a bit range for a single bit PipeSignal
-    public TransitionRange(PipeSignal signal_, boolean anchor, String t)
+    public TransitionRange(PipeSignal signal_, boolean anchor, StagingType t)
     {
     	this(signal_, null, anchor, t);
     }
     
-    public String getType()
+    public StagingType getType()
     {
     	return tType;
     }
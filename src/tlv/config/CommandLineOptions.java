@@ -115,13 +115,47 @@ class RawCommandLineOptions
 	protected boolean best_sv_arg;
 	protected boolean conversion_mode_arg;
 	protected boolean noline_arg;
+	// Batch mode.
+	protected String batch_arg = null;
+	protected int jobs_arg;
+	// Daemon mode.
+	protected boolean daemon_arg;
+	protected String daemon_file_arg = null;
+	// Translation cache.
+	protected String cache_arg = null;
+	protected long cache_mb_arg;
+	// Statistics.
+	protected boolean stats_arg;
+	protected boolean stats_json_arg;
+	// Parallel staging.
+	protected int staging_threads_arg;
+	// Staging report.
+	protected boolean staging_report_arg;
+	// Staging engine.
+	protected boolean new_staging_arg;
+	// Dead-signal elimination.
+	protected boolean prune_arg;
 	
 	protected List<String>  non_opt_args;
 	
+	protected boolean exit_on_error;  // Exit on bad args (vs. throwing IllegalArgumentException).
+	
 
 	
 	public RawCommandLineOptions(String[] args)
 	{
+		this(args, true);
+	}
+	
+	/**
+	 * @param args Command-line args.
+	 * @param exit_on_error_ Exit upon bad args or -h, as appropriate for the command line.  If false, IllegalArgumentException
+	 *                       is thrown instead, as appropriate for args received by the translation daemon.
+	 */
+	public RawCommandLineOptions(String[] args, boolean exit_on_error_)
+	{
+		exit_on_error = exit_on_error_;
+		
 		// Process arguments using joptsimple libs
 		OptionParser parser = new OptionParser();
 		OptionSpec<String> help_spec         = parser.accepts("h",     "show help.").withOptionalArg();
@@ -135,6 +169,17 @@ class RawCommandLineOptions
 		OptionSpecBuilder conversion_spec    = parser.accepts("conversion","Optimize output to support conversion.  Pipesignals can be mixed case, and (project-specific) SV signal name mapping should be optimized to preserve pipesignal names.");
 		OptionSpecBuilder noline_spec        = parser.accepts("noline","Disable `line directive in SV output.");
 		OptionSpecBuilder verbosity_spec     = parser.accepts("verbose", "Verbose output for debug");  // TODO: Want this to take an optional verbosity level argument (0-10).
+		OptionSpec<String> batch_spec        = parser.accepts("batch", "translate many files in one run.  Arg is a manifest file with one \"<input .tlv> [<output .vs>]\" pair per line (output as for -o).  Replaces -i/-o.").withRequiredArg().ofType( String.class );
+		OptionSpec<String> daemon_spec       = parser.accepts("daemon", "run as a translation server for bin/svgen.  Optional arg is the file in which to record the server's port and access token (default: ~/.svgen_daemon).").withOptionalArg().ofType( String.class );
+		OptionSpec<Integer> jobs_spec        = parser.accepts("j",     "number of worker threads for -batch.").withRequiredArg().ofType( Integer.class ).defaultsTo(Runtime.getRuntime().availableProcessors());
+		OptionSpec<String> cache_spec        = parser.accepts("cache", "directory of a cache of translation results.  Unchanged translations (same .tlv and \\source files, SVGen build, and options) are restored from the cache.").withRequiredArg().ofType( String.class );
+		OptionSpec<Long> cache_mb_spec       = parser.accepts("cachemb", "size limit for -cache in megabytes.  Least-recently-used results are evicted.").withRequiredArg().ofType( Long.class ).defaultsTo(1024L);
+		OptionSpecBuilder stats_spec         = parser.accepts("stats", "report time, CPU time, and allocation for each phase of translation, and design size counts.");
+		OptionSpecBuilder stats_json_spec    = parser.accepts("statsjson", "-stats, also written as JSON to <out>_stats.json.");
+		OptionSpec<Integer> staging_threads_spec = parser.accepts("stagingthreads", "number of threads with which to create the staging of behavioral scopes (0: serial).  Output is identical.").withRequiredArg().ofType( Integer.class ).defaultsTo(0);
+		OptionSpecBuilder staging_report_spec = parser.accepts("stagingreport", "report the staged (flop and latch) bits of each signal and scope, and the bits saved by staging only the bits used in or after each stage.");
+		OptionSpecBuilder new_staging_spec   = parser.accepts("newstaging", "stage signals with the newer engine (PipeSignal.generateFlopsNew()), which also gates staging by the when conditions of uses.  (For comparison with the default engine.)");
+		OptionSpecBuilder prune_spec         = parser.accepts("prune", "eliminate dead signals (those that do not reach an SV signal, state signal, or other statement without assigned pipe signals): drop their staging, declarations, assignment statements, and $ANY expansions.");
 		
 		// Bypass command line args, and use hard-coded ones.
 		if ((args.length == 1) &&
@@ -166,7 +211,7 @@ class RawCommandLineOptions
 			if(options.has(help_spec))
 			{
 				parser.printHelpOn(System.out);
-				System.exit(0);
+				fail(0, "Help requested.");
 			};
 			
 
@@ -206,14 +251,73 @@ class RawCommandLineOptions
 			noline_arg = options.has(noline_spec);
 
 			verbosity_level_arg = options.has(verbosity_spec) ? 10 : 0;
+			
+			if (options.has(batch_spec))
+			{
+				batch_arg = options.valueOf(batch_spec);
+			}
+			
+			jobs_arg = options.valueOf(jobs_spec);
+			
+			daemon_arg = options.has(daemon_spec);
+			if (options.hasArgument(daemon_spec))
+			{
+				daemon_file_arg = options.valueOf(daemon_spec);
+			}
+			
+			if (options.has(cache_spec))
+			{
+				cache_arg = options.valueOf(cache_spec);
+			}
+			cache_mb_arg = options.valueOf(cache_mb_spec);
+			
+			stats_json_arg = options.has(stats_json_spec);
+			stats_arg = options.has(stats_spec) || stats_json_arg;
+			
+			staging_threads_arg = options.valueOf(staging_threads_spec);
+			staging_report_arg = options.has(staging_report_spec);
+			new_staging_arg = options.has(new_staging_spec);
+			prune_arg = options.has(prune_spec);
+					}
+		catch (IllegalArgumentException e)
+		{
+			throw e;
+		}
+		catch (OptionException e)
+		{
+			// Unrecognized or malformed command-line args.  (OptionException.getMessage() requires a resource bundle that
+			// we do not ship, so build the message here.)
+			String message = "Bad command-line option(s) " + e.options() + " (" + e.getClass().getSimpleName() + ").";
+			if (exit_on_error)
+			{
+				System.err.println("Error: " + message);
+			}
+			fail(2, message);
 		}
 		catch (Exception e)
 		{
-			// TODO: Need better error handling here.  Unrecognized command-line args fall here.
-			e.printStackTrace();
-			System.exit(2);
+			// TODO: Need better error handling here.
+			if (exit_on_error)
+			{
+				e.printStackTrace();
+			}
+			fail(2, e.toString());
 		}
 	}
+	
+	/**
+	 * Exit with the given status, or, if !exit_on_error, throw IllegalArgumentException.
+	 * @param status
+	 * @param message Message for the exception.
+	 */
+	protected void fail(int status, String message)
+	{
+		if (exit_on_error)
+		{
+			System.exit(status);
+		}
+		throw new IllegalArgumentException(message);
+	}
 
 }
 
@@ -243,13 +347,43 @@ public class CommandLineOptions extends RawCommandLineOptions
 	public boolean conversionMode() {return conversion_mode_arg;}
 	public boolean noLine() {return noline_arg;}
 	public int verbosity() {return verbosity_level_arg;}
+	public File batchFile() {return (batch_arg == null) ? null : new File(filebase() + batch_arg);}
+	public int jobs() {return jobs_arg;}
+	public boolean daemon() {return daemon_arg;}
+	public File daemonFile() {return (daemon_file_arg == null) ? new File(System.getProperty("user.home"), ".svgen_daemon") : new File(daemon_file_arg);}
+	
+	public File cacheDir() {return (cache_arg == null) ? null : new File(cache_arg);}
+	public long cacheMegabytes() {return cache_mb_arg;}
+	public boolean stats() {return stats_arg;}
+	public boolean statsJson() {return stats_json_arg;}
+	public int stagingThreads() {return staging_threads_arg;}
+	public boolean stagingReport() {return staging_report_arg;}
+	public boolean newStaging() {return new_staging_arg;}
+	public boolean prune() {return prune_arg;}
+	
+	private String filebase() {return (filebase_arg == null) ? "" : filebase_arg;}
 	
 	public CommandLineOptions(String[] args)
 	{
-		super(args);
+		this(args, true);
+	}
+	
+	/**
+	 * @param args Command-line args.
+	 * @param exit_on_error_ See RawCommandLineOptions(String[], boolean).
+	 */
+	public CommandLineOptions(String[] args, boolean exit_on_error_)
+	{
+		super(args, exit_on_error_);
+		
+		// In batch mode, the file names come from the manifest, and in daemon mode, from each request.
+		if ((batch_arg != null) || daemon_arg)
+		{
+			return;
+		}
 		
 		// Process filename args.
-		String filebase = (filebase_arg == null) ? "" : filebase_arg;
+		String filebase = filebase();
 	
 		in_file_name = filebase;
 		if (in_file_arg != null)
@@ -263,7 +397,7 @@ public class CommandLineOptions extends RawCommandLineOptions
 			in_file_name += non_opt_args.get(0);
 		} else {
 			System.err.println("No input file given.");
-			System.exit(1);
+			fail(1, "No input file given.");
 		}
 
 		in_file = new File(in_file_name);
@@ -277,14 +411,31 @@ public class CommandLineOptions extends RawCommandLineOptions
 		} else {
 			out_file_name += out_file_arg;
 		};
+		
+		out_file = deriveOutFile(in_file, out_file_name);
+	}
+	
+	/**
+	 * Determine the output .vs file for an input file, as for the -o arg.
+	 * @param in_file_ The input .tlv file.
+	 * @param out_file_name_ The output file or path (ending in '/'), or null to use the path of in_file_.
+	 * @return The output file.
+	 */
+	public static File deriveOutFile(File in_file_, String out_file_name_)
+	{
+		if (out_file_name_ == null)
+		{
+			// Get file path from in_file.
+			String path = in_file_.getParent();
+			out_file_name_ = ((path == null) ? "" : path) + "/";
+		}
 		// Derive file name if a path ending in '/' is given.
-		char last_char = out_file_name.charAt(out_file_name.length() - 1);
+		char last_char = out_file_name_.charAt(out_file_name_.length() - 1);
 		if ((last_char == '/') ||
 			(last_char == '\\'))
 		{
-			out_file_name += SourceFile.stripFileExtension(in_file.getName()) + ".vs";
+			out_file_name_ += SourceFile.stripFileExtension(in_file_.getName()) + ".vs";
 		}
-		
-		out_file = new File(out_file_name);
+		return new File(out_file_name_);
 	}
 }
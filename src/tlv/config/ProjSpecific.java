@@ -88,16 +88,28 @@ public class ProjSpecific
 	
 	/**
 	 * Return the SV signal name corresponding to the given PipeSignal at the given stage.
+	 * Names are memoized in signal_.sv_names.
 	 * @param signal_
 	 * @param stage_number_
 	 * @return
 	 */
 	public String svSignalName(PipeSignal signal_, int stage_number_)
 	{
-		return signal_.getLabel() + (Main.command_line_options.conversionMode()
-		                               ? ""
-		                               : getSvScopeStr(signal_.getBehScope()) + "_"
-		                            ) + signalSuffix(signal_.getPipeline(), stage_number_);
+		String scope_str = getSvScopeStr(signal_.getBehScope());
+		if (signal_.sv_names == null)
+		{
+			signal_.sv_names = new SvNameCache();
+		}
+		String name = signal_.sv_names.get(scope_str, stage_number_);
+		if (name == null)
+		{
+			name = signal_.getLabel() + (ActiveParseContext.GetOptions().conversionMode()
+			                               ? ""
+			                               : scope_str + "_"
+			                            ) + signalSuffix(signal_.getPipeline(), stage_number_);
+			signal_.sv_names.put(scope_str, stage_number_, name);
+		}
+		return name;
 	}
 	
 	public String svUngatedClockName(boolean even_stage)
@@ -111,10 +123,24 @@ public class ProjSpecific
 		return Main.isOdd(stage) ? "L" : "H";
 	}
 	
+	// Two-digit stage suffixes, indexed by stage + 100 for negative stages, or stage.
+	private static final String [] stage_suffixes = new String[100];
+	static
+	{
+		for (int i = 0; i < stage_suffixes.length; i++)
+		{
+			stage_suffixes[i] = String.format("%02d", i);
+		}
+	}
+	
 	public String stageSuffix(int stage /*cyc*/)
 	{
-		ActiveParseContext.ReportIf((stage > 79) || (stage < -20), 0, Severity.FATAL_ERROR, "RANGE", "Project methodology does not permit a stage of " + stage);
-		return String.format("%02d", (stage < 0) ? (stage + 100) : stage);
+		if ((stage > 79) || (stage < -20))
+		{
+			ActiveParseContext.Report(0, Severity.FATAL_ERROR, "RANGE", "Project methodology does not permit a stage of " + stage);
+			return String.format("%02d", (stage < 0) ? (stage + 100) : stage);
+		}
+		return stage_suffixes[(stage < 0) ? (stage + 100) : stage];
 	}
 	
 	/**
@@ -137,6 +163,33 @@ public class ProjSpecific
 	 * @return The SV clock signal name.
 	 */
 	public String svClockSignalName(PipeSignal gater_sig, PipeSignal functional_gater_sig, LogicalBehScope scope, int dest_stage)
+	{
+		// Names of clocks with a single gater in the gater's scope (the only ones currently generated) are memoized in the gater's
+		// sv_clock_names or sv_functional_clock_names.
+		PipeSignal sig = (functional_gater_sig == null) ? gater_sig : (gater_sig == null) ? functional_gater_sig : null;
+		if ((sig == null) || (sig.getBehScope() != scope))
+		{
+			return makeClockSignalName(gater_sig, functional_gater_sig, scope, dest_stage);
+		}
+		
+		String scope_str = getSvScopeStr(scope);
+		if (sig.sv_clock_names == null)
+		{
+			sig.sv_clock_names = new SvNameCache();
+			sig.sv_functional_clock_names = new SvNameCache();
+		}
+		SvNameCache names = (sig == gater_sig) ? sig.sv_clock_names : sig.sv_functional_clock_names;
+		String name = names.get(scope_str, dest_stage);
+		if (name == null)
+		{
+			name = makeClockSignalName(gater_sig, functional_gater_sig, scope, dest_stage);
+			names.put(scope_str, dest_stage, name);
+		}
+		return name;
+	}
+	
+	// Generate the name for svClockSignalName(..).
+	protected String makeClockSignalName(PipeSignal gater_sig, PipeSignal functional_gater_sig, LogicalBehScope scope, int dest_stage)
 	{
 		String scope_suffix = "";
 		if (scope.getParent() != null)
@@ -220,4 +273,34 @@ public class ProjSpecific
 	public ProjSpecific()
 	{
 	}
+	
+	/**
+	 * @return True if the given "project" option names a ProjSpecific subclass (rather than a built-in project).
+	 */
+	public static boolean isClassName(String project_)
+	{
+		return (project_ != null) && (project_.indexOf('.') >= 0);
+	}
+	
+	/**
+	 * @return The project-specific behavior for the "project" option, or null if unknown.  The project may be the name of
+	 *         a ProjSpecific subclass on the classpath (with a public no-arg constructor), so projects need not be part of
+	 *         the release .jar.
+	 */
+	public static ProjSpecific forOptions(CommandLineOptions options_)
+	{
+		if (isClassName(options_.project()))
+		{
+			try
+			{
+				return Class.forName(options_.project()).asSubclass(ProjSpecific.class).getConstructor().newInstance();
+			}
+			catch (ReflectiveOperationException | ClassCastException e)
+			{
+				return null;
+			}
+		}
+		// TODO: Use "project" command line arg to pick from which tlv.config class to use.
+		return new ProjSpecific();
+	}
 }
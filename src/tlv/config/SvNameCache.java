@@ -0,0 +1,79 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.config;
+
+/**
+ * Memoized SV names of an object (a signal or a clock gater) by stage, for use by ProjSpecific.  Names are generated for a
+ * given SV scope string (ProjSpecific.getSvScopeStr(..)), and are discarded if the scope string changes.
+ */
+public class SvNameCache
+{
+	private String scope_str = null;       // The scope string of the names.
+	private String [] names = new String[4];
+	private int first_stage = 0;           // Stage of names[0].
+	
+	
+	/**
+	 * @return The name at the given stage, generated for the given scope string, or null.
+	 */
+	public String get(String scope_str_, int stage_)
+	{
+		int index = stage_ - first_stage;
+		return (scope_str_ != scope_str || index < 0 || index >= names.length) ? null : names[index];
+	}
+	
+	public void put(String scope_str_, int stage_, String name_)
+	{
+		if (scope_str_ != scope_str)
+		{
+			// Scope naming changed (or first name).
+			scope_str = scope_str_;
+			names = new String[4];
+			first_stage = stage_;
+		}
+		
+		// Grow names to cover stage_, with spare capacity in the direction of growth.
+		int index = stage_ - first_stage;
+		if (index < 0 || index >= names.length)
+		{
+			int last_stage = Math.max(first_stage + names.length - 1, stage_);
+			int new_length = names.length * 2;
+			while (new_length < last_stage - Math.min(first_stage, stage_) + 1)
+			{
+				new_length *= 2;
+			}
+			int new_first_stage = (index < 0) ? last_stage - new_length + 1 : first_stage;
+			String [] new_names = new String[new_length];
+			System.arraycopy(names, 0, new_names, first_stage - new_first_stage, names.length);
+			names = new_names;
+			first_stage = new_first_stage;
+			index = stage_ - first_stage;
+		}
+		names[index] = name_;
+	}
+}
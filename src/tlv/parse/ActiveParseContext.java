@@ -27,11 +27,17 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package tlv.parse;
 
+import java.io.IOException;
+import java.util.Vector;
+
 import tlv.Main;
+import tlv.config.CommandLineOptions;
+import tlv.config.ProjSpecific;
+import tlv.parse.identifier.IdentifierTable;
 import tlv.utilities.Severity;
 
 /**
- * Encapsulates the currently active context of parsing in a given thread (currently for the app).  This class can be interfaced via static methods as a
+ * Encapsulates the currently active context of parsing in a given thread.  This class can be interfaced via static methods as a
  * convenience.  Each static method accesses the one (thread's) ActiveParseContext and calls the corresponding non-static method.  So, ActiveParseContext.Set(...)
  * can be used as a shorthand for ActiveParseContext.get().set(...) or in place of passing around the ActiveParseContext.  These static methods are
  * (unconventionally) begun with an upper-case letter, with the same name as their non-static counterparts.
@@ -41,19 +47,69 @@ import tlv.utilities.Severity;
  */
 public class ActiveParseContext extends ParseContext
 {
-	static private ActiveParseContext context = new ActiveParseContext();  // The one instance of this class.  (Eventually, this could be per-thread.
-	static private ActiveParseContext head_context = null;
+	// The one instance of this class for each thread.  A thread that translates several files (in batch mode) replaces its
+	// instance for each file using reset(..).
+	static private ThreadLocal<ActiveParseContext> context = new ThreadLocal<ActiveParseContext>()
+	{
+		protected ActiveParseContext initialValue()
+		{
+			return new ActiveParseContext(true, null, null);
+		}
+	};
 	
 	protected int exit_status;  // The exit status for the program to return.
+	protected int error_count = 0;  // Number of errors reported (for the quick-and-dirty error limit in ParseContext).
+	private boolean exit_on_fatal;  // Fatal errors exit the program, vs. aborting only the current translation (by throwing AbortException).
+	private IdentifierTable identifier_table = null;  // The Identifiers of this translation (created on first use, after Identifier.init()).
+	private Vector<OutputFile> outputs = new Vector<OutputFile>();  // Output files of this translation, committed if the program exits.
+	
+	// The configuration of this translation.
+	private CommandLineOptions options;
+	private ProjSpecific proj_specific;
+	
+	private Vector<Diagnostic> diagnostics = new Vector<Diagnostic>();  // Reports of this translation, in order.
+	boolean print_reports = true;  // Reports are printed to System.err (as well as the error log).
+	
+	
+	/**
+	 * Thrown in place of exiting the program upon a fatal error for contexts that do not exit on fatal errors.
+	 * It aborts the translation associated with the context.
+	 */
+	public static class AbortException extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+		
+		public final int exit_status;
+		
+		public AbortException(int exit_status_)
+		{
+			super("Translation aborted with exit status " + exit_status_ + ".");
+			exit_status = exit_status_;
+		}
+	}
 	
 	
-	private ActiveParseContext()
+	private ActiveParseContext(boolean exit_on_fatal_, CommandLineOptions options_, ProjSpecific proj_specific_)
 	{
 		super(null);
 		active_context = this;
-		// Track a single head context.
-		if (head_context != null) {System.err.println("Error: Multiple ParseContext's constructed."); System.exit(1);}
-		head_context = this;
+		exit_on_fatal = exit_on_fatal_;
+		options = options_;
+		proj_specific = proj_specific_;
+	}
+	
+	/**
+	 * Replace this thread's ActiveParseContext with a new one, in preparation for a new translation.
+	 * @param exit_on_fatal_ False to abort only the current translation upon fatal errors (by throwing AbortException), rather than exiting.
+	 * @param options_ The options of the translation.
+	 * @param proj_specific_ The project-specific behavior of the translation.
+	 * @return The new ActiveParseContext.
+	 */
+	public static ActiveParseContext reset(boolean exit_on_fatal_, CommandLineOptions options_, ProjSpecific proj_specific_)
+	{
+		ActiveParseContext new_context = new ActiveParseContext(exit_on_fatal_, options_, proj_specific_);
+		context.set(new_context);
+		return new_context;
 	}
 	
 
@@ -98,7 +154,7 @@ public class ActiveParseContext extends ParseContext
 	public static void cleanup()
 	{
 		// Could pop/release any lingering contexts, but, at least for now, it's considered an error, so why bother.
-		context.reportIf(context.pushed_context != null, 0, Severity.BUG, "LINGERING-CONTEXT", "ParseContext was pushed and never popped.");
+		get().reportIf(get().pushed_context != null, 0, Severity.BUG, "LINGERING-CONTEXT", "ParseContext was pushed and never popped.");
 	}
 	
 	
@@ -117,9 +173,109 @@ public class ActiveParseContext extends ParseContext
 		return exit_status;
 	}
 	
+	public CommandLineOptions getOptions()
+	{
+		return options;
+	}
+	public static CommandLineOptions GetOptions()
+	{
+		return get().options;
+	}
+	
+	public ProjSpecific getProjSpecific()
+	{
+		return proj_specific;
+	}
+	public static ProjSpecific GetProjSpecific()
+	{
+		return get().proj_specific;
+	}
+	
+	/**
+	 * @return The reports of this translation, in the order reported.
+	 */
+	public Vector<Diagnostic> getDiagnostics()
+	{
+		return diagnostics;
+	}
+	
+	/**
+	 * @param print_reports_ False to only record reports (in the error log and diagnostics), not print them to System.err.
+	 */
+	public void setPrintReports(boolean print_reports_)
+	{
+		print_reports = print_reports_;
+	}
+	
+	public IdentifierTable getIdentifierTable()
+	{
+		if (identifier_table == null)
+		{
+			identifier_table = new IdentifierTable();
+		}
+		return identifier_table;
+	}
+	
+	/**
+	 * Terminate with the given exit status (or a higher one already recorded).  This exits the program, or, for
+	 * a context created with exit_on_fatal_ == false, throws AbortException to end the current translation.
+	 * @param status
+	 */
+	public void terminate(int status)
+	{
+		if (status > exit_status)
+		{
+			exit_status = status;
+		}
+		if (exit_on_fatal)
+		{
+			commitOutputs();
+			System.exit(exit_status);
+		}
+		throw new AbortException(exit_status);
+	}
+	
+	/**
+	 * Register an output file of this translation, to be committed (with its content so far) if the program exits upon a
+	 * fatal error.  (Otherwise the translation commits its outputs when done.)
+	 */
+	public void addOutput(OutputFile output_)
+	{
+		outputs.add(output_);
+	}
+	
+	// Commit outputs, as written so far, as the program exits.
+	private void commitOutputs()
+	{
+		for (OutputFile output : outputs)
+		{
+			try
+			{
+				output.commit();
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+		}
+	}
+	
 	public static ActiveParseContext get()
 	{
-		return context;
+		return context.get();
+	}
+	
+	/**
+	 * Make the given context this thread's ActiveParseContext, for work done by this thread on behalf of the context's
+	 * translation.
+	 * @param context_ The context to adopt.
+	 * @return This thread's prior ActiveParseContext, to be restored (by adopt(..)) when the work is done.
+	 */
+	public static ActiveParseContext adopt(ActiveParseContext context_)
+	{
+		ActiveParseContext prior_context = context.get();
+		context.set(context_);
+		return prior_context;
 	}
 	
 		
@@ -36,6 +36,7 @@ import tlv.utilities.Severity;
 
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.Vector;
 import java.util.regex.*;
 import java.util.regex.Matcher;
@@ -90,6 +91,10 @@ public class Assignment extends ParseNode
 	private ArrayList <ContainedBitRange> used_ranges;
 	private ArrayList <ContainedBitRange> wildcarded_used_ranges;
 	
+	private boolean continuous_assignment = false;  // A recognized " = " assignment (given "assign ").
+	private boolean assigns_sv_sig = false;         // An SV signal is assigned.
+	private boolean pruned = false;                 // Dead (eliminated by -prune).
+	
 	/**
 	 * Constructs an Assignment object from a source_node ParseNode.
 	 * 
@@ -156,6 +161,94 @@ public class Assignment extends ParseNode
 	{
 		return assigned_ranges;
 	}
+	
+	/**
+	 * @return True if this statement has an effect other than assigning pipe signals, so it is live regardless of the
+	 *         signals it assigns.  Only continuous assignments of (non-state) pipe signals can be dead.
+	 */
+	public boolean isSink()
+	{
+		if ((getType() != NodeType.ASSIGNMENT) || !continuous_assignment || assigns_sv_sig || assigned_ranges.isEmpty())
+		{
+			return true;
+		}
+		for (ContainedBitRange assigned : assigned_ranges)
+		{
+			if (assigned.getBitRange().getPipeSignal().isState())
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @param range An assigned or used range of this Assignment.
+	 * @return True if range is a signal pulled through a wildcarded ($ANY) reference of this Assignment.
+	 */
+	public boolean isPulled(BitRange range)
+	{
+		if (range instanceof WildcardedSigRef)
+		{
+			return false;
+		}
+		for (ContainedBitRange assigned : assigned_ranges)
+		{
+			if ((assigned.getBitRange() instanceof WildcardedSigRef) && (assigned.getBitRange().getIdentifier() == range.getIdentifier()))
+			{
+				return true;
+			}
+		}
+		if (wildcarded_used_ranges != null)
+		{
+			for (ContainedBitRange use : wildcarded_used_ranges)
+			{
+				if (use.getBitRange().getIdentifier() == range.getIdentifier())
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	public boolean isPruned()
+	{
+		return pruned;
+	}
+	
+	/**
+	 * Eliminate this (dead) statement.  Each line of its SV is commented out (after indentation), so the SV remains
+	 * aligned with the TLV source and scope ends can still be inserted before '//'-comments.
+	 */
+	public void prune()
+	{
+		pruned = true;
+		StringBuilder sv = new StringBuilder();
+		String tag = "// Pruned: ";
+		for (String line : stringSV.split("\n", -1))
+		{
+			int indentation = 0;
+			while ((indentation < line.length()) && Character.isWhitespace(line.charAt(indentation)))
+			{
+				indentation++;
+			}
+			if (sv.length() > 0)
+			{
+				sv.append('\n');
+			}
+			if ((indentation < line.length()) && !line.startsWith("//", indentation))
+			{
+				sv.append(line.substring(0, indentation)).append(tag).append(line.substring(indentation));
+				tag = "//";
+			}
+			else
+			{
+				sv.append(line);
+			}
+		}
+		stringSV = sv.toString();
+	}
 
 	
 	/**
@@ -404,8 +497,11 @@ public class Assignment extends ParseNode
 	private boolean isParseableAssignment()
 	{
 		boolean parseable1 = checkForEquals();
-		Matcher start_matcher = assignment_start_pattern.matcher(stringWithoutIndentation);
-		boolean parseable2 = start_matcher.lookingAt();
+		boolean parseable2 = AssignmentScanner.isAssignmentStart(stringWithoutIndentation);
+		if (checkScanner())
+		{
+			checkScanner(parseable2 == assignment_start_pattern.matcher(stringWithoutIndentation).lookingAt(), assignment_start_pattern);
+		}
 		
 		if (parseable1 != parseable2)
 		{
@@ -419,13 +515,76 @@ public class Assignment extends ParseNode
 		return (parseable1 && parseable2);
 	}
 	
+	// Patterns for parse2(..).  AssignmentScanner performs the per-character probes of sig_ref_start_pattern,
+	// carriage_return_pattern, sv_type_pattern, and token_pattern.  These patterns remain as the reference
+	// definitions, and with --verbose, AssignmentScanner is checked against them.
 	private static Pattern sig_ref_start_pattern   = Pattern.compile("(\\$|\\$\\$|\\$=|>|\\||\\*)[a-zA-Z]");
 	private static Pattern carriage_return_pattern = Pattern.compile("\n");
+	private static Pattern comment_end_pattern     = Pattern.compile("\\*/");
 	private static Pattern always_comb_pattern     = Pattern.compile("\\\\always_comb");
 	private static Pattern sv_plus_pattern         = Pattern.compile("\\\\SV_plus");
 	private static Pattern sv_type_pattern         = Pattern.compile("\\*\\*[a-zA-Z]");
 	private static Pattern token_pattern           = Pattern.compile("\\w*");
 	
+	/**
+	 * @return True if AssignmentScanner results should be checked against the reference patterns (with --verbose).
+	 */
+	private static boolean checkScanner()
+	{
+		return (ActiveParseContext.GetOptions() != null) && (ActiveParseContext.GetOptions().verbosity() > 0);
+	}
+	
+	private static void checkScanner(boolean match, Pattern pattern)
+	{
+		if (!match)
+		{
+			ActiveParseContext.Report(0, Severity.BUG, "BUG", "AssignmentScanner disagrees with pattern \"" + pattern + "\".");
+		}
+	}
+	
+	private static boolean atSigRefStart(ParseContext context)
+	{
+		boolean ret = AssignmentScanner.isSigRefStart(context.getString(), context.getPosition());
+		if (checkScanner())
+		{
+			checkScanner(ret == (context.parseMatches(sig_ref_start_pattern, false) != null), sig_ref_start_pattern);
+		}
+		return ret;
+	}
+	
+	private static boolean atSvTypeStart(ParseContext context)
+	{
+		boolean ret = AssignmentScanner.isSvTypeStart(context.getString(), context.getPosition());
+		if (checkScanner())
+		{
+			checkScanner(ret == (context.parseMatches(sv_type_pattern, false) != null), sv_type_pattern);
+		}
+		return ret;
+	}
+	
+	// Parse over word characters.
+	private static void parseWordChars(ParseContext context)
+	{
+		int end_pos = AssignmentScanner.skipWordChars(context.getString(), context.getPosition());
+		if (checkScanner())
+		{
+			checkScanner(end_pos == context.parseMatches(token_pattern, false).end(), token_pattern);
+		}
+		context.setPosition(end_pos);
+	}
+	
+	// Parse through the end of the line (or string).
+	private static void parseLine(ParseContext context)
+	{
+		int end_pos = AssignmentScanner.skipLine(context.getString(), context.getPosition());
+		if (checkScanner())
+		{
+			Matcher matcher = context.getMatcher(carriage_return_pattern);
+			checkScanner(end_pos == (matcher.find() ? matcher.end() : -1), carriage_return_pattern);
+		}
+		context.setPosition((end_pos < 0) ? context.getString().length() : end_pos);
+	}
+	
 	
 	/**
 	 * Parse the string (or substring) of this assignment and populate stringSV.  Extract signal references and create BitRanges for them and
@@ -449,7 +608,7 @@ public class Assignment extends ParseNode
 		Identifier struct_identifier = null;  // Identifier of an SV type.
 		
 		
-		String ret = "";
+		StringBuilder ret = new StringBuilder();
 		context.setAnchorPos(0);
 		leading_whitespace = context.parseWhitespace();
 		
@@ -463,9 +622,9 @@ public class Assignment extends ParseNode
 			// \always_comb
 			if (getType() == NodeType.ALWAYS_COMB)
 			{
-				ret += context.absorbAnchoredString();
+				ret.append(context.absorbAnchoredString());
 				context.parseMatches(always_comb_pattern, true, Severity.BUG, "BUG", "");
-				ret += "always_comb begin";
+				ret.append("always_comb begin");
 				context.setAnchorPos(0);
 				leading_whitespace = context.parseWhitespace();
 				left_hand_side = false;
@@ -473,17 +632,17 @@ public class Assignment extends ParseNode
 			// \SV_plus
 			else if (getType() == NodeType.SV_PLUS)
 			{
-				ret += context.absorbAnchoredString();
+				ret.append(context.absorbAnchoredString());
 				context.parseMatches(sv_plus_pattern, true, Severity.BUG, "BUG", "");
-				ret += "/*SV_plus*/";
+				ret.append("/*SV_plus*/");
 				context.setAnchorPos(0);
 				leading_whitespace = context.parseWhitespace();
 				left_hand_side = false;
 			}
 			// SV type declarations (**sv_type;).
-    		else if (context.parseMatches(sv_type_pattern, false) != null)
+    		else if (atSvTypeStart(context))
     		{
-				ret += context.absorbAnchoredString();
+				ret.append(context.absorbAnchoredString());
 				struct_identifier = Identifier.parse(IdentifierType.SV_DATATYPE.ordinalMask());
 				leading_whitespace = context.parseWhitespace();
 				context.setAnchorPos(0);
@@ -508,7 +667,7 @@ public class Assignment extends ParseNode
     		// is convenient for SV line continuation).
     		if ((context.getCurrentChar() == '\\') && (context.getString().length() > context.getPosition() + 1))
     		{
-    			ret += context.getAnchoredString() + context.getCharOffset(1);
+    			ret.append(context.getAnchoredString()).append(context.getCharOffset(1));
     			context.incrementPosition(2);
     			context.setAnchorPos(0);
     		}
@@ -523,13 +682,13 @@ public class Assignment extends ParseNode
     			{
     				// '//' comment.  Skip it.
         			context.incrementPosition(1);
-    				context.parseUntil(carriage_return_pattern, true);
+    				parseLine(context);
     			}
     			else if (context.getCurrentChar() == '*')
     			{
     				// '/*' comment.  Skip it.
         			context.incrementPosition(1);
-    				context.parseUntil(Pattern.compile("\\*/"), Severity.RISKY_ERROR, "COMMENT-FMT", "");  // Probably a bug.  Node parsing should swallow whole comment, right?
+    				context.parseUntil(comment_end_pattern, Severity.RISKY_ERROR, "COMMENT-FMT", "");  // Probably a bug.  Node parsing should swallow whole comment, right?
     			}
     		}
     		
@@ -545,8 +704,9 @@ public class Assignment extends ParseNode
     				right_hand_side = true;
     			
 					// Insert "assign " at beginning of ret string.
-    				ret += context.absorbAnchoredString();  // Make ret current.
-					ret = ret.substring(0, start_pos) + "assign " + ret.substring(start_pos);
+    				ret.append(context.absorbAnchoredString());  // Make ret current.
+					ret.insert(start_pos, "assign ");
+					continuous_assignment = true;
 					// This shifts the assignment portion of the SV string, which could contain an $ANY, which has pointers into the string.  These must be shifted.  TODO: Big hack.
 					for (ContainedBitRange assigned : getAssignedRanges())
 					{
@@ -562,7 +722,7 @@ public class Assignment extends ParseNode
 					// This provides a use of $when_cond that gets conveniently processed as other uses, but the real original string is lost, and errors are
 					// reported against the modified string.
 					// TODO: X injection does not work for macro and module instantiations.
-					if (Main.command_line_options.xInj())
+					if (ActiveParseContext.GetOptions().xInj())
 					{
 						// TODO: We should do things differently for state assignments.  In this case, we need to know whether there
 						//       are any uses of the assigned signal(s) in the same stage, or if the physical gater is not the when condition.
@@ -601,15 +761,15 @@ public class Assignment extends ParseNode
     		else if ((context.getCurrentChar() == '{') && left_hand_side)
     		{
     			context.incrementPosition(1);
-    			ret += context.getAnchoredString();
-    			ret += parse2(context, '}', sv_str_pos + ret.length());
+    			ret.append(context.getAnchoredString());
+    			ret.append(parse2(context, '}', sv_str_pos + ret.length()));
     		}
 
     		// Parse sig refs.
-    		else if (!Character.isAlphabetic(context.getCharOffset(-1)) && (context.parseMatches(sig_ref_start_pattern, false) != null))
+    		else if (!Character.isAlphabetic(context.getCharOffset(-1)) && atSigRefStart(context))
     		{
-    			ret += context.absorbAnchoredString();
-    			ret += parseSigRef(context, struct_identifier, left_hand_side, right_hand_side, sv_str_pos + ret.length());
+    			ret.append(context.absorbAnchoredString());
+    			ret.append(parseSigRef(context, struct_identifier, left_hand_side, right_hand_side, sv_str_pos + ret.length()));
     		}
     		
     		else
@@ -618,7 +778,7 @@ public class Assignment extends ParseNode
     			context.incrementPosition(1);
     			
     			// To speed up parsing, swallow word chars.
-    			context.parseMatches(token_pattern, true);
+    			parseWordChars(context);
     		}
 
     		// Absorb whitespace.
@@ -626,7 +786,7 @@ public class Assignment extends ParseNode
     		
     	}
     	
-    	ret += context.absorbAnchoredString();
+    	ret.append(context.absorbAnchoredString());
     	
     	// Make sure parsing doesn't complete w/o terminating the left-hand side.
     	if (left_hand_side && (terminal_char != '}')) context.report(0, Severity.LOGIC_ERROR, "PARSE-ASSIGN",
@@ -635,11 +795,11 @@ public class Assignment extends ParseNode
     	// Record resulting SV string.
     	if (root_invocation)
     	{
-    		stringSV = ret;
-    		ret = null;
+    		stringSV = ret.toString();
+    		return null;
     	}
     	
-		return ret;
+		return ret.toString();
 	}
 	
 	/**
@@ -893,6 +1053,10 @@ public class Assignment extends ParseNode
 			
 			BitRange temp_bit_range = new BitRange(((SourceFile)getParseBranch_ofType(NodeType.FILE)).topBehHier, signal_name, signal_ident, end_bit_index, start_bit_index, false);
 			unstagedRanges.add(signal_name);
+			if (left_hand_side)
+			{
+				assigns_sv_sig = true;
+			}
 			
 			ret += temp_bit_range.getLabel() + temp_bit_range.toStringUsage();
 		}
@@ -1026,10 +1190,20 @@ public class Assignment extends ParseNode
 	 * @param any_sig
 	 * @return
 	 */
-	private String wildcardedSvSigConcat(WildcardedSigRef any_sig, String index_str)
+	private String wildcardedSvSigConcat(WildcardedSigRef any_sig, WildcardedSigRef any_assigned, String index_str)
 	{
+		// Expand each signal pulled through the wildcard sig, except those pulled to dead (pruned) signals.
 		String concat = "";
-		if (any_sig.getSigRangeMap().isEmpty())
+		for (Map.Entry<Identifier, BitRange> entry : any_sig.getSigRangeMap().entrySet())
+		{
+			BitRange assigned = any_assigned.getSigRangeMap().get(entry.getKey());
+			if ((assigned == null) || !assigned.getPipeSignal().isPruned())
+			{
+				concat += ", " + entry.getValue().svSignalRef(index_str, false);
+			}
+		}
+		
+		if (concat.isEmpty())
 		{
 			// No signals pulled through this wildcarded assigned sig.
 			// TODO: Support this case.  Need to formulate the right SV statement.
@@ -1038,12 +1212,6 @@ public class Assignment extends ParseNode
 		}
 		else
 		{
-			// Expand each signal pulled through the wildcard sig.
-			for (BitRange sig_range : any_sig.getSigRangeMap().values())
-			{
-				concat += ", " + sig_range.svSignalRef(index_str, false);
-			}
-			
 			// Reflect concat in new_sv_string.
 			concat = "{" +
 			         concat.substring(2) +  // Pulled sigs concated with leading ", " stripped.
@@ -1087,7 +1255,7 @@ public class Assignment extends ParseNode
 				sv_string_pos += WILDCARDED_REF_CHARS + index_str.length();
 					
 				// Build concatenation of pulled signals.
-				new_sv_string += wildcardedSvSigConcat(any_assigned, index_str);
+				new_sv_string += wildcardedSvSigConcat(any_assigned, any_assigned, index_str);
 				
 				done = true;
 			}
@@ -1108,7 +1276,7 @@ public class Assignment extends ParseNode
 			sv_string_pos += WILDCARDED_REF_CHARS + index_str.length();
 			
 			// Build concatenation of pulled signals.
-			new_sv_string += wildcardedSvSigConcat(any_use, index_str);
+			new_sv_string += wildcardedSvSigConcat(any_use, any_assigned, index_str);
 		}
 		
 		// Finish off new_sv_string;
@@ -0,0 +1,114 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package tlv.parse;
+
+
+/**
+ * Character-class scanning for Assignment.parse2(..), which probes for sig refs, SV types, and plain tokens at each
+ * character of an assignment.  These are equivalent to the regular expressions in Assignment, which are retained as a
+ * reference (and checked against these with --verbose), but they avoid constructing a Matcher for each probe.
+ * 
+ * Positions past the end of the string are treated as '\0'.
+ */
+public class AssignmentScanner
+{
+	private static char charAt(String str, int pos)
+	{
+		return (pos < str.length()) ? str.charAt(pos) : '\0';
+	}
+	
+	/**
+	 * @return True iff ch is in [a-zA-Z].
+	 */
+	public static boolean isLetter(char ch)
+	{
+		return ((ch >= 'a') && (ch <= 'z')) || ((ch >= 'A') && (ch <= 'Z'));
+	}
+	
+	/**
+	 * @return True iff ch is in \w ([a-zA-Z_0-9]).
+	 */
+	public static boolean isWordChar(char ch)
+	{
+		return isLetter(ch) || ((ch >= '0') && (ch <= '9')) || (ch == '_');
+	}
+	
+	/**
+	 * @return True iff an assignment's string begins with a signal or concatenation (a '{', '$', or '*').
+	 */
+	public static boolean isAssignmentStart(String str)
+	{
+		char ch = charAt(str, 0);
+		return (ch == '{') || (ch == '$') || (ch == '*');
+	}
+	
+	/**
+	 * @return True iff a sig ref begins at pos: "$", "$$", "$=", ">", "|", or "*" followed by a letter.
+	 */
+	public static boolean isSigRefStart(String str, int pos)
+	{
+		char ch = charAt(str, pos);
+		if (ch == '$')
+		{
+			char next_ch = charAt(str, pos + 1);
+			return isLetter(next_ch) ||
+			       (((next_ch == '$') || (next_ch == '=')) && isLetter(charAt(str, pos + 2)));
+		}
+		return ((ch == '>') || (ch == '|') || (ch == '*')) && isLetter(charAt(str, pos + 1));
+	}
+	
+	/**
+	 * @return True iff an SV type ("**" followed by a letter) begins at pos.
+	 */
+	public static boolean isSvTypeStart(String str, int pos)
+	{
+		return (charAt(str, pos) == '*') && (charAt(str, pos + 1) == '*') && isLetter(charAt(str, pos + 2));
+	}
+	
+	/**
+	 * @return The position following the word characters (\w*) beginning at pos.
+	 */
+	public static int skipWordChars(String str, int pos)
+	{
+		while ((pos < str.length()) && isWordChar(str.charAt(pos)))
+		{
+			pos++;
+		}
+		return pos;
+	}
+	
+	/**
+	 * @return The position following the first '\n' at or after pos, or -1 if there is none.
+	 */
+	public static int skipLine(String str, int pos)
+	{
+		int nl_pos = str.indexOf('\n', pos);
+		return (nl_pos < 0) ? -1 : nl_pos + 1;
+	}
+}
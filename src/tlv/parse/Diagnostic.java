@@ -0,0 +1,69 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.parse;
+
+import tlv.utilities.Severity;
+
+/**
+ * A report (error, warning, etc.) of a translation, as recorded in ActiveParseContext.getDiagnostics().
+ */
+public class Diagnostic
+{
+	private final Severity sev;
+	private final String tag;
+	private final String message;
+	private final String file;    // The reported file name, or null if unknown.
+	private final int line;       // The reported line number, or -1 if unknown.
+	private final int column;     // The reported (1-based) character position within the line, or -1 if unknown.
+	private final String report;  // The full report, as printed.
+	
+	Diagnostic(Severity sev_, String tag_, String message_, String file_, int line_, int column_, String report_)
+	{
+		sev = sev_;
+		tag = tag_;
+		message = message_;
+		file = file_;
+		line = line_;
+		column = column_;
+		report = report_;
+	}
+	
+	public Severity getSeverity() {return sev;}
+	public String getTag() {return tag;}
+	public String getMessage() {return message;}
+	public String getFile() {return file;}
+	public int getLine() {return line;}
+	public int getColumn() {return column;}
+	public String getReport() {return report;}
+	
+	public String toString()
+	{
+		return ((file == null) ? "<unknown>" : file) + ((line < 0) ? "" : ":" + line + ((column < 0) ? "" : ":" + column)) + ": " +
+		       sev + " (" + tag + "): " + message;
+	}
+}
@@ -29,8 +29,9 @@ package tlv.parse;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 
 import tlv.Main;
 
@@ -51,8 +52,10 @@ public class GeneratedSvFile
 	 */
 	public SourceFile source_file = null;
 	
-	private FileWriter fstreamDeclarations;
+	private OutputFile output_file;  // (null if in memory)
+	private Writer fstreamDeclarations;
 	private BufferedWriter sv_declarations_file;
+	private IndentedSvWriter.NewLineWriter sv_declarations_writer;
 	
 	/**
 	 * Outputs line using platform-specific newLine() in place of "\n".
@@ -63,29 +66,43 @@ public class GeneratedSvFile
 		
 		try 
 		{
-			for(int i = 0; i < line.length(); i++)
-			{
-				if(line.charAt(i) == '\n')
-					sv_declarations_file.newLine();
-				else
-					sv_declarations_file.write(line.charAt(i));
-			}
-			
-			sv_declarations_file.newLine();
-			
+			sv_declarations_writer.write(line);
+			sv_declarations_writer.newLine();
 		} 
 		catch (IOException e) 
 		{
 			e.printStackTrace();
 		}
 		
-		if (Main.command_line_options.verbosity() > 2)
+		if (ActiveParseContext.GetOptions().verbosity() > 2)
 		{
 			System.out.print(Main.indentString("DECL |", line + "\n"));
 		}
 
 	}
 	
+	/**
+	 * Outputs buffered text, as println(text.toString()), but without assembling the String.
+	 * @param text
+	 */
+	public void println(IndentedSvWriter text)
+	{
+		try 
+		{
+			text.writeTo(sv_declarations_writer);
+			sv_declarations_writer.newLine();
+		} 
+		catch (IOException e) 
+		{
+			e.printStackTrace();
+		}
+		
+		if (ActiveParseContext.GetOptions().verbosity() > 2)
+		{
+			System.out.print(Main.indentString("DECL |", text.toString() + "\n"));
+		}
+	}
+	
 	/**
 	 * This method must be used at the end of the preprocessor flow to "close()" all the generated
 	 * files. 
@@ -93,10 +110,33 @@ public class GeneratedSvFile
 	public void close() throws IOException
 	{
 		sv_declarations_file.close();
+		if (output_file != null)
+		{
+			output_file.commit();
+		}
+	}
+	
+	/**
+	 * @return The text of an in-memory generated file (after close()).
+	 */
+	public String getText()
+	{
+		return fstreamDeclarations.toString();
+	}
+	
+	/**
+	 * @return The OutputFile of this generated file.
+	 */
+	public OutputFile getOutputFile()
+	{
+		return output_file;
 	}
 
 	
-	public GeneratedSvFile(String label_, String filename_, SourceFile source_file_)
+	/**
+	 * @param in_memory_ Keep the content in memory (for getText()), rather than writing filename_.
+	 */
+	public GeneratedSvFile(String label_, String filename_, SourceFile source_file_, boolean in_memory_)
 	{
 		label = label_;
 		source_file = source_file_;
@@ -106,8 +146,17 @@ public class GeneratedSvFile
 		//prepares output files
 		try 
 		{	
-			fstreamDeclarations = new FileWriter(filename);
+			if (in_memory_)
+			{
+				fstreamDeclarations = new StringWriter();
+			} else
+			{
+				output_file = new OutputFile(file);
+				ActiveParseContext.get().addOutput(output_file);
+				fstreamDeclarations = output_file.openWriter();
+			}
 			sv_declarations_file = new BufferedWriter(fstreamDeclarations);
+			sv_declarations_writer = new IndentedSvWriter.NewLineWriter(sv_declarations_file);
 		} 
 		catch (IOException e) 
 		{
@@ -119,11 +168,11 @@ public class GeneratedSvFile
 		
 		println("`include \"tlv.vh\"\n\n");
 		
-		if (Main.command_line_options.xInj())
+		if (ActiveParseContext.GetOptions().xInj())
 		{
 			println("// Standard signal used to control X-injection.\n");
 			println("bit X_inj;");
-			println("`ifdef " + Main.projSpecific.getSvXInjectionDefine());
+			println("`ifdef " + ActiveParseContext.GetProjSpecific().getSvXInjectionDefine());
 			println("   assign X_inj = 1'b1;");
 			println("`else");
 			println("   assign X_inj = 1'b0;");
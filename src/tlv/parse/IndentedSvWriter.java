@@ -0,0 +1,175 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.parse;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Vector;
+
+
+/**
+ * An append-only buffer of SV text with indentation, for text (like staging) that is generated before it can be
+ * written.  Lines are indented as they are appended, and blank lines are not indented.  Text is held in fixed-size
+ * chunks, so appending is linear in the size of the text, and the text is never assembled into a single String.
+ */
+public class IndentedSvWriter
+{
+	private static final int CHUNK_SIZE = 1 << 16;
+	private static final String INDENT_STR = "   ";
+
+	private Vector<StringBuilder> chunks = new Vector<StringBuilder>();
+	private StringBuilder chunk;
+	private String indentation = "";
+
+
+	public IndentedSvWriter()
+	{
+		newChunk();
+	}
+
+	private void newChunk()
+	{
+		chunk = new StringBuilder(CHUNK_SIZE);
+		chunks.add(chunk);
+	}
+
+	public String getIndentation()
+	{
+		return indentation;
+	}
+
+	public void indent()
+	{
+		indentation += INDENT_STR;
+	}
+
+	public void unindent()
+	{
+		indentation = indentation.substring(0, indentation.length() - INDENT_STR.length());
+	}
+
+	/**
+	 * Append text (which may contain multiple lines), followed by a new line.  Each non-blank line is indented.
+	 */
+	public void println(String text)
+	{
+		int len = text.length();
+		int pos = 0;
+		while (pos <= len)
+		{
+			int end = text.indexOf('\n', pos);
+			if (end < 0)
+			{
+				end = len;
+			}
+			if (end > pos)
+			{
+				append(indentation, 0, indentation.length());
+				append(text, pos, end);
+			}
+			append("\n", 0, 1);
+			pos = end + 1;
+		}
+	}
+
+	private void append(String str, int start, int end)
+	{
+		while (start < end)
+		{
+			int cnt = Math.min(end - start, CHUNK_SIZE - chunk.length());
+			if (cnt == 0)
+			{
+				newChunk();
+				continue;
+			}
+			chunk.append(str, start, start + cnt);
+			start += cnt;
+		}
+	}
+
+	/**
+	 * Write the text, with '\n' written via the given NewLineWriter.
+	 */
+	public void writeTo(NewLineWriter writer) throws IOException
+	{
+		for (StringBuilder text: chunks)
+		{
+			writer.write(text);
+		}
+	}
+
+	/**
+	 * @return The text as a String (for debug output).
+	 */
+	public String toString()
+	{
+		StringBuilder ret = new StringBuilder();
+		for (StringBuilder text: chunks)
+		{
+			ret.append(text);
+		}
+		return ret.toString();
+	}
+
+
+	/**
+	 * Writes text to a Writer, replacing '\n' with the platform's line separator.
+	 */
+	public static class NewLineWriter
+	{
+		private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+		private Writer writer;
+
+		public NewLineWriter(Writer writer_)
+		{
+			writer = writer_;
+		}
+
+		public void write(CharSequence text) throws IOException
+		{
+			int len = text.length();
+			int start = 0;
+			for (int i = 0; i < len; i++)
+			{
+				if (text.charAt(i) == '\n')
+				{
+					writer.append(text, start, i);
+					writer.write(LINE_SEPARATOR);
+					start = i + 1;
+				}
+			}
+			writer.append(text, start, len);
+		}
+
+		public void newLine() throws IOException
+		{
+			writer.write(LINE_SEPARATOR);
+		}
+	}
+}
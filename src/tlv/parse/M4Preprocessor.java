@@ -0,0 +1,1560 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package tlv.parse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Vector;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import tlv.config.CommandLineOptions;
+import tlv.config.ProjSpecific;
+import tlv.utilities.Severity;
+
+
+/**
+ * An in-process M4 macro preprocessor for .tlvm4 files (those whose first line contains "\m4_TLV_version").
+ * 
+ * This is intended as an alternative to the bin/ pipeline:
+ *    cat m4_config.m4 <file> | pre_m4 | m4 --prefix-builtins -I <dirs> | post_m4
+ * It implements the subset of GNU M4 (1.4) used by the .tlvm4 libraries (m4/): macros with arguments, quoting, comments,
+ * pushdef/popdef, diversions, and the builtins listed in Builtin, all named with an "m4_" prefix.  Output is returned as a
+ * string.
+ * 
+ * It is not yet used for translation.  It must first match the pipeline (see bin/diff_m4, which requires GNU m4).
+ * 
+ * The pre_m4 transformation of m4+macro(..) lines (into m4_macro(['<indentation>'],['m4___file__'],m4___line__,['m4+macro(..)'],..))
+ * is applied to the lines of the main file, and post_m4's "#line" to "\line" transformation is applied to the output.
+ * 
+ * The definitions of the standard libraries (included by the prelude, equivalent to bin/m4_config.m4) are processed once
+ * per JVM (for each include path) and reused by each translation, as long as the library files are unchanged.
+ * 
+ * Unlike the pipeline, m4___file__ in the main file is the file's name, rather than "stdin".
+ */
+public class M4Preprocessor
+{
+	// The prelude, equivalent to bin/m4_config.m4.
+	private static final String PRELUDE =
+			"m4_changecom(`//')m4_changequote(`[\"', `\"]')m4_changequote([\"['\"], [\"']\"])m4_include(['generic.tlvm4'])m4_include(['tlv_m4_lib.tlvm4'])";
+	
+	// The pre_m4 transformation of m4+macro(..) lines.
+	private static final Pattern m4_plus_pattern = Pattern.compile("^([ !] +)(m4\\+([A-Za-z0-9_]+)\\(([^\\n]*))", Pattern.MULTILINE);
+	private static final Pattern m4_version_pattern = Pattern.compile("^[^\\n]*m4_TLV_version");
+	private static final Pattern sync_line_pattern = Pattern.compile("^#line", Pattern.MULTILINE);
+	
+	private static final String PREFIX = "m4_";
+	private static final int MAX_NESTING = 1024;  // As m4's default nesting limit.
+	
+	
+	// Builtin macros.
+	private enum Builtin
+	{
+		DEFINE("define", true), PUSHDEF("pushdef", true), POPDEF("popdef", true), UNDEFINE("undefine", true), DEFN("defn", true),
+		IFDEF("ifdef", true), IFELSE("ifelse", true), SHIFT("shift", true),
+		DNL("dnl", false), DIVERT("divert", false), DIVNUM("divnum", false), UNDIVERT("undivert", false),
+		INCLUDE("include", true), SINCLUDE("sinclude", true), CHANGEQUOTE("changequote", false), CHANGECOM("changecom", false),
+		EVAL("eval", true), INCR("incr", true), DECR("decr", true),
+		LEN("len", true), INDEX("index", true), SUBSTR("substr", true), TRANSLIT("translit", true),
+		PATSUBST("patsubst", true), REGEXP("regexp", true), ERRPRINT("errprint", true),
+		FILE("__file__", false), LINE("__line__", false);
+		
+		final String name;
+		final boolean blind;  // Recognized only with arguments.
+		
+		Builtin(String name_, boolean blind_)
+		{
+			name = name_;
+			blind = blind_;
+		}
+	}
+	
+	// A macro definition: a builtin or user-defined text.
+	private static class Definition
+	{
+		final Builtin builtin;
+		final String text;
+		
+		Definition(Builtin builtin_, String text_)
+		{
+			builtin = builtin_;
+			text = text_;
+		}
+	}
+	
+	// A source of input: a file or text pushed back for rescanning (file_name == null).
+	private static class Input
+	{
+		final String text;
+		int pos = 0;
+		final String file_name;
+		int line = 1;
+		boolean new_line = false;  // The last char read was '\n'.  (line is incremented upon reading the next char, as in m4.)
+		
+		Input(String text_, String file_name_)
+		{
+			text = text_;
+			file_name = file_name_;
+		}
+	}
+	
+	// The state following the prelude, shared by translations with the same include path.
+	private static class Prelude
+	{
+		Hashtable<String, Vector<Definition>> macros;
+		String lquote, rquote, bcomm, ecomm;
+		int diversion;
+		Hashtable<Integer, StringBuilder> diversions;
+		Hashtable<File, Long> files;  // Files read by the prelude, with their modification times.
+	}
+	private static Hashtable<String, Prelude> preludes = new Hashtable<String, Prelude>();
+	
+	
+	// Macro definition stacks, by name.
+	private Hashtable<String, Vector<Definition>> macros = new Hashtable<String, Vector<Definition>>();
+	private String lquote = "`";
+	private String rquote = "'";
+	private String bcomm = "#";
+	private String ecomm = "\n";
+	
+	private int diversion = 0;  // Current diversion, or -1 to discard.
+	private Hashtable<Integer, StringBuilder> diversions = new Hashtable<Integer, StringBuilder>();
+	
+	private Vector<Input> inputs = new Vector<Input>();
+	private int nesting = 0;
+	
+	private List<String> include_dirs;
+	private Hashtable<File, Long> files_read = new Hashtable<File, Long>();
+	
+	// Tokens.
+	private static final int TOKEN_EOF = 0, TOKEN_WORD = 1, TOKEN_STRING = 2, TOKEN_COMMENT = 3, TOKEN_CHAR = 4;
+	private StringBuilder token_text = new StringBuilder();
+	
+	
+	/**
+	 * @param include_dirs_ Directories searched by m4_include(..) after the current directory (as m4 -I).  These must
+	 *                      include the directory of the standard .tlvm4 libraries.
+	 */
+	public M4Preprocessor(List<String> include_dirs_)
+	{
+		include_dirs = include_dirs_;
+		for (Builtin builtin: Builtin.values())
+		{
+			Vector<Definition> stack = new Vector<Definition>();
+			stack.add(new Definition(builtin, null));
+			macros.put(PREFIX + builtin.name, stack);
+		}
+	}
+	
+	/**
+	 * @param text The text of a source file.
+	 * @return True iff the source file requires M4 preprocessing.
+	 */
+	public static boolean isM4Source(CharSequence text)
+	{
+		return m4_version_pattern.matcher(text).lookingAt();
+	}
+	
+	/**
+	 * Preprocess the given file.
+	 * @return The preprocessed text.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public String process(File file) throws IOException
+	{
+		return process(readFile(file), file.toString());
+	}
+	
+	/**
+	 * Preprocess the given text.
+	 * @param name The file name of the text (for m4___file__).
+	 * @return The preprocessed text.
+	 * @throws IOException If an included file cannot be read.
+	 */
+	public String process(String text, String name) throws IOException
+	{
+		// Begin from the state following the prelude.
+		restorePrelude(getPrelude(include_dirs));
+		
+		// pre_m4.
+		text = m4_plus_pattern.matcher(text).replaceAll("$1m4_$3(['$1'],['m4___file__'],m4___line__,['$2'],$4");
+		
+		pushInput(new Input(text, name));
+		expand();
+		
+		// Output diversion 0, followed by the others (as m4 does upon exit).
+		StringBuilder out = diversions.get(0);
+		for (int i = 1; i <= 9; i++)
+		{
+			StringBuilder diverted = diversions.get(i);
+			if (diverted != null)
+			{
+				out.append(diverted);
+			}
+		}
+		
+		// post_m4.
+		return sync_line_pattern.matcher(out).replaceAll("\\\\line");
+	}
+	
+	
+	/**
+	 * Preprocess a file, writing the result to stdout, for comparison with the bin/run_m4 pipeline (see bin/diff_m4).
+	 * m4___file__ of the main file is "stdin", as for the pipeline.
+	 * 
+	 * @param args -I <dir> for each include dir (including the m4/ library dir), then the file.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		Vector<String> include_dirs = new Vector<String>();
+		int i = 0;
+		for (; (i < args.length - 1) && args[i].equals("-I"); i += 2)
+		{
+			include_dirs.add(args[i + 1]);
+		}
+		if (i != args.length - 1)
+		{
+			System.err.println("Usage: M4Preprocessor [-I <dir>]* <file>");
+			System.exit(2);
+		}
+		// Errors are reported through the ActiveParseContext.
+		CommandLineOptions options = new CommandLineOptions(new String[] {"-i", args[i]});
+		ActiveParseContext.reset(true, options, ProjSpecific.forOptions(options));
+		
+		M4Preprocessor m4 = new M4Preprocessor(include_dirs);
+		System.out.print(m4.process(readFile(new File(args[i])), "stdin"));
+		System.out.flush();
+	}
+	
+	
+	//
+	// The prelude.
+	//
+	
+	private static Prelude getPrelude(List<String> include_dirs)
+	{
+		String key = include_dirs.toString();
+		Prelude prelude = preludes.get(key);
+		if (prelude != null)
+		{
+			// Make sure the libraries are unchanged.
+			for (Enumeration<File> e = prelude.files.keys(); e.hasMoreElements(); )
+			{
+				File file = e.nextElement();
+				if (file.lastModified() != prelude.files.get(file))
+				{
+					prelude = null;
+					break;
+				}
+			}
+		}
+		if (prelude == null)
+		{
+			M4Preprocessor m4 = new M4Preprocessor(include_dirs);
+			m4.pushInput(new Input(PRELUDE, "m4_config.m4"));
+			m4.expand();
+			prelude = m4.capturePrelude();
+			preludes.put(key, prelude);
+		}
+		return prelude;
+	}
+	
+	private Prelude capturePrelude()
+	{
+		Prelude prelude = new Prelude();
+		prelude.macros = macros;
+		prelude.lquote = lquote;
+		prelude.rquote = rquote;
+		prelude.bcomm = bcomm;
+		prelude.ecomm = ecomm;
+		prelude.diversion = diversion;
+		prelude.diversions = diversions;
+		prelude.files = files_read;
+		return prelude;
+	}
+	
+	// Restore the state captured by capturePrelude() (copying what changes).
+	private void restorePrelude(Prelude prelude)
+	{
+		macros = new Hashtable<String, Vector<Definition>>();
+		for (Enumeration<String> e = prelude.macros.keys(); e.hasMoreElements(); )
+		{
+			String name = e.nextElement();
+			macros.put(name, new Vector<Definition>(prelude.macros.get(name)));
+		}
+		lquote = prelude.lquote;
+		rquote = prelude.rquote;
+		bcomm = prelude.bcomm;
+		ecomm = prelude.ecomm;
+		diversion = prelude.diversion;
+		diversions = new Hashtable<Integer, StringBuilder>();
+		for (Enumeration<Integer> e = prelude.diversions.keys(); e.hasMoreElements(); )
+		{
+			Integer num = e.nextElement();
+			diversions.put(num, new StringBuilder(prelude.diversions.get(num)));
+		}
+	}
+	
+	
+	//
+	// Input.
+	//
+	
+	private static String readFile(File file) throws IOException
+	{
+		return new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset());
+	}
+	
+	private void pushInput(Input input)
+	{
+		inputs.add(input);
+	}
+	
+	private void pushText(String text)
+	{
+		if (text.length() > 0)
+		{
+			inputs.add(new Input(text, null));
+		}
+	}
+	
+	// The next char, or -1 at the end of input.
+	private int peekChar()
+	{
+		while (!inputs.isEmpty())
+		{
+			Input input = inputs.lastElement();
+			if (input.pos < input.text.length())
+			{
+				return input.text.charAt(input.pos);
+			}
+			inputs.remove(inputs.size() - 1);
+		}
+		return -1;
+	}
+	
+	private int nextChar()
+	{
+		int ch = peekChar();
+		if (ch >= 0)
+		{
+			Input input = inputs.lastElement();
+			if (input.file_name != null)
+			{
+				if (input.new_line)
+				{
+					input.line++;
+				}
+				input.new_line = (ch == '\n');
+			}
+			input.pos++;
+		}
+		return ch;
+	}
+	
+	// Whether the (non-empty) delimiter is next in the input.
+	private boolean lookingAt(String delim)
+	{
+		if ((delim.length() == 0) || (peekChar() < 0))
+		{
+			return false;
+		}
+		Input input = inputs.lastElement();
+		return input.text.startsWith(delim, input.pos);
+	}
+	
+	private void skip(String delim)
+	{
+		for (int i = 0; i < delim.length(); i++)
+		{
+			nextChar();
+		}
+	}
+	
+	// The innermost file being read.
+	private Input currentFile()
+	{
+		for (int i = inputs.size() - 1; i >= 0; i--)
+		{
+			if (inputs.get(i).file_name != null)
+			{
+				return inputs.get(i);
+			}
+		}
+		return null;
+	}
+	
+	private static boolean isWordStart(int ch)
+	{
+		return ((ch >= 'a') && (ch <= 'z')) || ((ch >= 'A') && (ch <= 'Z')) || (ch == '_');
+	}
+	
+	private static boolean isWordChar(int ch)
+	{
+		return isWordStart(ch) || ((ch >= '0') && (ch <= '9'));
+	}
+	
+	/**
+	 * Read the next token into token_text.
+	 * @return The token type.
+	 */
+	private int nextToken()
+	{
+		token_text.setLength(0);
+		int ch = peekChar();
+		if (ch < 0)
+		{
+			return TOKEN_EOF;
+		}
+		if (lookingAt(bcomm))
+		{
+			// Comment, through the end-comment delimiter.
+			token_text.append(bcomm);
+			skip(bcomm);
+			while (peekChar() >= 0)
+			{
+				if (lookingAt(ecomm))
+				{
+					token_text.append(ecomm);
+					skip(ecomm);
+					break;
+				}
+				token_text.append((char)nextChar());
+			}
+			return TOKEN_COMMENT;
+		}
+		if (isWordStart(ch))
+		{
+			while (isWordChar(peekChar()))
+			{
+				token_text.append((char)nextChar());
+			}
+			return TOKEN_WORD;
+		}
+		if (lookingAt(lquote))
+		{
+			// Quoted string, with nested quotes.
+			skip(lquote);
+			int depth = 1;
+			while (true)
+			{
+				if (peekChar() < 0)
+				{
+					report(Severity.FATAL_ERROR, "End of file in quoted string.");
+				}
+				if (lookingAt(rquote))
+				{
+					skip(rquote);
+					if (--depth == 0)
+					{
+						break;
+					}
+					token_text.append(rquote);
+				}
+				else if (lookingAt(lquote))
+				{
+					skip(lquote);
+					depth++;
+					token_text.append(lquote);
+				}
+				else
+				{
+					token_text.append((char)nextChar());
+				}
+			}
+			return TOKEN_STRING;
+		}
+		token_text.append((char)nextChar());
+		return TOKEN_CHAR;
+	}
+	
+	
+	//
+	// Expansion.
+	//
+	
+	private void report(Severity sev, String message)
+	{
+		Input file = currentFile();
+		ActiveParseContext.Report(0, sev, "M4", ((file == null) ? "" : file.file_name + ":" + file.line + ": ") + message);
+	}
+	
+	// Output to the current diversion.
+	private void output(CharSequence text)
+	{
+		if (diversion >= 0)
+		{
+			StringBuilder out = diversions.get(diversion);
+			if (out == null)
+			{
+				out = new StringBuilder();
+				diversions.put(diversion, out);
+			}
+			out.append(text);
+		}
+	}
+	
+	// The definition to call for the given word, or null if it is not to be expanded.
+	private Definition callable(String name)
+	{
+		Vector<Definition> stack = macros.get(name);
+		if (stack == null)
+		{
+			return null;
+		}
+		Definition def = stack.lastElement();
+		return ((def.builtin != null) && def.builtin.blind && (peekChar() != '(')) ? null : def;
+	}
+	
+	// Expand all input.
+	private void expand()
+	{
+		int type;
+		while ((type = nextToken()) != TOKEN_EOF)
+		{
+			Definition def = (type == TOKEN_WORD) ? callable(token_text.toString()) : null;
+			if (def != null)
+			{
+				call(token_text.toString(), def);
+			}
+			else
+			{
+				output(token_text);
+			}
+		}
+	}
+	
+	// Call a macro, and push back its expansion.
+	private void call(String name, Definition def)
+	{
+		if (++nesting > MAX_NESTING)
+		{
+			report(Severity.FATAL_ERROR, "Recursion limit of " + MAX_NESTING + " exceeded.");
+		}
+		Vector<String> args = collectArgs(name);
+		pushText((def.builtin == null) ? substituteArgs(def.text, args) : callBuiltin(def.builtin, args));
+		nesting--;
+	}
+	
+	// Collect the arguments of a macro call (if any), expanding macros within them.  args[0] is the macro name.
+	private Vector<String> collectArgs(String name)
+	{
+		Vector<String> args = new Vector<String>();
+		args.add(name);
+		if (peekChar() != '(')
+		{
+			return args;
+		}
+		nextChar();
+		StringBuilder arg = new StringBuilder();
+		int depth = 0;
+		boolean leading = true;  // Skipping leading whitespace.
+		while (true)
+		{
+			if (leading)
+			{
+				int ch = peekChar();
+				if ((ch == ' ') || (ch == '\t') || (ch == '\n') || (ch == '\r') || (ch == '\f') || (ch == 0x0b))
+				{
+					nextChar();
+					continue;
+				}
+				leading = false;
+			}
+			int type = nextToken();
+			if (type == TOKEN_EOF)
+			{
+				report(Severity.FATAL_ERROR, "End of file in argument list of " + name + ".");
+			}
+			else if (type == TOKEN_WORD)
+			{
+				Definition def = callable(token_text.toString());
+				if (def != null)
+				{
+					call(token_text.toString(), def);
+				}
+				else
+				{
+					arg.append(token_text);
+				}
+			}
+			else if (type == TOKEN_CHAR)
+			{
+				char ch = token_text.charAt(0);
+				if ((depth == 0) && ((ch == ',') || (ch == ')')))
+				{
+					args.add(arg.toString());
+					if (ch == ')')
+					{
+						return args;
+					}
+					arg.setLength(0);
+					leading = true;
+				}
+				else
+				{
+					if (ch == '(')
+					{
+						depth++;
+					}
+					else if (ch == ')')
+					{
+						depth--;
+					}
+					arg.append(ch);
+				}
+			}
+			else
+			{
+				arg.append(token_text);
+			}
+		}
+	}
+	
+	private String quote(String text)
+	{
+		return lquote + text + rquote;
+	}
+	
+	// Substitute $0-$n, $#, $*, and $@ in a user macro definition.
+	private String substituteArgs(String text, Vector<String> args)
+	{
+		if (text.indexOf('$') < 0)
+		{
+			return text;
+		}
+		StringBuilder ret = new StringBuilder();
+		int len = text.length();
+		for (int i = 0; i < len; i++)
+		{
+			char ch = text.charAt(i);
+			char next_ch = (i + 1 < len) ? text.charAt(i + 1) : '\0';
+			if (ch != '$')
+			{
+				ret.append(ch);
+			}
+			else if ((next_ch >= '0') && (next_ch <= '9'))
+			{
+				int num = 0;
+				while ((i + 1 < len) && (text.charAt(i + 1) >= '0') && (text.charAt(i + 1) <= '9'))
+				{
+					num = num * 10 + (text.charAt(++i) - '0');
+				}
+				if (num < args.size())
+				{
+					ret.append(args.get(num));
+				}
+			}
+			else if (next_ch == '#')
+			{
+				ret.append(args.size() - 1);
+				i++;
+			}
+			else if ((next_ch == '*') || (next_ch == '@'))
+			{
+				for (int a = 1; a < args.size(); a++)
+				{
+					if (a > 1)
+					{
+						ret.append(',');
+					}
+					ret.append((next_ch == '@') ? quote(args.get(a)) : args.get(a));
+				}
+				i++;
+			}
+			else
+			{
+				ret.append(ch);
+			}
+		}
+		return ret.toString();
+	}
+	
+	
+	//
+	// Builtins.
+	//
+	
+	private static String arg(Vector<String> args, int i)
+	{
+		return (i < args.size()) ? args.get(i) : "";
+	}
+	
+	// A numeric argument (or null, if malformed, after reporting an error).
+	private Integer numericArg(Vector<String> args, int i, int default_value)
+	{
+		if (i >= args.size())
+		{
+			return default_value;
+		}
+		String str = args.get(i).trim();
+		if (str.length() == 0)
+		{
+			return default_value;
+		}
+		try
+		{
+			return Integer.valueOf(str);
+		}
+		catch (NumberFormatException e)
+		{
+			report(Severity.RECOV_ERROR, "Non-numeric argument to " + args.get(0) + ": \"" + str + "\".");
+			return null;
+		}
+	}
+	
+	private String callBuiltin(Builtin builtin, Vector<String> args)
+	{
+		int argc = args.size() - 1;
+		switch (builtin)
+		{
+		case DEFINE:
+		case PUSHDEF:
+		{
+			Vector<Definition> stack = macros.get(arg(args, 1));
+			if (stack == null)
+			{
+				stack = new Vector<Definition>();
+				macros.put(arg(args, 1), stack);
+			}
+			if ((builtin == Builtin.DEFINE) && !stack.isEmpty())
+			{
+				stack.remove(stack.size() - 1);
+			}
+			stack.add(new Definition(null, arg(args, 2)));
+			return "";
+		}
+		case POPDEF:
+		case UNDEFINE:
+			for (int i = 1; i <= argc; i++)
+			{
+				Vector<Definition> stack = macros.get(args.get(i));
+				if (stack != null)
+				{
+					stack.remove(stack.size() - 1);
+					if ((builtin == Builtin.UNDEFINE) || stack.isEmpty())
+					{
+						macros.remove(args.get(i));
+					}
+				}
+			}
+			return "";
+		case DEFN:
+		{
+			StringBuilder ret = new StringBuilder();
+			for (int i = 1; i <= argc; i++)
+			{
+				Vector<Definition> stack = macros.get(args.get(i));
+				if (stack != null)
+				{
+					if (stack.lastElement().builtin != null)
+					{
+						report(Severity.RECOV_ERROR, "m4_defn of builtin " + args.get(i) + " is not supported.");
+					}
+					else
+					{
+						ret.append(quote(stack.lastElement().text));
+					}
+				}
+			}
+			return ret.toString();
+		}
+		case IFDEF:
+			return macros.containsKey(arg(args, 1)) ? arg(args, 2) : arg(args, 3);
+		case IFELSE:
+		{
+			if (argc < 3)
+			{
+				return "";
+			}
+			int i = 1;
+			while (true)
+			{
+				if (args.get(i).equals(args.get(i + 1)))
+				{
+					return args.get(i + 2);
+				}
+				int remaining = argc - i + 1;
+				if (remaining == 3)
+				{
+					return "";
+				}
+				if (remaining <= 5)
+				{
+					return args.get(i + 3);
+				}
+				i += 3;
+			}
+		}
+		case SHIFT:
+		{
+			StringBuilder ret = new StringBuilder();
+			for (int i = 2; i <= argc; i++)
+			{
+				if (i > 2)
+				{
+					ret.append(',');
+				}
+				ret.append(quote(args.get(i)));
+			}
+			return ret.toString();
+		}
+		case DNL:
+		{
+			int ch;
+			while (((ch = nextChar()) >= 0) && (ch != '\n')) {}
+			return "";
+		}
+		case DIVERT:
+		{
+			Integer num = numericArg(args, 1, 0);
+			if (num != null)
+			{
+				diversion = (num < 0) ? -1 : num;
+			}
+			return "";
+		}
+		case DIVNUM:
+			return Integer.toString(diversion);
+		case UNDIVERT:
+			for (int i = 1; i <= Math.max(argc, 1); i++)
+			{
+				for (int num = 1; num <= 9; num++)
+				{
+					if (((argc == 0) || (Integer.toString(num).equals(args.get(i).trim()))) && (num != diversion))
+					{
+						StringBuilder diverted = diversions.remove(num);
+						if (diverted != null)
+						{
+							output(diverted);
+						}
+					}
+				}
+			}
+			return "";
+		case INCLUDE:
+		case SINCLUDE:
+		{
+			String name = arg(args, 1);
+			File file = findInclude(name);
+			if (file == null)
+			{
+				if (builtin == Builtin.INCLUDE)
+				{
+					report(Severity.RECOV_ERROR, "Cannot open include file \"" + name + "\".");
+				}
+				return "";
+			}
+			try
+			{
+				files_read.put(file, file.lastModified());
+				pushInput(new Input(readFile(file), file.getPath()));
+			}
+			catch (IOException e)
+			{
+				report(Severity.RECOV_ERROR, "Cannot read include file \"" + file + "\": " + e.getMessage());
+			}
+			return "";
+		}
+		case CHANGEQUOTE:
+			lquote = (argc >= 1) ? args.get(1) : "`";
+			rquote = (argc >= 2) ? args.get(2) : (lquote.length() == 0) ? "" : "'";
+			if (lquote.length() == 0)
+			{
+				rquote = "";
+			}
+			return "";
+		case CHANGECOM:
+			bcomm = (argc >= 1) ? args.get(1) : "";
+			ecomm = ((argc >= 2) && (args.get(2).length() > 0)) ? args.get(2) : "\n";
+			if (bcomm.length() == 0)
+			{
+				ecomm = "";
+			}
+			return "";
+		case EVAL:
+		{
+			Integer radix = numericArg(args, 2, 10);
+			Integer width = numericArg(args, 3, 1);
+			if ((radix == null) || (width == null))
+			{
+				return "";
+			}
+			if ((radix < 2) || (radix > 36))
+			{
+				report(Severity.RECOV_ERROR, "Bad radix in m4_eval: " + radix + ".");
+				return "";
+			}
+			Integer value = new M4Expression(arg(args, 1)).evaluate();
+			if (value == null)
+			{
+				return "";
+			}
+			String digits = Integer.toString(Math.abs(value), radix);
+			if (value == Integer.MIN_VALUE)
+			{
+				digits = Long.toString(-(long)value, radix);
+			}
+			StringBuilder ret = new StringBuilder((value < 0) ? "-" : "");
+			for (int i = digits.length(); i < width; i++)
+			{
+				ret.append('0');
+			}
+			return ret.append(digits).toString();
+		}
+		case INCR:
+		case DECR:
+		{
+			Integer value = numericArg(args, 1, 0);
+			return (value == null) ? "" : Integer.toString(value + ((builtin == Builtin.INCR) ? 1 : -1));
+		}
+		case LEN:
+			return Integer.toString(arg(args, 1).length());
+		case INDEX:
+			return Integer.toString(arg(args, 1).indexOf(arg(args, 2)));
+		case SUBSTR:
+		{
+			String str = arg(args, 1);
+			Integer from = numericArg(args, 2, 0);
+			Integer len = numericArg(args, 3, str.length());
+			if ((argc < 2) || (from == null) || (len == null) || (from < 0) || (from >= str.length()) || (len <= 0))
+			{
+				return (argc < 2) ? str : "";
+			}
+			return str.substring(from, (int)Math.min((long)from + len, str.length()));
+		}
+		case TRANSLIT:
+		{
+			String from = expandRanges(arg(args, 2));
+			String to = expandRanges(arg(args, 3));
+			StringBuilder ret = new StringBuilder();
+			for (char ch: arg(args, 1).toCharArray())
+			{
+				int i = from.indexOf(ch);
+				if (i < 0)
+				{
+					ret.append(ch);
+				}
+				else if (i < to.length())
+				{
+					ret.append(to.charAt(i));
+				}
+			}
+			return ret.toString();
+		}
+		case PATSUBST:
+		case REGEXP:
+		{
+			Pattern pattern;
+			try
+			{
+				pattern = Pattern.compile(translateRegexp(arg(args, 2)));
+			}
+			catch (PatternSyntaxException e)
+			{
+				report(Severity.RECOV_ERROR, "Bad regular expression \"" + arg(args, 2) + "\": " + e.getDescription());
+				return "";
+			}
+			Matcher matcher = pattern.matcher(arg(args, 1));
+			if (builtin == Builtin.REGEXP)
+			{
+				boolean found = matcher.find();
+				return (argc < 3) ? Integer.toString(found ? matcher.start() : -1) :
+				       found      ? substituteMatch(matcher, args.get(3)) : "";
+			}
+			StringBuilder ret = new StringBuilder();
+			int pos = 0;
+			while (matcher.find())
+			{
+				ret.append(arg(args, 1), pos, matcher.start());
+				ret.append(substituteMatch(matcher, arg(args, 3)));
+				pos = matcher.end();
+			}
+			return ret.append(arg(args, 1), pos, arg(args, 1).length()).toString();
+		}
+		case ERRPRINT:
+		{
+			for (int i = 1; i <= argc; i++)
+			{
+				System.err.print(((i > 1) ? " " : "") + args.get(i));
+			}
+			System.err.flush();
+			return "";
+		}
+		case FILE:
+		{
+			Input file = currentFile();
+			return quote((file == null) ? "" : file.file_name);
+		}
+		case LINE:
+		{
+			Input file = currentFile();
+			return (file == null) ? "0" : Integer.toString(file.line);
+		}
+		}
+		return "";
+	}
+	
+	// Find an include file, in the current directory, then the include directories.
+	private File findInclude(String name)
+	{
+		File file = new File(name);
+		if (file.isFile() || file.isAbsolute())
+		{
+			return file.isFile() ? file : null;
+		}
+		for (String dir: include_dirs)
+		{
+			file = new File(dir + "/" + name);
+			if (file.isFile())
+			{
+				return file;
+			}
+		}
+		return null;
+	}
+	
+	// Expand "a-z" ranges for m4_translit.
+	private static String expandRanges(String str)
+	{
+		StringBuilder ret = new StringBuilder();
+		for (int i = 0; i < str.length(); i++)
+		{
+			char ch = str.charAt(i);
+			if ((ch == '-') && (i > 0) && (i + 1 < str.length()))
+			{
+				char from = str.charAt(i - 1);
+				char to = str.charAt(++i);
+				if (from <= to)
+				{
+					for (char c = (char)(from + 1); c <= to; c++)
+					{
+						ret.append(c);
+					}
+				}
+				else
+				{
+					for (char c = (char)(from - 1); c >= to; c--)
+					{
+						ret.append(c);
+					}
+				}
+			}
+			else
+			{
+				ret.append(ch);
+			}
+		}
+		return ret.toString();
+	}
+	
+	/**
+	 * Translate an M4 (GNU Emacs syntax) regular expression to a java.util.regex one.  In M4, '\(', '\)', '\|', '\{', and '\}'
+	 * are operators and their unescaped chars are literal.
+	 */
+	static String translateRegexp(String regexp)
+	{
+		StringBuilder ret = new StringBuilder();
+		int len = regexp.length();
+		for (int i = 0; i < len; i++)
+		{
+			char ch = regexp.charAt(i);
+			if ((ch == '\\') && (i + 1 < len))
+			{
+				char next_ch = regexp.charAt(++i);
+				switch (next_ch)
+				{
+				case '(':
+				case ')':
+				case '|':
+				case '{':
+				case '}':
+					ret.append(next_ch);
+					break;
+				case '<':
+					ret.append("\\b(?=\\w)");
+					break;
+				case '>':
+					ret.append("\\b(?<=\\w)");
+					break;
+				case '`':
+					ret.append("\\A");
+					break;
+				case '\'':
+					ret.append("\\z");
+					break;
+				default:
+					if (Character.isLetterOrDigit(next_ch))
+					{
+						ret.append('\\').append(next_ch);  // \w, \W, \b, \B, and back-references.
+					}
+					else
+					{
+						ret.append(Pattern.quote(Character.toString(next_ch)));
+					}
+				}
+			}
+			else if ((ch == '(') || (ch == ')') || (ch == '|') || (ch == '{') || (ch == '}'))
+			{
+				ret.append('\\').append(ch);
+			}
+			else if (ch == '[')
+			{
+				// Bracket expression.  Backslash is literal within.
+				ret.append('[');
+				i++;
+				if ((i < len) && (regexp.charAt(i) == '^'))
+				{
+					ret.append('^');
+					i++;
+				}
+				boolean first = true;
+				for (; i < len; i++)
+				{
+					char class_ch = regexp.charAt(i);
+					if ((class_ch == ']') && !first)
+					{
+						break;
+					}
+					first = false;
+					if ((class_ch == '[') && (i + 1 < len) && (regexp.charAt(i + 1) == ':'))
+					{
+						int end = regexp.indexOf(":]", i + 2);
+						if (end > 0)
+						{
+							ret.append("\\p{" + Character.toUpperCase(regexp.charAt(i + 2)) + regexp.substring(i + 3, end) + "}");
+							i = end + 1;
+							continue;
+						}
+					}
+					if ((class_ch == '\\') || (class_ch == '[') || (class_ch == ']') || (class_ch == '&'))
+					{
+						ret.append('\\');
+					}
+					ret.append(class_ch);
+				}
+				ret.append(']');
+			}
+			else
+			{
+				ret.append(ch);
+			}
+		}
+		return ret.toString();
+	}
+	
+	// The replacement text for a match of m4_patsubst or m4_regexp: "\&" or "\0" is the match and "\1"-"\9" are groups.
+	private static String substituteMatch(Matcher matcher, String replacement)
+	{
+		StringBuilder ret = new StringBuilder();
+		int len = replacement.length();
+		for (int i = 0; i < len; i++)
+		{
+			char ch = replacement.charAt(i);
+			if ((ch != '\\') || (i + 1 == len))
+			{
+				ret.append(ch);
+				continue;
+			}
+			ch = replacement.charAt(++i);
+			if ((ch == '&') || ((ch >= '0') && (ch <= '9')))
+			{
+				int group = (ch == '&') ? 0 : (ch - '0');
+				if ((group <= matcher.groupCount()) && (matcher.group(group) != null))
+				{
+					ret.append(matcher.group(group));
+				}
+			}
+			else
+			{
+				ret.append(ch);
+			}
+		}
+		return ret.toString();
+	}
+	
+	
+	/**
+	 * An m4_eval expression: C integer operators (32-bit) and '**', with M4's numeric formats (0x.., 0b.., 0r<radix>:.., 0.. for
+	 * octal, and decimal).
+	 */
+	private class M4Expression
+	{
+		private String str;
+		private int pos = 0;
+		private String error = null;
+		
+		M4Expression(String str_)
+		{
+			str = str_;
+		}
+		
+		// The value, or null after reporting an error.
+		Integer evaluate()
+		{
+			int value = 0;
+			try
+			{
+				value = conditional();
+				skipSpace();
+				if ((error == null) && (pos < str.length()))
+				{
+					error = "Bad expression";
+				}
+			}
+			catch (ArithmeticException e)
+			{
+				error = "Divide by zero";
+			}
+			if (error != null)
+			{
+				report(Severity.RECOV_ERROR, error + " in m4_eval: " + str);
+				return null;
+			}
+			return value;
+		}
+		
+		private void skipSpace()
+		{
+			while ((pos < str.length()) && Character.isWhitespace(str.charAt(pos)))
+			{
+				pos++;
+			}
+		}
+		
+		// Parse the given operator (not a prefix of a longer one that is excluded).
+		private boolean parseOp(String op, String excluded)
+		{
+			skipSpace();
+			if (str.startsWith(op, pos) && ((excluded == null) || !str.startsWith(excluded, pos)))
+			{
+				pos += op.length();
+				return true;
+			}
+			return false;
+		}
+		private boolean parseOp(String op)
+		{
+			return parseOp(op, null);
+		}
+		
+		private int conditional()
+		{
+			int cond = logicalOr();
+			if (parseOp("?"))
+			{
+				int if_true = conditional();
+				if (!parseOp(":"))
+				{
+					error = "Missing ':'";
+				}
+				int if_false = conditional();
+				return (cond != 0) ? if_true : if_false;
+			}
+			return cond;
+		}
+		
+		private int logicalOr()
+		{
+			int value = logicalAnd();
+			while (parseOp("||"))
+			{
+				int rhs = logicalAnd();
+				value = ((value != 0) || (rhs != 0)) ? 1 : 0;
+			}
+			return value;
+		}
+		
+		private int logicalAnd()
+		{
+			int value = bitOr();
+			while (parseOp("&&"))
+			{
+				int rhs = bitOr();
+				value = ((value != 0) && (rhs != 0)) ? 1 : 0;
+			}
+			return value;
+		}
+		
+		private int bitOr()
+		{
+			int value = bitXor();
+			while (parseOp("|", "||"))
+			{
+				value |= bitXor();
+			}
+			return value;
+		}
+		
+		private int bitXor()
+		{
+			int value = bitAnd();
+			while (parseOp("^"))
+			{
+				value ^= bitAnd();
+			}
+			return value;
+		}
+		
+		private int bitAnd()
+		{
+			int value = equality();
+			while (parseOp("&", "&&"))
+			{
+				value &= equality();
+			}
+			return value;
+		}
+		
+		private int equality()
+		{
+			int value = relational();
+			while (true)
+			{
+				if (parseOp("=="))
+				{
+					value = (value == relational()) ? 1 : 0;
+				}
+				else if (parseOp("!="))
+				{
+					value = (value != relational()) ? 1 : 0;
+				}
+				else
+				{
+					return value;
+				}
+			}
+		}
+		
+		private int relational()
+		{
+			int value = shift();
+			while (true)
+			{
+				if (parseOp("<=", null))
+				{
+					value = (value <= shift()) ? 1 : 0;
+				}
+				else if (parseOp(">="))
+				{
+					value = (value >= shift()) ? 1 : 0;
+				}
+				else if (parseOp("<", "<<"))
+				{
+					value = (value < shift()) ? 1 : 0;
+				}
+				else if (parseOp(">", ">>"))
+				{
+					value = (value > shift()) ? 1 : 0;
+				}
+				else
+				{
+					return value;
+				}
+			}
+		}
+		
+		private int shift()
+		{
+			int value = additive();
+			while (true)
+			{
+				if (parseOp("<<"))
+				{
+					value <<= additive();
+				}
+				else if (parseOp(">>"))
+				{
+					value >>= additive();
+				}
+				else
+				{
+					return value;
+				}
+			}
+		}
+		
+		private int additive()
+		{
+			int value = multiplicative();
+			while (true)
+			{
+				if (parseOp("+"))
+				{
+					value += multiplicative();
+				}
+				else if (parseOp("-"))
+				{
+					value -= multiplicative();
+				}
+				else
+				{
+					return value;
+				}
+			}
+		}
+		
+		private int multiplicative()
+		{
+			int value = exponent();
+			while (true)
+			{
+				if (parseOp("*", "**"))
+				{
+					value *= exponent();
+				}
+				else if (parseOp("/"))
+				{
+					value /= exponent();
+				}
+				else if (parseOp("%"))
+				{
+					value %= exponent();
+				}
+				else
+				{
+					return value;
+				}
+			}
+		}
+		
+		// Right-associative.
+		private int exponent()
+		{
+			int value = unary();
+			if (parseOp("**"))
+			{
+				int power = exponent();
+				if (power < 0)
+				{
+					error = "Negative exponent";
+					return 0;
+				}
+				int result = 1;
+				for (int i = 0; i < power; i++)
+				{
+					result *= value;
+				}
+				return result;
+			}
+			return value;
+		}
+		
+		private int unary()
+		{
+			if (parseOp("+"))
+			{
+				return unary();
+			}
+			if (parseOp("-"))
+			{
+				return -unary();
+			}
+			if (parseOp("~"))
+			{
+				return ~unary();
+			}
+			if (parseOp("!", "!="))
+			{
+				return (unary() == 0) ? 1 : 0;
+			}
+			return primary();
+		}
+		
+		private int primary()
+		{
+			if (parseOp("("))
+			{
+				int value = conditional();
+				if (!parseOp(")"))
+				{
+					error = "Missing ')'";
+				}
+				return value;
+			}
+			skipSpace();
+			int radix = 10;
+			if (str.startsWith("0x", pos) || str.startsWith("0X", pos))
+			{
+				radix = 16;
+				pos += 2;
+			}
+			else if (str.startsWith("0b", pos) || str.startsWith("0B", pos))
+			{
+				radix = 2;
+				pos += 2;
+			}
+			else if (str.startsWith("0r", pos) || str.startsWith("0R", pos))
+			{
+				int colon = str.indexOf(':', pos);
+				try
+				{
+					radix = Integer.parseInt(str.substring(pos + 2, colon));
+				}
+				catch (RuntimeException e)
+				{
+					radix = 0;
+				}
+				if ((radix < 1) || (radix > 36))
+				{
+					error = "Bad radix";
+					return 0;
+				}
+				pos = colon + 1;
+			}
+			else if (str.startsWith("0", pos))
+			{
+				radix = 8;
+			}
+			int start = pos;
+			int value = 0;
+			while (pos < str.length())
+			{
+				int digit = Character.digit(str.charAt(pos), 36);
+				if ((digit < 0) || (digit >= Math.max(radix, 2)))
+				{
+					break;
+				}
+				value = value * radix + digit;
+				pos++;
+			}
+			if (pos == start)
+			{
+				error = "Bad expression";
+			}
+			return value;
+		}
+	}
+}
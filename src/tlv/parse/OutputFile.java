@@ -0,0 +1,220 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.parse;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A generated file that is only replaced if its content changes, so unchanged outputs keep their timestamps (and
+ * make-based flows do not rebuild from them).  Content is written to a temporary file in the same directory, which,
+ * upon commit(), replaces the file (atomically, where supported) if its content differs, or is deleted.  The temporary
+ * file is named ".<name>.<pid>.<random>.tmp", so temporary files left by killed processes can be recognized and are
+ * deleted by the next OutputFile for the same file.
+ */
+public class OutputFile
+{
+	private File file;
+	private File tmp_file;   // The temporary file, or null once committed.
+	private boolean changed = false;
+	
+	
+	/**
+	 * Creates the temporary file for file_ (after deleting stale ones).
+	 */
+	public OutputFile(File file_) throws IOException
+	{
+		file = file_;
+		File dir = file.getAbsoluteFile().getParentFile();
+		String prefix = "." + file.getName() + ".";
+		deleteStaleTmpFiles(dir, prefix);
+		tmp_file = File.createTempFile(prefix + ProcessHandle.current().pid() + ".", ".tmp", dir);
+	}
+	
+	/**
+	 * Delete temporary files with the given prefix whose process no longer exists.  (Those of live processes may be in
+	 * progress.)  Failures are ignored.
+	 */
+	private static void deleteStaleTmpFiles(File dir_, String prefix_)
+	{
+		File [] files = dir_.listFiles();
+		if (files == null)
+		{
+			return;
+		}
+		for (File tmp : files)
+		{
+			String name = tmp.getName();
+			if (!name.startsWith(prefix_) || !name.endsWith(".tmp"))
+			{
+				continue;
+			}
+			// Parse <pid> from "<prefix><pid>.<random>.tmp".
+			String rest = name.substring(prefix_.length());
+			int dot = rest.indexOf('.');
+			long pid;
+			try
+			{
+				pid = Long.parseLong(rest.substring(0, Math.max(dot, 0)));
+			}
+			catch (NumberFormatException e)
+			{
+				continue;
+			}
+			if (!ProcessHandle.of(pid).isPresent())
+			{
+				tmp.delete();
+			}
+		}
+	}
+	
+	/**
+	 * @return A writer of the content of this file.
+	 */
+	public FileWriter openWriter() throws IOException
+	{
+		return new FileWriter(tmp_file);
+	}
+	
+	public File getFile()
+	{
+		return file;
+	}
+	
+	/**
+	 * @return True iff commit() replaced the file.
+	 */
+	public boolean isChanged()
+	{
+		return changed;
+	}
+	
+	/**
+	 * Replace the file with the content written so far (which should be complete, with writers closed), if it differs.
+	 * Subsequent calls have no effect.
+	 * @return True iff the file was replaced.
+	 */
+	public boolean commit() throws IOException
+	{
+		if (tmp_file == null)
+		{
+			return false;
+		}
+		File tmp = tmp_file;
+		tmp_file = null;
+		
+		if (sameContent(tmp, file))
+		{
+			Files.delete(tmp.toPath());
+			return false;
+		}
+		try
+		{
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		changed = true;
+		return true;
+	}
+	
+	/**
+	 * Copy a file, only if the destination does not already have the same content.
+	 * @return True iff to_ was written.
+	 */
+	public static boolean copyIfChanged(File from_, File to_) throws IOException
+	{
+		if (sameContent(from_, to_))
+		{
+			return false;
+		}
+		Files.copy(from_.toPath(), to_.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return true;
+	}
+	
+	/**
+	 * @return True iff both files exist and have the same content.
+	 */
+	public static boolean sameContent(File a_, File b_) throws IOException
+	{
+		if (!a_.isFile() || !b_.isFile() || a_.length() != b_.length())
+		{
+			return false;
+		}
+		InputStream a_in = new BufferedInputStream(new FileInputStream(a_), 1 << 16);
+		try
+		{
+			InputStream b_in = new BufferedInputStream(new FileInputStream(b_), 1 << 16);
+			try
+			{
+				byte [] a_buf = new byte[1 << 16];
+				byte [] b_buf = new byte[1 << 16];
+				int a_len;
+				while ((a_len = a_in.read(a_buf)) > 0)
+				{
+					// Fill the same length from b_.
+					int b_len = 0;
+					while (b_len < a_len)
+					{
+						int len = b_in.read(b_buf, b_len, a_len - b_len);
+						if (len < 0)
+						{
+							return false;
+						}
+						b_len += len;
+					}
+					for (int i = 0; i < a_len; i++)
+					{
+						if (a_buf[i] != b_buf[i])
+						{
+							return false;
+						}
+					}
+				}
+				return b_in.read() < 0;
+			}
+			finally
+			{
+				b_in.close();
+			}
+		}
+		finally
+		{
+			a_in.close();
+		}
+	}
+}
@@ -233,6 +233,19 @@ public class ParseBranch extends ParseIdentifierNode
 	{
 		parseNodes.add(node);
 		numLines_parseNodes += node.getNumLines_Self();
+		
+		// Nodes are added in source order, so the node's line follows the last line of its source.
+		ParseSource parse_source = (this instanceof ParseSource) ? (ParseSource)this : getLineSource();
+		if (parse_source != null)
+		{
+			node.setFileLine(parse_source, parse_source.next_line_num);
+			parse_source.next_line_num += node.getNumLines_Self();
+		}
+		if (node instanceof ParseSource)
+		{
+			// Lines within a \source node are lines of its source.
+			((ParseSource)node).next_line_num = ((ParseSource)node).start_line_num + node.getNumLines_Self();
+		}
 	}
 	
 	
@@ -27,6 +27,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package tlv.parse;
 
+import java.util.Vector;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -44,7 +45,7 @@ import tlv.utilities.Severity;
  */
 public class ParseContext
 {
-	protected ActiveParseContext active_context = null;  // The one instance of this class.  (Eventually, this could be per-thread.)
+	protected ActiveParseContext active_context = null;  // The ActiveParseContext of the thread (and translation) this context belongs to.
 	
 	private ParseNode parse_node = null;  // The node most recently parsed.
 	private String str = null;   // Text being processed subsequent to the given node, or null if parsing is of parse_node.
@@ -529,18 +530,76 @@ public class ParseContext
 		return ret;
 	}
 	
-	// Quick-and-dirty limit on number of errors.
-	static int error_count = 0;
+	// Quick-and-dirty limit on number of errors (counted in active_context.error_count).
 	static final int ERROR_LIMIT = 100;
 	
 	boolean reporting_exception = false;  // Used to avoid reporting errors which reporting errors.
 	
+	/**
+	 * A report captured, rather than emitted, by a thread that defers its reports (see deferReports(..)).
+	 */
+	public static class DeferredReport
+	{
+		private final ParseContext context;
+		private final Diagnostic diagnostic;
+		private final SourceFile source_file;
+		
+		private DeferredReport(ParseContext context_, Diagnostic diagnostic_, SourceFile source_file_)
+		{
+			context = context_;
+			diagnostic = diagnostic_;
+			source_file = source_file_;
+		}
+	}
+	
+	/**
+	 * Thrown (in place of terminating) by a report of a fatal error in a thread that defers its reports.  The fatal error
+	 * terminates when the deferred reports are emitted.
+	 */
+	public static class DeferredFatalException extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+	}
+	
+	// The reports captured by this thread, or null if this thread's reports are emitted as they are made.
+	static private ThreadLocal<Vector<DeferredReport>> deferred_reports = new ThreadLocal<Vector<DeferredReport>>();
+	
+	/**
+	 * Capture reports made by this thread, for work done in parallel, so they can be emitted in a deterministic order.
+	 * @param reports_ The Vector to which to add this thread's reports, or null to resume emitting reports as they are made.
+	 * @return The prior Vector (or null), to be restored (by deferReports(..)) when the work is done.
+	 */
+	public static Vector<DeferredReport> deferReports(Vector<DeferredReport> reports_)
+	{
+		Vector<DeferredReport> prior_reports = deferred_reports.get();
+		if (reports_ == null)
+		{
+			deferred_reports.remove();
+		} else
+		{
+			deferred_reports.set(reports_);
+		}
+		return prior_reports;
+	}
+	
+	/**
+	 * Emit reports captured under deferReports(..), in order, as if they were reported now.
+	 */
+	public static void emitDeferredReports(Vector<DeferredReport> reports_)
+	{
+		for (DeferredReport report : reports_)
+		{
+			report.context.emitReport(report.diagnostic, report.source_file);
+			report.context.checkErrorLimit(report.diagnostic.getSeverity());
+		}
+	}
+	
 	/**
 	 * Report an error/warning/inform.
 	 * @param context_offset Character offset to report against from the parse location of this context.
 	 * @param message Error message.
 	 */
-	public void reportException(int context_offset, final Severity sev, String tag, String message, Exception e)
+	public synchronized void reportException(int context_offset, final Severity sev, String tag, String message, Exception e)
 	{
 		// Three relevant positions in the parse string.
 		// string pos:  Beginning of the parse string.
@@ -564,6 +623,8 @@ public class ParseContext
 	    	                                                          (SourceFile)parse_node.getParseBranch_ofType(NodeType.FILE);
 		String error_report_str = sev.toString() + "(" + sev.getExitCode() + ") (" + tag + "): ";
 		String source_file_str = ((source_file == null) ? "<unknown>" : source_file.getSourceFile().toString());
+		int report_line = -1;
+		int report_column = -1;
 
 		error_report_str += "File \'" + source_file_str + "\'";
 		if ((pos < 0) || (source_file == null))
@@ -637,7 +698,9 @@ public class ParseContext
 				line_pos++;
 			}
 			
-			error_report_str += " Line " + (computed_str_line_num + str_lines_to_report) + " (char " + (line_pos + 1) + ")" + source_stack_str +
+			report_line = computed_str_line_num + str_lines_to_report;
+			report_column = line_pos + 1;
+			error_report_str += " Line " + report_line + " (char " + report_column + ")" + source_stack_str +
 		                        ", while parsing:\n" + sourceCodePointerBar(line_pos, "v");
 	        // Print parse_str.
 			p = 0;
@@ -685,9 +748,42 @@ public class ParseContext
 			}
 		}
 		
-		// Actually report it.
-		System.err.print(error_report_str);
-		System.err.flush();
+		Diagnostic diagnostic = new Diagnostic(sev, tag, message, (source_file == null) ? null : source_file_str, report_line, report_column, error_report_str);
+		
+		// Capture it if this thread defers its reports.
+		Vector<DeferredReport> deferred = deferred_reports.get();
+		if (deferred != null)
+		{
+			deferred.add(new DeferredReport(this, diagnostic, source_file));
+			reporting_exception = false;
+			if (sev == Severity.FATAL_BUG ||
+			    sev == Severity.FATAL_ERROR)
+			{
+				throw new DeferredFatalException();
+			}
+			return;
+		}
+		
+		emitReport(diagnostic, source_file);
+		
+		
+		reporting_exception = false;
+		
+		
+		checkErrorLimit(sev);
+	}
+	
+	// Actually report, and exit if fatal.
+	private void emitReport(Diagnostic diagnostic, SourceFile source_file)
+	{
+		Severity sev = diagnostic.getSeverity();
+		String error_report_str = diagnostic.getReport();
+		active_context.getDiagnostics().add(diagnostic);
+		if (active_context.print_reports)
+		{
+			System.err.print(error_report_str);
+			System.err.flush();
+		}
 		if (source_file != null)
 		{
 			source_file.printError(error_report_str);
@@ -701,18 +797,17 @@ public class ParseContext
 		if (sev == Severity.FATAL_BUG ||
 		    sev == Severity.FATAL_ERROR)
 		{
-			System.exit(active_context.exit_status);
+			active_context.terminate(active_context.exit_status);
 		}
-		
-		
-		reporting_exception = false;
-		
-		
-		// Quick-and-dirty error limit.
-		if (sev.ordinal() > Severity.INFORM.ordinal() && error_count++ > ERROR_LIMIT)
+	}
+	
+	// Quick-and-dirty error limit.
+	private void checkErrorLimit(Severity sev)
+	{
+		if (sev.ordinal() > Severity.INFORM.ordinal() && active_context.error_count++ > ERROR_LIMIT)
 		{
+			active_context.error_count = 0;  // Avoid recursion.
 			report(0, Severity.FATAL_ERROR, "ERR-LIMIT", "Error limit of " + ERROR_LIMIT + " reached.");
-			error_count = 0;  // Avoid recursion.
 		}
 	}
 	
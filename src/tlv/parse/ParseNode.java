@@ -60,10 +60,19 @@ public class ParseNode
 	protected int indentation;
 	protected int numLines_self;
 	
+	// The source and line number of this node, recorded by ParseBranch.addNode(..) as the file is parsed, so
+	// getFileLine() needn't count lines.  Null for nodes that were not added in source order.
+	private ParseSource line_source = null;
+	private int line_num = -1;
+	
 	protected String string;  // TODO: Get rid of this?  Turn it into a method.
 	protected int endOfStringIndex;
 	
 	protected String stringWithoutIndentation;  // TODO: Phase out, or move into certain derived classes.
+	// Multi-line text, built by appendNode(..), and joined into string and stringWithoutIndentation by joinLines() when needed.
+	private StringBuilder string_lines = null;
+	private StringBuilder string_without_indentation_lines = null;
+	private boolean lines_joined = true;
 	protected String stringSV;
 	protected String sv_end_scope_str = null;  // The SV string that ends this scope.
 	
@@ -132,6 +141,7 @@ public class ParseNode
 		firstCommentIndex = source_node.getFirstCommentIndex();
 		endOfStringIndex = source_node.getEndOfStringIndex();
 		
+		source_node.joinLines();
 		string = source_node.string;
 		stringSV = source_node.stringSV;
 		stringWithoutIndentation = source_node.stringWithoutIndentation;
@@ -224,6 +234,7 @@ public class ParseNode
 	 */
 	public String getString()
 	{
+		joinLines();
 		return string;
 	}
 	
@@ -234,6 +245,7 @@ public class ParseNode
 	 */
 	public String getStringWithoutIndentation()
 	{
+		joinLines();
 		return stringWithoutIndentation;
 	}
 	
@@ -331,6 +343,7 @@ public class ParseNode
 	 * @return boolean value identifying if the line remains in comment context at end of the line
 	 */
 	public boolean scan_for_comments(boolean isWithinCommentContext){
+		joinLines();
 		return scan_for_comments(string, isWithinCommentContext, 0);
 	}
 	
@@ -412,24 +425,45 @@ public class ParseNode
 	 */
 	public void appendNode(ParseNode node)
 	{
+		if (string_lines == null)
+		{
+			string_lines = new StringBuilder().append(string);
+			string_without_indentation_lines = new StringBuilder().append(stringWithoutIndentation);
+		}
+		node.joinLines();
+		
 		if(node.getEndOfStringIndex() >= 0){
-			this.endOfStringIndex = this.string.length() + 1 + node.getEndOfStringIndex();
+			this.endOfStringIndex = this.string_lines.length() + 1 + node.getEndOfStringIndex();
 		}
 		
-		this.string += "\n" + node.string;
-		this.stringWithoutIndentation += "\n" + node.stringWithoutIndentation;
+		this.string_lines.append('\n').append(node.string);
+		this.string_without_indentation_lines.append('\n').append(node.stringWithoutIndentation);
 		this.numLines_self += node.numLines_self;
+		lines_joined = false;
+	}
+	
+	/**
+	 * Join the lines appended by appendNode(..) into string and stringWithoutIndentation (if not already joined).
+	 */
+	protected void joinLines()
+	{
+		if (!lines_joined)
+		{
+			string = string_lines.toString();
+			stringWithoutIndentation = string_without_indentation_lines.toString();
+			lines_joined = true;
+		}
 	}
 	
 	public String getLastLine()
 	{
-		String sub_string = stringWithoutIndentation;
-		
-		while(sub_string.contains("\n"))
+		CharSequence text = (string_without_indentation_lines != null) ? string_without_indentation_lines : stringWithoutIndentation;
+		int pos = text.length();
+		while ((pos > 0) && (text.charAt(pos - 1) != '\n'))
 		{
-			sub_string = sub_string.substring(sub_string.indexOf("\n")+1);
+			pos--;
 		}
-		return sub_string;
+		return text.subSequence(pos, text.length()).toString();
 	}
 	
 	
@@ -505,12 +539,48 @@ public class ParseNode
 	}
 	
 
+	/**
+	 * Record the source file and line number of this node.  Called by ParseBranch.addNode(..) as nodes are added in source order.
+	 */
+	void setFileLine(ParseSource parse_source_, int line_num_)
+	{
+		line_source = parse_source_;
+		line_num = line_num_;
+	}
+	
+	ParseSource getLineSource()
+	{
+		return line_source;
+	}
+
 	/**
 	 * @return The source file and line number of this node.
 	 * 
-	 * It evaluates by adding its parents' line count to the number of lines from its parent to itself, until the parent is a ParseSource.
+	 * This is recorded as the node is parsed.  With --verbose, it is checked against countFileLine().
 	 */
 	public FileLine getFileLine()
+	{
+		if (line_source == null)
+		{
+			return countFileLine();
+		}
+		if ((ActiveParseContext.GetOptions() != null) && (ActiveParseContext.GetOptions().verbosity() > 0))
+		{
+			FileLine counted_file_line = countFileLine();
+			if ((counted_file_line.parse_source != line_source) || (counted_file_line.line_num != line_num))
+			{
+				ActiveParseContext.Report(0, Severity.BUG, "BUG", "Recorded line number (" + line_num + ") differs from counted line number (" + counted_file_line.line_num + ").");
+			}
+		}
+		return new FileLine(line_source, line_num);
+	}
+	
+	/**
+	 * @return The source file and line number of this node, by counting lines in the parse tree.
+	 * 
+	 * It evaluates by adding its parents' line count to the number of lines from its parent to itself, until the parent is a ParseSource.
+	 */
+	public FileLine countFileLine()
 	{
 		if (parent == null) {
 			ActiveParseContext.Report(0, Severity.BUG, "BUG", "parent is null.");
@@ -531,7 +601,7 @@ public class ParseNode
 		else
 		{
 			// Recurse to find parents line number.
-			FileLine start_file_line = parent.getFileLine();
+			FileLine start_file_line = parent.countFileLine();
 			parse_source = start_file_line.parse_source;
 			cnt += start_file_line.line_num;
 		}
@@ -554,7 +624,7 @@ public class ParseNode
 	{
 		if (end_str == null) return last_sv_line;
 		
-		if (Main.command_line_options.bestSv())
+		if (ActiveParseContext.GetOptions().bestSv())
 		{
 			last_sv_line += "\n" + indentation + end_str;
 		} else
@@ -589,7 +659,7 @@ public class ParseNode
 		if (parent.parseNodes.size() == 1)
 		{
 		    // This appears to be the first node after the version line.
-		    stringSV = "`include \"tlv_" + Main.command_line_options.project() + ".vh\"  " + stringSV;
+		    stringSV = "`include \"tlv_" + ActiveParseContext.GetOptions().project() + ".vh\"  " + stringSV;
 		}
 	}
 }
@@ -50,6 +50,9 @@ public class ParseSource extends ParseBranch
 	protected File source_file;
 	
 	int start_line_num = -1;
+	
+	// The line number of the next node added within this source (by ParseBranch.addNode(..)).
+	int next_line_num = -1;
 
 	/**
      * Constructs a ParseSource from a source_node and links it with another ParseBranch parent_branch object.
@@ -73,6 +76,7 @@ public class ParseSource extends ParseBranch
 		super();
 		source_file = _source_file;
 		start_line_num = 1;
+		next_line_num = start_line_num + getNumLines_Self();
 	}
 	
 	public File getSourceFile()
@@ -27,7 +27,6 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package tlv.parse;
 
-import tlv.Main;
 import tlv.utilities.Severity;
 
 /**
@@ -65,7 +64,7 @@ public class ParseTLVVersion extends ParseNode
 		}
 		
 		// Set stringSV.
-		stringSV = (Main.command_line_options.noLine() ? "" :
+		stringSV = (ActiveParseContext.GetOptions().noLine() ? "" :
 				       "`line 2 \"" + ((SourceFile)(this.getParseBranch_ofType(NodeType.FILE))).getTlvFile().getName() + "\"") +
 				   "// " + stringWithoutIndentation;
 	}
@@ -0,0 +1,218 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.parse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * The text of a source file, decoded in a single pass from a bulk read, with an index of its lines.
+ *
+ * Lines are delimited as by java.util.Scanner.nextLine(): by "\r\n", '\n', '\r', '\u2028', '\u2029', or '\u0085'.
+ * The file is decoded using the platform's default charset, with malformed input replaced.
+ */
+public class SourceBuffer
+{
+	private char [] text;
+	private int length;
+	
+	private int num_lines;
+	private int [] line_starts;  // Offset of the start of each line.  line_starts[num_lines] == length.
+	private int [] line_ends;    // Offset of the end of each line's content (excluding the line terminator).
+	private int token_end;       // Offset after the last non-whitespace char.
+	
+	
+	public SourceBuffer(File file) throws IOException
+	{
+		// Bulk read.
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		ByteBuffer bytes;
+		try
+		{
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+			{
+				throw new IOException("File too large: " + file);
+			}
+			bytes = ByteBuffer.allocate((int)size);
+			while (bytes.hasRemaining() && (channel.read(bytes) >= 0)) {}
+			bytes.flip();
+		}
+		finally
+		{
+			channel.close();
+		}
+		
+		// Decode.
+		CharBuffer chars = Charset.defaultCharset().newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE)
+				.decode(bytes);
+		text = chars.array();
+		length = chars.limit();
+		
+		indexLines();
+	}
+	
+	/**
+	 * A buffer of the given text (for in-memory translation).
+	 */
+	public SourceBuffer(String text_)
+	{
+		text = text_.toCharArray();
+		length = text.length;
+		
+		indexLines();
+	}
+	
+	/**
+	 * Build the line index.
+	 */
+	private void indexLines()
+	{
+		int capacity = 1024;
+		line_starts = new int[capacity + 1];
+		line_ends = new int[capacity];
+		num_lines = 0;
+		token_end = 0;
+		int start = 0;
+		int pos = 0;
+		while (pos < length)
+		{
+			char ch = text[pos];
+			int terminator_len = 0;
+			if (ch == '\r')
+			{
+				terminator_len = ((pos + 1 < length) && (text[pos + 1] == '\n')) ? 2 : 1;
+			}
+			else if ((ch == '\n') || (ch == '\u2028') || (ch == '\u2029') || (ch == '\u0085'))
+			{
+				terminator_len = 1;
+			}
+			if (!Character.isWhitespace(ch))
+			{
+				token_end = pos + 1;
+			}
+			if (terminator_len > 0)
+			{
+				if (num_lines == capacity)
+				{
+					capacity *= 2;
+					line_starts = Arrays.copyOf(line_starts, capacity + 1);
+					line_ends = Arrays.copyOf(line_ends, capacity);
+				}
+				line_starts[num_lines] = start;
+				line_ends[num_lines] = pos;
+				num_lines++;
+				pos += terminator_len;
+				start = pos;
+			}
+			else
+			{
+				pos++;
+			}
+		}
+		// Unterminated last line.
+		if (start < length)
+		{
+			if (num_lines == capacity)
+			{
+				capacity++;
+				line_starts = Arrays.copyOf(line_starts, capacity + 1);
+				line_ends = Arrays.copyOf(line_ends, capacity);
+			}
+			line_starts[num_lines] = start;
+			line_ends[num_lines] = length;
+			num_lines++;
+		}
+		line_starts[num_lines] = length;
+	}
+	
+	/**
+	 * @return The number of lines.
+	 */
+	public int getNumLines()
+	{
+		return num_lines;
+	}
+	
+	/**
+	 * @param line Line index (from 0).
+	 * @return The content of the line (excluding its terminator).
+	 */
+	public String getLine(int line)
+	{
+		return new String(text, line_starts[line], line_ends[line] - line_starts[line]);
+	}
+	
+	/**
+	 * @return The offset of the start of the given line (from 0), or the length of the text for getNumLines().
+	 */
+	public int getLineStart(int line)
+	{
+		return line_starts[line];
+	}
+	
+	/**
+	 * @return The offset of the end of the content of the given line (from 0).
+	 */
+	public int getLineEnd(int line)
+	{
+		return line_ends[line];
+	}
+	
+	/**
+	 * @return The decoded text.  Valid chars are [0..getLength()).
+	 */
+	public char [] getChars()
+	{
+		return text;
+	}
+	
+	public int getLength()
+	{
+		return length;
+	}
+	
+	/**
+	 * @return Whether there is any non-whitespace text from the start of the given line (from 0) to the end of input.
+	 *         (This reflects java.util.Scanner.hasNext().)
+	 */
+	public boolean hasTokenFrom(int line)
+	{
+		return (line < num_lines) && (token_end > line_starts[line]);
+	}
+}
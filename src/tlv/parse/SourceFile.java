@@ -31,11 +31,13 @@ import tlv.Main;
 import tlv.behavioral.*;
 import tlv.behavioral.range.*;
 import tlv.config.IdentifierType;
+import tlv.parse.identifier.ConstantEvaluator;
 import tlv.parse.identifier.Identifier;
 import tlv.parse.identifier.ParseElement;
 import tlv.parse.identifier.ParseMnemonic;
 import tlv.parse.ParseSource;
 import tlv.utilities.Severity;
+import tlv.utilities.TranslationStats;
 
 import java.io.*;
 import java.nio.file.Path;
@@ -69,22 +71,74 @@ public class SourceFile extends ParseSource
 	private Hashtable<String, GeneratedSvFile> other_generated_files = new Hashtable<String, GeneratedSvFile>();
 	
 	/**
-	 * Scanner class is used for scanning in the strings from the source TLV file
+	 * Constants declared in \SV regions, for evaluating bit ranges and stages.
 	 */
-	protected Scanner input;
+	private ConstantEvaluator constants = new ConstantEvaluator();
+	public ConstantEvaluator getConstants() {return constants;}
+
+	/**
+	 * Gated clocks, indexed by Clock.getSignature(), and clocks merged into them, indexed by the SV clock signal name
+	 * they would have had.  Equivalent clocks are generated once, so the clock tree has a clock per distinct signature.
+	 */
+	private Hashtable<String, Clock> canonical_clocks = new Hashtable<String, Clock>();
+	private Hashtable<String, Clock> merged_clocks = new Hashtable<String, Clock>();
+	
+	private int pruned_signals = 0;  // Dead signals eliminated by -prune.
+
+	/**
+	 * @param clock A newly-created clock.
+	 * @return The clock already created with the same signature as clock, if any (in which case clock is merged into it), or clock.
+	 */
+	public Clock canonicalClock(Clock clock)
+	{
+		String signature = clock.getSignature();
+		Clock canonical = canonical_clocks.get(signature);
+		if (canonical == null)
+		{
+			canonical_clocks.put(signature, clock);
+			return clock;
+		}
+		merged_clocks.put(clock.getSvName(), canonical);
+		return canonical;
+	}
+
+	/**
+	 * @param sv_name An SV clock signal name.
+	 * @return The clock into which the clock of the given name was merged by canonicalClock(..), or null.
+	 */
+	public Clock getMergedClock(String sv_name)
+	{
+		return merged_clocks.get(sv_name);
+	}
+	
+	/**
+	 * The text of the source TLV file, with its line index.
+	 */
+	protected SourceBuffer input;
+	private int input_line = 0;  // Index of the next line of input to parse.
+	public SourceBuffer getSourceBuffer() {return input;}
 	
 	/**
 	 * Is a constant used to determine how tab characters should be interpreted when used in indentation
 	 */
 	private int SPACES_PER_TAB_RATIO = 4;
 	
-	private FileWriter fstreamSV;
+	private boolean in_memory;  // Outputs are kept in memory (not written to files).
+	private OutputFile sv_output_file;      // (null if in_memory)
+	private OutputFile errors_output_file;  // (null if in_memory)
+	private boolean ended = false;  // end() was called.
+	private Writer fstreamSV;
 	private BufferedWriter sv_writer;
 	
-	private FileWriter fstreamErrors;
+	private Writer fstreamErrors;
 	private BufferedWriter errors_writer;
 
 	
+	// Statistics (-stats).
+	private TranslationStats stats;
+	private String stats_json_file_name = null;  // JSON statistics file (-statsjson), or null.
+	private String stats_title;
+
 	// Modes
 	private boolean alignment_required = true;  // True if the translated SV code must remain line-for-line aligned with the TLV source code.
 	
@@ -113,8 +167,23 @@ public class SourceFile extends ParseSource
 	 * @param out_file: Output .vs file (the directly converted one);
 	 */
 	public SourceFile(File in_file, File sv_file)
+	{
+		this(in_file, null, sv_file);
+	}
+	
+	/**
+	 * Creates a new SourceFile that is translated in memory.  The given files are not accessed.  They name the source for
+	 * reports and the outputs for references within the generated SV.  Outputs are retrieved by getSvText(),
+	 * getGeneratedSvFiles(), and getErrorLogText().  (\source files are still read.)
+	 * 
+	 * @param in_file: Name of the source .tlv file.
+	 * @param in: Source .tlv text, or null to read in_file and write outputs to files.
+	 * @param out_file: Name of the output .vs file (the directly converted one);
+	 */
+	public SourceFile(File in_file, Reader in, File sv_file)
 	{
 		super(in_file);
+		in_memory = (in != null);
 		
 		file_context = new ParseContext().set(this, -1, -1);
 		
@@ -129,24 +198,45 @@ public class SourceFile extends ParseSource
 		if (sv_file_extension == null)
 		{
 			System.err.println("No file extension found on SV file name: " + sv_file.getName());
-			System.exit(1);
+			ActiveParseContext.get().terminate(1);
+		}
+		
+		// Statistics.
+		stats = new TranslationStats(ActiveParseContext.GetOptions().stats());
+		stats_title = in_file.toString();
+		if (ActiveParseContext.GetOptions().statsJson() && !in_memory)
+		{
+			stats_json_file_name = stripFileExtension(sv_file.toString()) + "_stats.json";
 		}
 		
 		// Create main generated file.
-		main_generated_file = new GeneratedSvFile(null, derivedFileName(sv_file.toString(), "gen"), this);
+		main_generated_file = new GeneratedSvFile(null, derivedFileName(sv_file.toString(), "gen"), this, in_memory);
 
 		//prepares the source file for reading/scanning
 		
 		//prepares output files
 		try 
 		{	
-			fstreamSV = new FileWriter(sv_file); //new FileWriter(filePath + fileName + ".vs");
-			sv_writer = new BufferedWriter(fstreamSV);
-			
-			// TODO: Eliminate this file.
-			fstreamErrors = new FileWriter(stripFileExtension(sv_file.toString()) + "_errorLog.txt");
-			errors_writer = new BufferedWriter(fstreamErrors);
+			if (in_memory)
+			{
+				fstreamSV = new StringWriter();
+				sv_writer = new BufferedWriter(fstreamSV);
+				fstreamErrors = new StringWriter();
+				errors_writer = new BufferedWriter(fstreamErrors);
+			} else
+			{
+				// Outputs are replaced only if changed.
+				sv_output_file = new OutputFile(sv_file);
+				ActiveParseContext.get().addOutput(sv_output_file);
+				fstreamSV = sv_output_file.openWriter(); //new FileWriter(filePath + fileName + ".vs");
+				sv_writer = new BufferedWriter(fstreamSV);
 			
+				// TODO: Eliminate this file.
+				errors_output_file = new OutputFile(new File(stripFileExtension(sv_file.toString()) + "_errorLog.txt"));
+				ActiveParseContext.get().addOutput(errors_output_file);
+				fstreamErrors = errors_output_file.openWriter();
+				errors_writer = new BufferedWriter(fstreamErrors);
+			}
 		} 
 		catch (IOException e) 
 		{
@@ -158,16 +248,28 @@ public class SourceFile extends ParseSource
 		
 		try 
 		{
-			input = new Scanner(source_file);
+			input = in_memory ? new SourceBuffer(readAll(in)) : new SourceBuffer(source_file);
 		} 
-		catch (FileNotFoundException e) 
+		catch (IOException e) 
 		{
 			System.err.println("Error: The input source file could not be opened");
 			e.printStackTrace();
-			System.exit(1);
+			ActiveParseContext.get().terminate(1);
 		}
 	}
 	
+	private static String readAll(Reader in) throws IOException
+	{
+		StringBuilder text = new StringBuilder();
+		char [] buf = new char[1 << 16];
+		int len;
+		while ((len = in.read(buf)) > 0)
+		{
+			text.append(buf, 0, len);
+		}
+		return text.toString();
+	}
+	
 	/**
 	 * @param file_name
 	 * @return the index of the '.' for the file extension, or -1 if none.
@@ -227,6 +329,33 @@ public class SourceFile extends ParseSource
 		return sv_file_extension;
 	}
 	
+	/**
+	 * @return All GeneratedSvFiles, the main one first.
+	 */
+	public Vector<GeneratedSvFile> getGeneratedSvFiles()
+	{
+		Vector<GeneratedSvFile> files = new Vector<GeneratedSvFile>();
+		files.add(main_generated_file);
+		files.addAll(other_generated_files.values());
+		return files;
+	}
+	
+	/**
+	 * @return The translated SV text (for an in-memory SourceFile, after end()).
+	 */
+	public String getSvText()
+	{
+		return fstreamSV.toString();
+	}
+	
+	/**
+	 * @return The error log text (for an in-memory SourceFile, after end()).
+	 */
+	public String getErrorLogText()
+	{
+		return fstreamErrors.toString();
+	}
+	
 	public GeneratedSvFile getGeneratedSvFile(String label)
 	{
 		return ((label == null || label.equals("")) ? main_generated_file : other_generated_files.get(label));
@@ -327,21 +456,50 @@ public class SourceFile extends ParseSource
 	
 	/**
 	 * This method must be used at the end of the preprocessor flow to "close()" all the generated
-	 * files. 
+	 * files.  Files whose content is unchanged are not rewritten.  A summary line lists the rewritten files.
 	 */
 	public void end()
 	{
+		if (ended)
+		{
+			return;
+		}
+		ended = true;
+		
 		try 
 		{
 			sv_writer.close();
 			main_generated_file.close();
 			errors_writer.close();
+			if (in_memory)
+			{
+				return;
+			}
+			sv_output_file.commit();
+			errors_output_file.commit();
 		} 
 		catch (IOException e) 
 		{
 			e.printStackTrace();
 		}
 		
+		// Summarize (with -verbose).
+		if (ActiveParseContext.GetOptions().verbosity() <= 0)
+		{
+			return;
+		}
+		OutputFile [] outputs = {sv_output_file, main_generated_file.getOutputFile(), errors_output_file};
+		String changed_str = "";
+		int changed_cnt = 0;
+		for (OutputFile output : outputs)
+		{
+			if (output.isChanged())
+			{
+				changed_str += " " + output.getFile();
+				changed_cnt++;
+			}
+		}
+		System.out.println("Updated " + changed_cnt + " of " + outputs.length + " output files" + ((changed_cnt == 0) ? " (all unchanged)." : ":" + changed_str));
 	}
 	
 	/**
@@ -354,8 +512,7 @@ public class SourceFile extends ParseSource
 		getGeneratedSvFile(null).println(line);
 	}
 	
-	private String staging_str = "";
-	private String staging_indentation_str = "";
+	private IndentedSvWriter staging_writer = new IndentedSvWriter();
 	/**
 	 * Provide staging output for the declarations file.
 	 * Text gets accumulated and output at the end.
@@ -363,21 +520,21 @@ public class SourceFile extends ParseSource
 	 */
 	public void printlnSVstaging(String line)
 	{
-		staging_str += Main.indentNonBlank(staging_indentation_str, line + "\n");
-		if (Main.command_line_options.verbosity() > 2)
+		staging_writer.println(line);
+		if (ActiveParseContext.GetOptions().verbosity() > 2)
 		{
-			System.out.print(Main.indentString("STG  |" + staging_indentation_str, line + "\n"));
+			System.out.print(Main.indentString("STG  |" + staging_writer.getIndentation(), line + "\n"));
 		}
 	}
 	
 	public void indentStaging()
 	{
-		staging_indentation_str += "   ";
+		staging_writer.indent();
 	}
 	
 	public void unindentStaging()
 	{
-		staging_indentation_str = staging_indentation_str.substring(0, staging_indentation_str.length() - 3);
+		staging_writer.unindent();
 	}
 	
 	/**
@@ -385,7 +542,7 @@ public class SourceFile extends ParseSource
 	 */
 	public void doneStaging()
 	{
-		printlnSVdeclaration(staging_str);
+		getGeneratedSvFile(null).println(staging_writer);
 	}
 		
 	
@@ -446,7 +603,7 @@ public class SourceFile extends ParseSource
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
-		if (Main.command_line_options.verbosity() > 2)
+		if (ActiveParseContext.GetOptions().verbosity() > 2)
 		{
 			System.out.print(Main.indentString("SV   |", line + "\n"));
 		}
@@ -579,10 +736,10 @@ public class SourceFile extends ParseSource
 		ParseBranch parent = this;  // The parent branch of the next node to parse.  (Note that SourceFile has a 'parent' as well (which is null and uninteresting.)
 		while(!eof_flag)
 		{
-			if(input.hasNext())
+			if(input.hasTokenFrom(input_line))
 			{
 				if(getNextNode){
-					next_node = new ParseNode(input.nextLine());
+					next_node = new ParseNode(input.getLine(input_line++));
 					context.set(next_node, 0, -1);  // TODO: Improve
 				
 					totalLineCount++;
@@ -1041,6 +1198,11 @@ public class SourceFile extends ParseSource
 		//topBehHier.setRange(new Range(topBehHier, ""));
 
 		ParseContext context = ActiveParseContext.get();
+		
+		// Constants must be known before Expressions are evaluated.
+		StringBuilder sv = new StringBuilder();
+		collectSv(this, sv);
+		constants.addDeclarations(sv.toString());
 
 		// Top recursive call.
 		createLogicalStructure(context, this, null, topBehHier, null, null, "");
@@ -1048,6 +1210,22 @@ public class SourceFile extends ParseSource
 		context.set(this, -1, -1);  // No longer parsing.  No context, except the file.
 	}
 	
+	// Append the text of the \SV regions under parse_parent to sv.
+	private void collectSv(final ParseBranch parse_parent, StringBuilder sv)
+	{
+		for (ParseNode parse_child : parse_parent.parseNodes)
+		{
+			if (parse_child.getType() == NodeType.SV)
+			{
+				sv.append(parse_child.string).append('\n');
+			}
+			else if (parse_child instanceof ParseBranch)
+			{
+				collectSv((ParseBranch)parse_child, sv);
+			}
+		}
+	}
+	
 	public void dumpSv()
 	{
 		ParseContext context = ActiveParseContext.get();
@@ -1075,7 +1253,7 @@ public class SourceFile extends ParseSource
 	 * @param	stage			LogicalStage that the parse_branch_ is currently scoped under
 	 * @param	end_required	The parse parent has a 'begin' in it's SV code that must be 'end'ed.
 	 */
-	private static String last_sv_line = null;  // This line is to be added to the SV code.  In some cases this line must be modified to terminate scope before we process the next line.
+	private String last_sv_line = null;  // This line is to be added to the SV code.  In some cases this line must be modified to terminate scope before we process the next line.
 	private void createLogicalStructure(ParseContext context, final ParseBranch parse_parent, final LogicalPipeline pipeline, final LogicalBehScope beh_scope,
 			final LogicalWhen when, final LogicalStage stage, String indentation_str)
 	{
@@ -1113,7 +1291,7 @@ public class SourceFile extends ParseSource
 								// SV parsers don't like stuff after include file, so can't do this:  + "  " + stringSVcore +
 								stringSVend;
 		
-						if (Main.command_line_options.bestSv()){
+						if (ActiveParseContext.GetOptions().bestSv()){
 							parse_child.stringSV += "\ngenerate";
 						}
 						
@@ -1405,7 +1583,7 @@ public class SourceFile extends ParseSource
 	       
 	        for(Identifier key : signal_keys) {
 	        	PipeSignal sig = scope.getSignals().get(key);
-	        	if(!sig.isEmpty())
+	        	if(!sig.isEmpty() && !sig.isPruned())
 				{
 					printFlopsAndLatches(sig);
 				}
@@ -1508,36 +1686,212 @@ public class SourceFile extends ParseSource
 		printlnSVstaging("");
 	}
 	
+	/**
+	 * Count the given parse node and its descendants.
+	 */
+	private static int countParseNodes(ParseNode node)
+	{
+		int cnt = 1;
+		if (node instanceof ParseBranch)
+		{
+			for (ParseNode child: ((ParseBranch)node).parseNodes)
+			{
+				cnt += countParseNodes(child);
+			}
+		}
+		return cnt;
+	}
+	
+	/**
+	 * Accumulate counts of the given behavioral scope and its descendants.
+	 * @param cnts Counts of {scopes, PipeSignals, TransitionStages, clocks}, to which to add.
+	 */
+	private static void countBehScopes(LogicalBehScope scope, long [] cnts)
+	{
+		cnts[0]++;
+		for (PipeSignal sig: scope.getSignals().values())
+		{
+			cnts[1]++;
+			cnts[2] += sig.getNumTransitionStages();
+		}
+		cnts[3] += scope.clocks.size();
+		for (LogicalBehScope child: scope.children.values())
+		{
+			countBehScopes(child, cnts);
+		}
+	}
+	
+	/**
+	 * Accumulate the staged, full-width staged, and gated staged bits (see PipeSignal.countStagedBits()) of scope and,
+	 * recursively, its children into bits, and append report lines to report (if non-null), in sorted order.
+	 */
+	private static void countStagedBits(LogicalBehScope scope, long [] bits, StringBuilder report)
+	{
+		long [] scope_bits = new long[3];
+		TreeMap<String, PipeSignal> sigs = new TreeMap<String, PipeSignal>();
+		for (PipeSignal sig: scope.getSignals().values())
+		{
+			sigs.put(sig.toString(), sig);
+		}
+		for (PipeSignal sig: sigs.values())
+		{
+			long [] sig_bits = sig.countStagedBits();
+			if (sig_bits == null)
+			{
+				if (report != null)
+				{
+					report.append(String.format("  %-40s %s%n", sig.toScopedString(), "(bit range not evaluated)"));
+				}
+			}
+			else if (sig_bits[1] > 0)
+			{
+				if (report != null)
+				{
+					report.append(stagedBitsLine(sig.toScopedString(), sig_bits));
+				}
+				scope_bits[0] += sig_bits[0];
+				scope_bits[1] += sig_bits[1];
+				scope_bits[2] += sig_bits[2];
+			}
+		}
+		if ((report != null) && (scope_bits[1] > 0))
+		{
+			report.append(stagedBitsLine(scope.toScopedString() + " (total)", scope_bits));
+		}
+		bits[0] += scope_bits[0];
+		bits[1] += scope_bits[1];
+		bits[2] += scope_bits[2];
+		
+		TreeMap<String, LogicalBehScope> children = new TreeMap<String, LogicalBehScope>(scope.children);
+		for (LogicalBehScope child: children.values())
+		{
+			countStagedBits(child, bits, report);
+		}
+	}
+	
+	private static String stagedBitsLine(String name, long [] bits)
+	{
+		long saved = bits[1] - bits[0];
+		return String.format("  %-40s %10d %10d %10d %10d%n", name, bits[0], bits[1], saved, bits[2]);
+	}
+	
+	/**
+	 * Report the staged bits of each signal and scope (for -stagingreport).
+	 */
+	private void reportStaging()
+	{
+		if (!ActiveParseContext.GetOptions().stagingReport())
+		{
+			return;
+		}
+		StringBuilder report = new StringBuilder();
+		long [] bits = new long[3];
+		countStagedBits(topBehHier, bits, report);
+		
+		System.out.println("Staged (flop and latch) bits per scope instance, vs. full assigned width, and those with gated clocks, for " + stats_title + ":");
+		System.out.print(String.format("  %-40s %10s %10s %10s %10s%n", "Signal/scope", "Staged", "Full", "Saved", "Gated"));
+		System.out.print(report);
+		System.out.print(stagedBitsLine("Total", bits));
+	}
+	
+	/**
+	 * Record counts and report statistics (for -stats).
+	 */
+	private void reportStats()
+	{
+		if (!stats.isEnabled())
+		{
+			return;
+		}
+		long [] cnts = new long[4];
+		countBehScopes(topBehHier, cnts);
+		stats.count("source lines", (input == null) ? 0 : input.getNumLines());
+		stats.count("parse nodes", countParseNodes(this) - 1);
+		stats.count("behavioral scopes", cnts[0]);
+		stats.count("PipeSignals", cnts[1]);
+		stats.count("TransitionStages", cnts[2]);
+		stats.count("clocks", cnts[3]);
+		stats.count("merged clocks", merged_clocks.size());
+		stats.count("pruned signals", pruned_signals);
+		stats.count("identifiers", ActiveParseContext.get().getIdentifierTable().size());
+		long [] bits = new long[3];
+		countStagedBits(topBehHier, bits, null);
+		stats.count("staged bits", bits[0]);
+		stats.count("full-width staged bits", bits[1]);
+		stats.count("gated staged bits", bits[2]);
+		
+		stats.printTable(System.out, stats_title);
+		if (stats_json_file_name != null)
+		{
+			try
+			{
+				stats.writeJson(stats_json_file_name, stats_title);
+			}
+			catch (IOException e)
+			{
+				file_context.report(0, Severity.WARNING, "STATS", "Failed to write statistics file \"" + stats_json_file_name + "\": " + e.getMessage());
+			}
+		}
+	}
+	
+	
 	/**
 	 * The main routine to pre-process the file after construction.
 	 */
 	public void process()
 	{
 		// Determine modes.
-		alignment_required = !Main.command_line_options.bestSv();
+		alignment_required = !ActiveParseContext.GetOptions().bestSv();
 		
 		
 		//parses the source file and generates the ParseHier/ParseNode tree
+		stats.beginPhase("parseFile");
 		parseFile();
 		
 		//processes the ParseHier/ParseNode tree and generates the behavioral structure.
 		// TODO: Need to separate out printing.  Then during printing, expand WildcardedSigRefs (still not that clean, but better).
+		stats.beginPhase("createLogicalStructure");
 		createLogicalStructure();
+		stats.endPhase();
 		
-		System.out.println("");
+		if (!in_memory)
+		{
+			System.out.println("");
+		}
 		
 		//processes the behavioral structure and produces node declaration, flops and latches
+		stats.beginPhase("findNonLocalAssignments");
 		topBehHier.findNonLocalAssignments();
+		if (ActiveParseContext.GetOptions().prune())
+		{
+			stats.beginPhase("pruneDeadSignals");
+			StringBuilder sv = new StringBuilder();
+			collectSv(this, sv);
+			pruned_signals = new SignalLiveness(topBehHier, sv.toString()).prune();
+		}
+		stats.beginPhase("fixWildcardedSv");
 		topBehHier.fixWildcardedSv();
-		topBehHier.createStagingRecursive();
+		stats.beginPhase("createStagingRecursive");
+		if (ActiveParseContext.GetOptions().stagingThreads() > 0)
+		{
+			ParallelStaging.createStaging(topBehHier, ActiveParseContext.GetOptions().stagingThreads(), stats);
+		} else
+		{
+			topBehHier.createStagingRecursive();
+		}
+		stats.beginPhase("dumpSv");
 		dumpSv();
+		stats.beginPhase("generateSv");
 		generateSv();
 		//output clock declarations.
+		stats.beginPhase("generateSvClocks");
 		generateSvClocks();
 		
+		stats.beginPhase("doneStaging");
 		doneStaging();
+		stats.endPhase();
 		
-		if (!Main.command_line_options.bestSv())
+		if (!ActiveParseContext.GetOptions().bestSv())
 		{
 			printlnSVdeclaration("\ngenerate   // This is awkward, but we need to go into 'generate' context in the line that `includes the declarations file.");
 		}
@@ -1546,6 +1900,9 @@ public class SourceFile extends ParseSource
 		//getLogicalPipeline("C1").printLogicalHierchy();
 		//System.out.println("");
 
+		reportStats();
+		reportStaging();
+		
 		//closes all generated files
 		end();
 	}
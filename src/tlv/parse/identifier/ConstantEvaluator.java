@@ -0,0 +1,729 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.parse.identifier;
+
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Vector;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Evaluates SV constant expressions, such as bit-range bounds ("WIDTH-1") and stages, using the localparams and
+ * `define's declared in \SV regions.  (M4 constants are already expanded in the .tlv text.)
+ * 
+ * The expression subset is integer (32-bit) literals (including sized/based literals without x/z), localparam
+ * names, $clog2(..), parentheses, and SV's integer operators, after textual expansion of `define'd macros
+ * (without arguments).  Parameters are not constant, since they may be overridden per instance, so neither are
+ * localparams or macros that depend on them.  Results (including non-constant ones) are cached by expression text.
+ *
+ * One ConstantEvaluator is used by each SourceFile.
+ */
+public class ConstantEvaluator
+{
+	// Localparam values by name.
+	private Hashtable<String, Integer> constants = new Hashtable<String, Integer>();
+	// Names declared as parameters (which are never constant).
+	private HashSet<String> parameters = new HashSet<String>();
+	// `define'd text by macro name (without "`").
+	private Hashtable<String, String> macros = new Hashtable<String, String>();
+	// Results of evaluate(..), by expression text.
+	private Hashtable<String, Integer> folded = new Hashtable<String, Integer>();
+	private HashSet<String> not_constant = new HashSet<String>();
+	
+	// Matches a `define (name in group 1, rest of line in group 2) or a parameter/localparam keyword (group 3).
+	private static final Pattern DECLARATION_PATTERN = Pattern.compile("`define[ \\t]+([A-Za-z_][A-Za-z0-9_$]*)([^\\n]*)|\\b(localparam|parameter)\\b");
+	// Matches the left-hand side of a parameter assignment, with the name in group 1.
+	private static final Pattern PARAM_LHS_PATTERN = Pattern.compile("([A-Za-z_][A-Za-z0-9_$]*)\\s*(?:\\[[^\\]]*\\]\\s*)*$");
+	// Matches a macro reference, with the name in group 1.
+	private static final Pattern MACRO_PATTERN = Pattern.compile("`([A-Za-z_][A-Za-z0-9_$]*)");
+	// Limits macro expansion of an expression (for recursive macros).
+	private static final int MAX_EXPANSIONS = 16;
+	
+	
+	/**
+	 * Define a constant (localparam).  Has no effect for the name of a parameter.
+	 * 
+	 * @param name_ The name.
+	 * @param value_ Its value.
+	 */
+	public synchronized void define(String name_, int value_)
+	{
+		if (!parameters.contains(name_))
+		{
+			constants.put(name_, value_);
+			folded.clear();
+			not_constant.clear();
+		}
+	}
+	
+	/**
+	 * Declare a parameter, whose value is unknown, since it may be overridden.  Expressions referencing it (directly
+	 * or through localparams or macros) are not constant.
+	 * 
+	 * @param name_ The name.
+	 */
+	public synchronized void declareParameter(String name_)
+	{
+		parameters.add(name_);
+		constants.remove(name_);
+		folded.clear();
+		not_constant.clear();
+	}
+	
+	/**
+	 * Define a macro (without arguments).
+	 * 
+	 * @param name_ The name (without "`").
+	 * @param text_ Its text.
+	 */
+	public synchronized void defineMacro(String name_, String text_)
+	{
+		macros.put(name_, text_);
+		folded.clear();
+		not_constant.clear();
+	}
+	
+	/**
+	 * @param name_ The name of a localparam.
+	 * @return The value of the localparam, or null if undefined or not constant.
+	 */
+	public synchronized Integer get(String name_)
+	{
+		return constants.get(name_);
+	}
+	
+	/**
+	 * Define the constants declared in SV code (localparam declarations and `define's), in order, and note the parameters.
+	 * Localparams with values that are not constant expressions (of previously-defined constants) are ignored.
+	 * 
+	 * @param sv_ SV code.
+	 */
+	public void addDeclarations(String sv_)
+	{
+		String sv = stripComments(sv_);
+		Matcher m = DECLARATION_PATTERN.matcher(sv);
+		while (m.find())
+		{
+			if (m.group(1) != null)
+			{
+				// `define.  Exclude macros with arguments and multi-line macros.
+				String value = m.group(2);
+				if (!value.startsWith("(") && !value.trim().endsWith("\\"))
+				{
+					defineMacro(m.group(1), value.trim());
+				}
+			}
+			else
+			{
+				// parameter/localparam.  Each comma-separated assignment up to ';' or the ')' of a parameter list.
+				boolean is_parameter = m.group(3).equals("parameter");
+				for (String assignment : splitAssignments(sv, m.end()))
+				{
+					int eq = topLevelAssignment(assignment);
+					if (eq >= 0)
+					{
+						Matcher lhs = PARAM_LHS_PATTERN.matcher(assignment.substring(0, eq));
+						if (lhs.find())
+						{
+							if (is_parameter)
+							{
+								declareParameter(lhs.group(1));
+							}
+							else
+							{
+								defineIfConstant(lhs.group(1), assignment.substring(eq + 1));
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	private void defineIfConstant(String name, String expr)
+	{
+		Integer value = evaluate(expr);
+		if (value != null)
+		{
+			define(name, value);
+		}
+	}
+	
+	// Replace comments with spaces.  (String literals are not considered.)
+	private static String stripComments(String sv)
+	{
+		StringBuilder ret = new StringBuilder(sv);
+		int i = 0;
+		while (i < ret.length() - 1)
+		{
+			int end = -1;
+			if (ret.charAt(i) == '/' && ret.charAt(i + 1) == '/')
+			{
+				end = ret.indexOf("\n", i);
+			}
+			else if (ret.charAt(i) == '/' && ret.charAt(i + 1) == '*')
+			{
+				end = ret.indexOf("*/", i + 2);
+				end = (end < 0) ? -1 : end + 2;
+			}
+			else
+			{
+				i++;
+				continue;
+			}
+			if (end < 0)
+			{
+				end = ret.length();
+			}
+			for (; i < end; i++)
+			{
+				if (ret.charAt(i) != '\n')
+				{
+					ret.setCharAt(i, ' ');
+				}
+			}
+		}
+		return ret.toString();
+	}
+	
+	// The comma-separated assignments of a parameter/localparam declaration beginning at pos.
+	private static Vector<String> splitAssignments(String sv, int pos)
+	{
+		Vector<String> ret = new Vector<String>();
+		int depth = 0;
+		int start = pos;
+		for (; pos < sv.length(); pos++)
+		{
+			char ch = sv.charAt(pos);
+			if (ch == '(' || ch == '[' || ch == '{')
+			{
+				depth++;
+			}
+			else if (ch == ')' || ch == ']' || ch == '}')
+			{
+				if (--depth < 0)
+				{
+					break;
+				}
+			}
+			else if (ch == ';' && depth == 0)
+			{
+				break;
+			}
+			else if (ch == ',' && depth == 0)
+			{
+				ret.add(sv.substring(start, pos));
+				start = pos + 1;
+			}
+		}
+		ret.add(sv.substring(start, pos));
+		return ret;
+	}
+	
+	// The position of the first '=' of the assignment that is not part of a comparison operator, or -1.
+	private static int topLevelAssignment(String assignment)
+	{
+		for (int i = 0; i < assignment.length(); i++)
+		{
+			if (assignment.charAt(i) == '=')
+			{
+				char prev = (i > 0) ? assignment.charAt(i - 1) : ' ';
+				char next = (i + 1 < assignment.length()) ? assignment.charAt(i + 1) : ' ';
+				if (next != '=' && prev != '=' && prev != '!' && prev != '<' && prev != '>')
+				{
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * @param expr_ An SV expression.
+	 * @return The value of the expression, or null if it is not a constant expression.
+	 */
+	public synchronized Integer evaluate(String expr_)
+	{
+		Integer value = folded.get(expr_);
+		if ((value == null) && !not_constant.contains(expr_))
+		{
+			String expanded = expandMacros(expr_);
+			value = (expanded == null) ? null : new ConstExpression(expanded).evaluate();
+			if (value == null)
+			{
+				not_constant.add(expr_);
+			}
+			else
+			{
+				folded.put(expr_, value);
+			}
+		}
+		return value;
+	}
+	
+	
+	// The expression with its macros expanded, or null if a macro is undefined or expansion does not terminate.
+	private String expandMacros(String expr)
+	{
+		for (int i = 0; i <= MAX_EXPANSIONS; i++)
+		{
+			if (expr.indexOf('`') < 0)
+			{
+				return expr;
+			}
+			Matcher m = MACRO_PATTERN.matcher(expr);
+			StringBuffer expanded = new StringBuffer();
+			while (m.find())
+			{
+				String text = macros.get(m.group(1));
+				if (text == null)
+				{
+					return null;
+				}
+				m.appendReplacement(expanded, Matcher.quoteReplacement(text));
+			}
+			m.appendTail(expanded);
+			expr = expanded.toString();
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * A single evaluation.  Evaluation continues after a non-constant term is found, but the result is discarded.
+	 */
+	private class ConstExpression
+	{
+		private String str;
+		private int pos = 0;
+		private boolean constant = true;
+		
+		ConstExpression(String str_)
+		{
+			str = str_;
+		}
+		
+		// The value, or null if not constant.
+		Integer evaluate()
+		{
+			int value = 0;
+			try
+			{
+				value = conditional();
+				skipSpace();
+				if (pos < str.length())
+				{
+					constant = false;
+				}
+			}
+			catch (ArithmeticException e)
+			{
+				constant = false;  // Divide by zero.
+			}
+			return constant ? Integer.valueOf(value) : null;
+		}
+		
+		private void skipSpace()
+		{
+			while ((pos < str.length()) && Character.isWhitespace(str.charAt(pos)))
+			{
+				pos++;
+			}
+		}
+		
+		// Parse the given operator (not a prefix of a longer one that is excluded).
+		private boolean parseOp(String op, String excluded, String excluded2)
+		{
+			skipSpace();
+			if (str.startsWith(op, pos) &&
+			    ((excluded  == null) || !str.startsWith(excluded,  pos)) &&
+			    ((excluded2 == null) || !str.startsWith(excluded2, pos)))
+			{
+				pos += op.length();
+				return true;
+			}
+			return false;
+		}
+		private boolean parseOp(String op, String excluded)
+		{
+			return parseOp(op, excluded, null);
+		}
+		private boolean parseOp(String op)
+		{
+			return parseOp(op, null, null);
+		}
+		
+		private int conditional()
+		{
+			int cond = logicalOr();
+			if (parseOp("?"))
+			{
+				int if_true = conditional();
+				if (!parseOp(":"))
+				{
+					constant = false;
+				}
+				int if_false = conditional();
+				return (cond != 0) ? if_true : if_false;
+			}
+			return cond;
+		}
+		
+		private int logicalOr()
+		{
+			int value = logicalAnd();
+			while (parseOp("||"))
+			{
+				int rhs = logicalAnd();
+				value = ((value != 0) || (rhs != 0)) ? 1 : 0;
+			}
+			return value;
+		}
+		
+		private int logicalAnd()
+		{
+			int value = bitOr();
+			while (parseOp("&&"))
+			{
+				int rhs = bitOr();
+				value = ((value != 0) && (rhs != 0)) ? 1 : 0;
+			}
+			return value;
+		}
+		
+		private int bitOr()
+		{
+			int value = bitXor();
+			while (parseOp("|", "||"))
+			{
+				value |= bitXor();
+			}
+			return value;
+		}
+		
+		private int bitXor()
+		{
+			int value = bitAnd();
+			while (parseOp("^"))
+			{
+				value ^= bitAnd();
+			}
+			return value;
+		}
+		
+		private int bitAnd()
+		{
+			int value = equality();
+			while (parseOp("&", "&&"))
+			{
+				value &= equality();
+			}
+			return value;
+		}
+		
+		private int equality()
+		{
+			int value = relational();
+			while (true)
+			{
+				if (parseOp("=="))
+				{
+					value = (value == relational()) ? 1 : 0;
+				}
+				else if (parseOp("!="))
+				{
+					value = (value != relational()) ? 1 : 0;
+				}
+				else
+				{
+					return value;
+				}
+			}
+		}
+		
+		private int relational()
+		{
+			int value = shift();
+			while (true)
+			{
+				if (parseOp("<=", "<=="))
+				{
+					value = (value <= shift()) ? 1 : 0;
+				}
+				else if (parseOp(">="))
+				{
+					value = (value >= shift()) ? 1 : 0;
+				}
+				else if (parseOp("<", "<<"))
+				{
+					value = (value < shift()) ? 1 : 0;
+				}
+				else if (parseOp(">", ">>"))
+				{
+					value = (value > shift()) ? 1 : 0;
+				}
+				else
+				{
+					return value;
+				}
+			}
+		}
+		
+		private int shift()
+		{
+			int value = additive();
+			while (true)
+			{
+				if (parseOp("<<<") || parseOp("<<"))
+				{
+					int amount = additive();
+					value = ((amount < 0) || (amount >= 32)) ? 0 : value << amount;
+				}
+				else if (parseOp(">>>"))
+				{
+					int amount = additive();
+					value = value >> (((amount < 0) || (amount >= 32)) ? 31 : amount);
+				}
+				else if (parseOp(">>"))
+				{
+					int amount = additive();
+					value = ((amount < 0) || (amount >= 32)) ? 0 : value >>> amount;
+				}
+				else
+				{
+					return value;
+				}
+			}
+		}
+		
+		private int additive()
+		{
+			int value = multiplicative();
+			while (true)
+			{
+				if (parseOp("+"))
+				{
+					value += multiplicative();
+				}
+				else if (parseOp("-"))
+				{
+					value -= multiplicative();
+				}
+				else
+				{
+					return value;
+				}
+			}
+		}
+		
+		private int multiplicative()
+		{
+			int value = power();
+			while (true)
+			{
+				if (parseOp("*", "**"))
+				{
+					value *= power();
+				}
+				else if (parseOp("/"))
+				{
+					value /= power();
+				}
+				else if (parseOp("%"))
+				{
+					value %= power();
+				}
+				else
+				{
+					return value;
+				}
+			}
+		}
+		
+		private int power()
+		{
+			int value = unary();
+			if (parseOp("**"))
+			{
+				int exp = power();
+				int result = (exp < 0) ? 0 : 1;
+				for (int base = value; exp > 0; exp >>= 1, base *= base)
+				{
+					if ((exp & 1) != 0)
+					{
+						result *= base;
+					}
+				}
+				value = result;
+			}
+			return value;
+		}
+		
+		private int unary()
+		{
+			if (parseOp("-"))
+			{
+				return -unary();
+			}
+			if (parseOp("+"))
+			{
+				return unary();
+			}
+			if (parseOp("!"))
+			{
+				return (unary() == 0) ? 1 : 0;
+			}
+			if (parseOp("~", "~&", "~|"))
+			{
+				return ~unary();
+			}
+			return primary();
+		}
+		
+		private int primary()
+		{
+			skipSpace();
+			if (parseOp("("))
+			{
+				int value = conditional();
+				if (!parseOp(")"))
+				{
+					constant = false;
+				}
+				return value;
+			}
+			if (parseOp("$clog2"))
+			{
+				if (!parseOp("("))
+				{
+					constant = false;
+					return 0;
+				}
+				int value = conditional();
+				if (!parseOp(")"))
+				{
+					constant = false;
+				}
+				return (value <= 1) ? 0 : 32 - Integer.numberOfLeadingZeros(value - 1);
+			}
+			int start = pos;
+			while ((pos < str.length()) && (Character.isLetterOrDigit(str.charAt(pos)) || str.charAt(pos) == '_' || str.charAt(pos) == '$'))
+			{
+				pos++;
+			}
+			if ((pos < str.length()) && (str.charAt(pos) == '\''))
+			{
+				// Based literal.
+				return based(start);
+			}
+			String token = str.substring(start, pos);
+			if (token.isEmpty())
+			{
+				constant = false;
+				return 0;
+			}
+			if (Character.isDigit(token.charAt(0)))
+			{
+				return number(token.replace("_", ""), 10);
+			}
+			Integer value = constants.get(token);
+			if (value == null)
+			{
+				constant = false;
+				return 0;
+			}
+			return value;
+		}
+		
+		// A based literal ([size]'[s]<base><digits>) from start, where pos is at the "'".
+		private int based(int start)
+		{
+			pos++;
+			if ((pos < str.length()) && (str.charAt(pos) == 's' || str.charAt(pos) == 'S'))
+			{
+				pos++;
+			}
+			int radix = 0;
+			if (pos < str.length())
+			{
+				switch (Character.toLowerCase(str.charAt(pos)))
+				{
+					case 'b': radix = 2; break;
+					case 'o': radix = 8; break;
+					case 'd': radix = 10; break;
+					case 'h': radix = 16; break;
+				}
+			}
+			if (radix == 0)
+			{
+				// Unbased ('0, '1, ..) or malformed.
+				constant = false;
+				return 0;
+			}
+			pos++;
+			skipSpace();
+			int digits_start = pos;
+			while ((pos < str.length()) && (Character.isLetterOrDigit(str.charAt(pos)) || str.charAt(pos) == '_'))
+			{
+				pos++;
+			}
+			String size = str.substring(start, str.indexOf('\'', start)).trim();
+			int value = number(str.substring(digits_start, pos).replace("_", ""), radix);
+			if (!size.isEmpty() && constant)  // Truncate to the size.
+			{
+				int width = number(size.replace("_", ""), 10);
+				if (width < 32)
+				{
+					value &= (1 << width) - 1;
+				}
+			}
+			return value;
+		}
+		
+		// Parse digits (x/z are not constant).
+		private int number(String digits, int radix)
+		{
+			try
+			{
+				long value = Long.parseLong(digits, radix);
+				if (value > 0xFFFFFFFFL)
+				{
+					constant = false;
+				}
+				return (int)value;
+			}
+			catch (NumberFormatException e)
+			{
+				constant = false;
+				return 0;
+			}
+		}
+	}
+}
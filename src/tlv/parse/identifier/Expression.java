@@ -31,6 +31,7 @@ import tlv.parse.NodeType;
 import tlv.parse.ParseContext;
 import tlv.parse.ParseNode;
 import tlv.parse.Prefix;
+import tlv.parse.SourceFile;
 import tlv.utilities.Severity;
 
 // TODO: Rewrite.
@@ -127,7 +128,8 @@ public class Expression extends ParseElement
 			        break;
 			} else if (prefix_ == Prefix.STAGE)
 			{
-				if (!isDigit && !Character.isAlphabetic(ch))
+				// Digits and H/L, or a constant name (possibly `define'd).
+				if (!isDigit && !Character.isAlphabetic(ch) && (ch != '_') && !((ch == '`') && (i == stringStartIndex_)))
 					break;
 			}
 			if(ch == '(' ||
@@ -186,7 +188,7 @@ public class Expression extends ParseElement
 	/**
 	 * This method attempts to evaluate the Expression's label string into an integer value.
 	 * When evaluating staging Expression, the produced value is multiplied by 2 to increase 
-	 * the granularity to half clocks. 
+	 * the granularity to half clocks.  Labels that are not literals are folded as constant expressions. 
 	 * 
 	 * @return boolean indicating whether or not the expression was successfuly evaluated
 	 */
@@ -212,7 +214,7 @@ public class Expression extends ParseElement
 			
 			return true;
 		}
-		else if(prefix == Prefix.STAGE)
+		else if(prefix == Prefix.STAGE && !label.isEmpty())
 		{
 			for(int i = 0; i < label.length() - 1; i++)
 			{
@@ -230,8 +232,7 @@ public class Expression extends ParseElement
 				}
 				else
 				{
-					flagEvaluated = false;
-					return false;
+					return fold();
 				}
 			}
 			
@@ -266,11 +267,13 @@ public class Expression extends ParseElement
 			}
 			else
 			{
-				flagEvaluated = false;
-				
-				return false;
+				return fold();
 			}
 		}
+		else if(prefix == Prefix.END_BIT || prefix == Prefix.START_BIT)
+		{
+			return fold();
+		}
 		else
 		{
 			flagEvaluated = false;
@@ -279,6 +282,24 @@ public class Expression extends ParseElement
 		}
 	}
 	
+	/**
+	 * Evaluates the label as a constant expression of the constants declared in \SV regions (e.g. "WIDTH-1").
+	 * Stage values are doubled, as above.
+	 * 
+	 * @return boolean indicating whether or not the expression was successfuly evaluated
+	 */
+	private boolean fold()
+	{
+		SourceFile source_file = (parseNode == null) ? null : (SourceFile)parseNode.getParseBranch_ofType(NodeType.FILE);
+		Integer folded = (source_file == null) ? null : source_file.getConstants().evaluate(label);
+		flagEvaluated = (folded != null);
+		if(flagEvaluated)
+		{
+			value = (prefix == Prefix.STAGE) ? 2 * folded : folded;
+		}
+		return flagEvaluated;
+	}
+	
 	//null expression is greater then non-null expression
 	//unevaluated expression is greater then evaluated expression
 	static public int isGreater(Expression this_, Expression that_)
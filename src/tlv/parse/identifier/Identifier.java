@@ -39,7 +39,9 @@ import tlv.Main;
 
 /**
  *  An identifier, including a prefix character and a sequence of tokens in lower_case, CammelCase, or ALL_CAPS.  Includes typed numerics and expressions.
- *  The interface to objects of this class is finalized upon construction, so all identical identifiers can share Identifier objects.
+ *  The interface to objects of this class is finalized upon construction, so all identical identifiers share Identifier objects.
+ *  Keywords are shared by all translations, and other Identifiers are interned in the IdentifierTable of the translation, so
+ *  Identifiers can be compared using ==.
  *  
  * @author sfhoover
  *
@@ -59,6 +61,8 @@ public class Identifier implements Comparable<Identifier> {
     protected final String str;   // Name, including prefix, in it's native form.  Note, this may be a keywords or operand.
                             // This is used as a key in hashtables.
     protected final IdentifierType type;
+    protected final int id;     // A dense ID, unique among keywords and the Identifiers of the IdentifierTable.
+    Identifier same_str_next = null;  // The next Identifier with the same str in the IdentifierTable (with a different type).
     
     protected String varients[] = null;   // Varients of this identifier name in different Syntax'es (no prefix chars).
     //protected String lower_case_name = null;  // Lower case version of name with underscore delimitation and no prefix character
@@ -76,18 +80,15 @@ public class Identifier implements Comparable<Identifier> {
     	return str.hashCode();
     }
     
+    // Identifiers are interned, so equal Identifiers are the same object.
     public boolean equals(Object id_obj)
     {
-    	if (id_obj == this) return true;
-    	if (id_obj == null) return false;
-    	try
-    	{
-    		Identifier id = (Identifier)id_obj;
-    		return (str.equals(id.str) && type.equals(id.type));
-    	} catch (ClassCastException e)
-    	{
-    		return false;
-    	}
+    	return (id_obj == this);
+    }
+    
+    public int getId()
+    {
+    	return id;
     }
     
     public int compareTo(Identifier id)
@@ -223,7 +224,7 @@ public class Identifier implements Comparable<Identifier> {
     	String name = (new_type.getSyntax() == Syntax.MIXED_CASE)
     			         ? getName()
     			         : getNameVarient(new_type.getSyntax());
-    	return (new Identifier(new_type.getPrefix() + name, new_type));
+    	return intern(new_type.getPrefix() + name, new_type);
     }
     
     /**
@@ -355,6 +356,31 @@ public class Identifier implements Comparable<Identifier> {
     }
     
     
+    /**
+     * @return The number of keywords, which have the lowest IDs.
+     */
+    static public int numKeywords()
+    {
+    	return keywords.size();
+    }
+    
+    /**
+     * @return The keyword or the Identifier of the active translation with the given string and type.
+     */
+    static private Identifier intern(String str, IdentifierType type)
+    {
+    	if (isKeyword(type))
+    	{
+    		Identifier keyword = keywords.get(str);
+    		if ((keyword != null) && (keyword.type == type))
+    		{
+    			return keyword;
+    		}
+    	}
+    	return ActiveParseContext.get().getIdentifierTable().intern(str, type);
+    }
+    
+    
     // Keywords, which can be looked up in keywords.  The identifier returned by parse(..) can be compared against these using ==.
     static public Identifier tlv_keyword;
     static public Identifier sv_keyword;
@@ -366,10 +392,14 @@ public class Identifier implements Comparable<Identifier> {
     static public Identifier end_source_keyword;
     
     /**
-     * Must be called prior to constructing any Identifier objects.
+     * Must be called prior to constructing any Identifier objects.  Subsequent calls have no effect.
      */
-    static public void init()
+    static public synchronized void init()
     {
+    	if (init_done)
+    	{
+    		return;
+    	}
     	initing = true;
     	
 		IdentifierType.init();
@@ -402,13 +432,8 @@ public class Identifier implements Comparable<Identifier> {
      */
     public static Identifier parse(int legal_types)
     {
-    	// TODO: For now, we just do construction (which would otherwise, just be a constructor).
-    	// We may want to keep a Hashtable of all Identifiers, and look up the one being "constructed".  If we find a match, just return it.
-    	// One thing to be careful of is that the Hashtable will prevent deletion of Identifiers.  This is fine for pre-processing usage, but
-    	// would be an issue for interactive development.  A possible resolution is to periodically (on construction) remove a random (round-robin)
-    	// Identifier from the Hashtable and mark it 'abondoned'.  Get methods would re-enter 'abandoned' Identifiers in the Hashtable (as
-    	// long as there is no identical entry).
-    	// It may be easy enough to reuse Identifiers outside of the constructor, that we don't need this.  Let's wait and see.
+    	// Identifiers are looked up in the IdentifierTable of the translation, and constructed only if not found.  The table is
+    	// released with the translation, so Identifiers do not accumulate across translations (in batch and daemon modes).
     	
     	// Checking.
 		Main.assertion(initing ^ init_done);  // Either we're in init(), or init() is done, not both.
@@ -601,10 +626,11 @@ public class Identifier implements Comparable<Identifier> {
 			}
 		}
 		
-		// If identifier was not found, create one.
+		// If identifier was not found, find or create it in the IdentifierTable, or create a keyword.
 		if (ret == null)
 		{
-			ret = new Identifier(str, type);
+			ret = init_done ? ActiveParseContext.get().getIdentifierTable().intern(str, type)
+			                : new Identifier(str, type, keywords.size());
 		}
 		
 		if (!init_done)
@@ -619,17 +645,20 @@ public class Identifier implements Comparable<Identifier> {
 		return ret;
     }
     
-    // A constructor, given a new name, so that it's clear this is an expert-user method.
+    // A constructor (without parsing), given a new name, so that it's clear this is an expert-user method.  Returns the existing
+    // Identifier, if there is one.
     public static Identifier rawConstructor(String str_, IdentifierType type_)
     {
-    	return new Identifier(str_, type_);
+    	return intern(str_, type_);
     }
     
     
-    private Identifier(String str_, IdentifierType type_)
+    // Constructed only by parse(..) for keywords and by IdentifierTable.
+    Identifier(String str_, IdentifierType type_, int id_)
     {
     	str = str_;
     	type = type_;
+    	id = id_;
     }
     
 }
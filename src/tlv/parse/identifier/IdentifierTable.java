@@ -0,0 +1,78 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package tlv.parse.identifier;
+
+import java.util.Hashtable;
+
+import tlv.config.IdentifierType;
+
+/**
+ * The Identifiers of a translation.  Each distinct Identifier (string and IdentifierType) is constructed only once, so
+ * Identifiers can be compared using ==, and each is given a dense integer ID (following those of the keywords, which are
+ * shared by all translations).  Each translation has its own table (held by its ActiveParseContext), so Identifiers are
+ * released along with the translation.
+ */
+public class IdentifierTable
+{
+	// Identifiers by string.  Identifiers with the same string but different types are chained via Identifier.same_str_next.
+	private Hashtable<String, Identifier> identifiers = new Hashtable<String, Identifier>();
+	private int next_id;
+	
+	public IdentifierTable()
+	{
+		next_id = Identifier.numKeywords();
+	}
+	
+	/**
+	 * @return The Identifier with the given string and type, constructed if this is its first use.
+	 */
+	Identifier intern(String str, IdentifierType type)
+	{
+		Identifier first = identifiers.get(str);
+		for (Identifier ident = first; ident != null; ident = ident.same_str_next)
+		{
+			if (ident.type == type)
+			{
+				return ident;
+			}
+		}
+		Identifier ret = new Identifier(str, type, next_id++);
+		ret.same_str_next = first;
+		identifiers.put(str, ret);
+		return ret;
+	}
+	
+	/**
+	 * @return The number of Identifiers in this table (excluding keywords).
+	 */
+	public int size()
+	{
+		return next_id - Identifier.numKeywords();
+	}
+}
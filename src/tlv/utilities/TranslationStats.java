@@ -0,0 +1,306 @@
+/*
+Copyright (c) 2014, Intel Corporation
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * Neither the name of Intel Corporation nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package tlv.utilities;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Vector;
+
+
+/**
+ * Per-phase timing and allocation statistics, and size counts, for a translation (the -stats command-line option).
+ *
+ * Each phase records wall time, CPU time, and bytes allocated by the translating thread (via ThreadMXBean), plus the CPU
+ * time and allocation of any worker threads, as measured by the phase (see addWorkerUsage(..)).  CPU time and allocation
+ * are reported as -1 where the JVM does not support them.  Statistics are reported as a table, and can
+ * also be written as JSON for tracking across releases.
+ *
+ * A disabled instance ignores all calls, so callers need not check whether statistics were requested.
+ */
+public class TranslationStats
+{
+	/**
+	 * Measurements of a single phase.
+	 */
+	private static class Phase
+	{
+		public final String name;
+		public long wall_ns;
+		public long cpu_ns;
+		public long alloc_bytes;
+		
+		public Phase(String name_)
+		{
+			name = name_;
+		}
+	}
+	
+	/**
+	 * A named count.
+	 */
+	private static class Count
+	{
+		public final String name;
+		public final long value;
+		
+		public Count(String name_, long value_)
+		{
+			name = name_;
+			value = value_;
+		}
+	}
+	
+	private boolean enabled;
+	private ThreadMXBean thread_bean;
+	private com.sun.management.ThreadMXBean alloc_bean = null;  // Null if allocation cannot be measured.
+	
+	private Vector<Phase> phases = new Vector<Phase>();
+	private Vector<Count> counts = new Vector<Count>();
+	
+	// The phase in progress and its starting measurements.
+	private Phase current_phase = null;
+	private long start_wall_ns;
+	private long start_cpu_ns;
+	private long start_alloc_bytes;
+	private long worker_cpu_ns;       // From addWorkerUsage(..).
+	private long worker_alloc_bytes;  // "
+	
+	
+	/**
+	 * @param enabled_ False for an instance that ignores all calls.
+	 */
+	public TranslationStats(boolean enabled_)
+	{
+		enabled = enabled_;
+		if (enabled)
+		{
+			thread_bean = ManagementFactory.getThreadMXBean();
+			if (thread_bean.isCurrentThreadCpuTimeSupported() && !thread_bean.isThreadCpuTimeEnabled())
+			{
+				thread_bean.setThreadCpuTimeEnabled(true);
+			}
+			if (thread_bean instanceof com.sun.management.ThreadMXBean)
+			{
+				alloc_bean = (com.sun.management.ThreadMXBean)thread_bean;
+				if (alloc_bean.isThreadAllocatedMemorySupported() && !alloc_bean.isThreadAllocatedMemoryEnabled())
+				{
+					alloc_bean.setThreadAllocatedMemoryEnabled(true);
+				}
+				if (!alloc_bean.isThreadAllocatedMemoryEnabled())
+				{
+					alloc_bean = null;
+				}
+			}
+		}
+	}
+	
+	public boolean isEnabled() {return enabled;}
+	
+	
+	/**
+	 * @return The CPU time of the calling thread, or -1 if it cannot be measured (or this instance is disabled).
+	 */
+	public long cpuNs()
+	{
+		return (enabled && thread_bean.isCurrentThreadCpuTimeSupported()) ? thread_bean.getCurrentThreadCpuTime() : -1;
+	}
+	
+	/**
+	 * @return The bytes allocated by the calling thread, or -1 if they cannot be measured (or this instance is disabled).
+	 */
+	public long allocBytes()
+	{
+		return (enabled && (alloc_bean != null)) ? alloc_bean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+	}
+	
+	/**
+	 * Begin measuring a phase (ending any phase in progress).  Measurements are for the calling thread, which must
+	 * also end the phase (and for worker threads, via addWorkerUsage(..)).
+	 */
+	public void beginPhase(String name)
+	{
+		if (!enabled)
+		{
+			return;
+		}
+		endPhase();
+		current_phase = new Phase(name);
+		worker_cpu_ns = 0;
+		worker_alloc_bytes = 0;
+		start_alloc_bytes = allocBytes();
+		start_cpu_ns = cpuNs();
+		start_wall_ns = System.nanoTime();
+	}
+	
+	/**
+	 * End measurement of the phase in progress, if any.
+	 */
+	public void endPhase()
+	{
+		if (!enabled || (current_phase == null))
+		{
+			return;
+		}
+		current_phase.wall_ns = System.nanoTime() - start_wall_ns;
+		long cpu_ns = cpuNs();
+		current_phase.cpu_ns = ((cpu_ns < 0) || (worker_cpu_ns < 0)) ? -1 : cpu_ns - start_cpu_ns + worker_cpu_ns;
+		long alloc_bytes = allocBytes();
+		current_phase.alloc_bytes = ((alloc_bytes < 0) || (worker_alloc_bytes < 0)) ? -1 : alloc_bytes - start_alloc_bytes + worker_alloc_bytes;
+		phases.add(current_phase);
+		current_phase = null;
+	}
+	
+	/**
+	 * Add the CPU time and allocation of worker threads to the phase in progress.  Workers measure themselves with
+	 * cpuNs() and allocBytes().
+	 * 
+	 * @param cpu_ns_ Worker CPU time, or -1 if it could not be measured.
+	 * @param alloc_bytes_ Worker allocation, or -1 if it could not be measured.
+	 */
+	public void addWorkerUsage(long cpu_ns_, long alloc_bytes_)
+	{
+		if (!enabled || (current_phase == null))
+		{
+			return;
+		}
+		worker_cpu_ns = ((worker_cpu_ns < 0) || (cpu_ns_ < 0)) ? -1 : worker_cpu_ns + cpu_ns_;
+		worker_alloc_bytes = ((worker_alloc_bytes < 0) || (alloc_bytes_ < 0)) ? -1 : worker_alloc_bytes + alloc_bytes_;
+	}
+	
+	/**
+	 * Record a count (of parse nodes, signals, etc.).
+	 */
+	public void count(String name, long value)
+	{
+		if (enabled)
+		{
+			counts.add(new Count(name, value));
+		}
+	}
+	
+	
+	//
+	// Reporting
+	//
+	
+	private static String ms(long ns)
+	{
+		return (ns < 0) ? "n/a" : String.format("%.1f", ns / 1000000.0);
+	}
+	
+	private static String kb(long bytes)
+	{
+		return (bytes < 0) ? "n/a" : String.valueOf(bytes >> 10);
+	}
+	
+	/**
+	 * Print the statistics as a table.
+	 *
+	 * @param title A title line for the table (e.g. the source file name).
+	 */
+	public void printTable(PrintStream out, String title)
+	{
+		if (!enabled)
+		{
+			return;
+		}
+		long wall_ns = 0;
+		long cpu_ns = 0;
+		long alloc_bytes = 0;
+		out.println("Statistics for " + title + ":");
+		out.println(String.format("  %-24s %12s %12s %14s", "Phase", "Wall (ms)", "CPU (ms)", "Alloc (KB)"));
+		for (Phase phase: phases)
+		{
+			out.println(String.format("  %-24s %12s %12s %14s", phase.name, ms(phase.wall_ns), ms(phase.cpu_ns), kb(phase.alloc_bytes)));
+			wall_ns += phase.wall_ns;
+			cpu_ns = ((cpu_ns < 0) || (phase.cpu_ns < 0)) ? -1 : cpu_ns + phase.cpu_ns;
+			alloc_bytes = ((alloc_bytes < 0) || (phase.alloc_bytes < 0)) ? -1 : alloc_bytes + phase.alloc_bytes;
+		}
+		out.println(String.format("  %-24s %12s %12s %14s", "TOTAL", ms(wall_ns), ms(cpu_ns), kb(alloc_bytes)));
+		out.println(String.format("  %-24s %12s", "Count", "Value"));
+		for (Count count: counts)
+		{
+			out.println(String.format("  %-24s %12d", count.name, count.value));
+		}
+	}
+	
+	private static String jsonString(String str)
+	{
+		return "\"" + str.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+	
+	/**
+	 * @return The statistics as a JSON object.  Times are in nanoseconds and allocation in bytes.
+	 */
+	public String toJson(String title)
+	{
+		StringBuilder json = new StringBuilder();
+		json.append("{\n  \"title\": ").append(jsonString(title)).append(",\n  \"phases\": [");
+		String sep = "\n";
+		for (Phase phase: phases)
+		{
+			json.append(sep).append("    {\"name\": ").append(jsonString(phase.name))
+			    .append(", \"wall_ns\": ").append(phase.wall_ns)
+			    .append(", \"cpu_ns\": ").append(phase.cpu_ns)
+			    .append(", \"alloc_bytes\": ").append(phase.alloc_bytes).append("}");
+			sep = ",\n";
+		}
+		json.append("\n  ],\n  \"counts\": {");
+		sep = "\n";
+		for (Count count: counts)
+		{
+			json.append(sep).append("    ").append(jsonString(count.name)).append(": ").append(count.value);
+			sep = ",\n";
+		}
+		json.append("\n  }\n}\n");
+		return json.toString();
+	}
+	
+	/**
+	 * Write the statistics as JSON (see toJson(..)).
+	 */
+	public void writeJson(String file_name, String title) throws IOException
+	{
+		if (!enabled)
+		{
+			return;
+		}
+		FileWriter writer = new FileWriter(file_name);
+		try
+		{
+			writer.write(toJson(title));
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+}